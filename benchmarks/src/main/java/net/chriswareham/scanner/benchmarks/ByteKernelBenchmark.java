@@ -0,0 +1,177 @@
+package net.chriswareham.scanner.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.chriswareham.scanner.ScannerByteKernel;
+import net.chriswareham.scanner.ScannerByteKernels;
+import net.chriswareham.scanner.ScannerByteSet;
+import net.chriswareham.scanner.ScannerMappedLineReader;
+import net.chriswareham.scanner.ScannerMatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks the throughput of the byte kernels over a corpus of
+ * Java code, in bytes per nanosecond, which is gigabytes per second. The
+ * forked JVM adds the {@code jdk.incubator.vector} module, so the vector
+ * kernel is only replaced by the scalar kernel if the hardware vectors are
+ * too narrow.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class ByteKernelBenchmark {
+    /**
+     * The number of bytes searched in each invocation.
+     */
+    private static final int SIZE = 8 * 1024 * 1024;
+
+    /**
+     * The kernel, which is either {@code scalar} or {@code vector}.
+     */
+    @Param({"scalar", "vector"})
+    private String kernel;
+
+    /**
+     * The bytes of the corpus.
+     */
+    private byte[] bytes;
+
+    /**
+     * The bytes of the corpus, outside the heap as if they were mapped.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * The offsets of the starts of the lines of the corpus.
+     */
+    private int[] starts;
+
+    /**
+     * The offsets of the ends of the lines of the corpus.
+     */
+    private int[] ends;
+
+    /**
+     * The first bytes of some typical literals.
+     */
+    private ScannerByteSet firstBytes;
+
+    /**
+     * The byte kernel.
+     */
+    private ScannerByteKernel byteKernel;
+
+    /**
+     * Generate the corpus and select the kernel.
+     */
+    @Setup
+    public void setup() {
+        byteKernel = ScannerByteKernels.get("vector".equals(kernel));
+
+        StringBuilder corpus = new StringBuilder(SIZE);
+        Random random = new Random(Corpus.SEED);
+        while (corpus.length() < SIZE) {
+            for (String line : Corpus.lines(random, 10000, 0.01)) {
+                corpus.append(line).append('\n');
+            }
+        }
+        bytes = new byte[SIZE];
+        System.arraycopy(corpus.toString().getBytes(StandardCharsets.UTF_8), 0, bytes, 0, SIZE);
+        buffer = ByteBuffer.allocateDirect(SIZE).put(bytes).flip();
+
+        List<int[]> lines = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < SIZE; ++i) {
+            if (bytes[i] == '\n') {
+                lines.add(new int[] {start, i});
+                start = i + 1;
+            }
+        }
+        starts = lines.stream().mapToInt(line -> line[0]).toArray();
+        ends = lines.stream().mapToInt(line -> line[1]).toArray();
+
+        firstBytes = new ScannerByteSet("-aAgGpPsSxX".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Find all the line terminators in the corpus.
+     *
+     * @return the number of line terminators
+     */
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public int lineTerminators() {
+        int count = 0;
+        for (int i = byteKernel.indexOfLineTerminator(bytes, 0, SIZE); i >= 0; i = byteKernel.indexOfLineTerminator(bytes, i + 1, SIZE)) {
+            ++count;
+        }
+        return count;
+    }
+
+    /**
+     * Test whether each line of the corpus is ASCII.
+     *
+     * @return the number of ASCII lines
+     */
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public int ascii() {
+        int count = 0;
+        for (int i = 0; i < starts.length; ++i) {
+            if (byteKernel.isAscii(bytes, starts[i], ends[i])) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Test whether each line of the corpus contains any of the first bytes
+     * of the literals.
+     *
+     * @return the number of lines that contain any of the first bytes
+     */
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public int firstBytes() {
+        int count = 0;
+        for (int i = 0; i < starts.length; ++i) {
+            if (byteKernel.containsAny(bytes, starts[i], ends[i], firstBytes)) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Read all the lines of the corpus, passing them to a matcher that does
+     * nothing.
+     *
+     * @return the number of lines
+     */
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public int read() {
+        List<ScannerMatch> matches = new ArrayList<>();
+        return new ScannerMappedLineReader(buffer, StandardCharsets.UTF_8, byteKernel, null, 0).read(1, (line, lineNumber, lineMatches) -> { }, matches);
+    }
+}
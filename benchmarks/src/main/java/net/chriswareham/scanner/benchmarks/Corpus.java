@@ -0,0 +1,209 @@
+package net.chriswareham.scanner.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class generates a synthetic corpus of Java, properties and YAML files
+ * with secrets planted in them. The corpus is generated deterministically
+ * from a seed, so that benchmark runs are comparable.
+ */
+public final class Corpus {
+    /**
+     * The seed for generating corpora.
+     */
+    public static final long SEED = 0x5CA77E4L;
+
+    /**
+     * The lines of ordinary Java code.
+     */
+    private static final String[] JAVA_LINES = {
+        "    private final Map<String, List<Integer>> index = new HashMap<>();",
+        "    public int getCount() {",
+        "        return count;",
+        "    }",
+        "        for (int i = 0; i < values.length; ++i) {",
+        "            total += values[i] * weights[i];",
+        "        if (value == null || value.isEmpty()) {",
+        "            throw new IllegalArgumentException(\"Missing value for \" + key);",
+        "     * Get the number of entries in the index.",
+        "        LOGGER.debug(\"Processed {} records in {} ms\", count, elapsed);",
+        "        String url = config.getString(\"service.endpoint.url\");",
+        "",
+    };
+
+    /**
+     * The lines of ordinary properties.
+     */
+    private static final String[] PROPERTIES_LINES = {
+        "server.port=8080",
+        "spring.application.name=inventory-service",
+        "logging.level.root=INFO",
+        "cache.ttl.seconds=300",
+        "# connection pool settings",
+        "datasource.pool.max-size=20",
+    };
+
+    /**
+     * The lines of ordinary YAML.
+     */
+    private static final String[] YAML_LINES = {
+        "server:",
+        "  port: 8080",
+        "spring:",
+        "  application:",
+        "    name: inventory-service",
+        "  datasource:",
+        "    url: jdbc:postgresql://db.internal:5432/inventory",
+    };
+
+    /**
+     * The characters of generated keys.
+     */
+    private static final String KEY_CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private Corpus() {
+        // prevent instantiation
+    }
+
+    /**
+     * Generate lines of Java code with secrets planted in them.
+     *
+     * @param random the source of randomness
+     * @param count the number of lines
+     * @param density the probability of a line having a secret
+     * @return the lines
+     */
+    public static List<String> lines(final Random random, final int count, final double density) {
+        return lines(random, count, density, JAVA_LINES);
+    }
+
+    /**
+     * Generate lines with secrets planted in them.
+     *
+     * @param random the source of randomness
+     * @param count the number of lines
+     * @param density the probability of a line having a secret
+     * @param ordinary the ordinary lines to choose from
+     * @return the lines
+     */
+    private static List<String> lines(final Random random, final int count, final double density, final String[] ordinary) {
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            lines.add(random.nextDouble() < density ? secret(random) : ordinary[random.nextInt(ordinary.length)]);
+        }
+        return lines;
+    }
+
+    /**
+     * Generate a line with a secret.
+     *
+     * @param random the source of randomness
+     * @return the line
+     */
+    private static String secret(final Random random) {
+        switch (random.nextInt(4)) {
+        case 0:
+            return "    private static final String KEY = \"AKIA" + key(random, 16) + "\";";
+        case 1:
+            return "password = " + key(random, 12).toLowerCase();
+        case 2:
+            return "    String url = \"jdbc:db://db" + random.nextInt(10) + ".internal:5432/app?user=app&password=" + key(random, 10) + "\";";
+        default:
+            return "ssh-rsa AAAAB3NzaC1yc2EAAAADAQABAAABAQ" + key(random, 40) + " deploy@build";
+        }
+    }
+
+    /**
+     * Generate a random key.
+     *
+     * @param random the source of randomness
+     * @param length the length of the key
+     * @return the key
+     */
+    private static String key(final Random random, final int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; ++i) {
+            sb.append(KEY_CHARACTERS.charAt(random.nextInt(KEY_CHARACTERS.length())));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Generate a tree of files with secrets planted in them. Four in five
+     * files are Java, and the rest are properties and YAML files, spread over
+     * nested package directories.
+     *
+     * @param root the root directory
+     * @param files the number of files
+     * @param linesPerFile the number of lines in each file
+     * @param density the probability of a line having a secret
+     * @throws IOException if an error occurs
+     */
+    public static void generate(final Path root, final int files, final int linesPerFile, final double density) throws IOException {
+        Random random = new Random(SEED);
+        for (int i = 0; i < files; ++i) {
+            Path dir = root.resolve("pkg" + (i % 10)).resolve("sub" + (i % 7)).resolve("leaf" + (i % 3));
+            Files.createDirectories(dir);
+            String name;
+            String[] ordinary;
+            switch (i % 10) {
+            case 8:
+                name = "config" + i + ".properties";
+                ordinary = PROPERTIES_LINES;
+                break;
+            case 9:
+                name = "application" + i + ".yml";
+                ordinary = YAML_LINES;
+                break;
+            default:
+                name = "Type" + i + ".java";
+                ordinary = JAVA_LINES;
+                break;
+            }
+            Files.write(dir.resolve(name), lines(random, linesPerFile, density, ordinary), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Generate a scanner patterns file. The first patterns are realistic
+     * secret patterns, and the rest are synthetic patterns with distinct
+     * literals, as a large shared pattern set would have.
+     *
+     * @param count the number of patterns
+     * @return the scanner patterns file
+     */
+    public static String patterns(final int count) {
+        String[] realistic = {
+            "<pattern name=\"SSH RSA Key\">ssh-rsa AAAAB3NzaC1yc2[0-9A-Za-z+/]+[=]{0,3}(\\s.*)?</pattern>",
+            "<pattern name=\"SSH ED25519 Key\">ssh-ed25519 AAAAC3NzaC1lZDI1NTE5[0-9A-Za-z+/]+[=]{0,3}(\\s.*)?</pattern>",
+            "<pattern name=\"JDBC Connection String With Password\">jdbc:db://[a-z0-9][-a-z0-9\\.]*(:[0-9]+)?/[^\\?]+\\?user=[^&amp;]+&amp;password=.+</pattern>",
+            "<pattern name=\"AWS Key\">(A3T[A-Z0-9]|AKIA|ASIA)[A-Z0-9]{16}</pattern>",
+            "<pattern name=\"Password\">(?i)password\\s*=\\s*\\S+</pattern>",
+            "<pattern name=\"Slack Token\">xox[baprs]-[0-9a-zA-Z]{10,48}</pattern>",
+            "<pattern name=\"GitHub Token\">ghp_[0-9a-zA-Z]{36}</pattern>",
+            "<pattern name=\"Private Key\">-----BEGIN (RSA |EC |DSA )?PRIVATE KEY-----</pattern>",
+            "<pattern name=\"Google API Key\">AIza[0-9A-Za-z\\-_]{35}</pattern>",
+            "<pattern name=\"Stripe Key\">sk_live_[0-9a-zA-Z]{24}</pattern>",
+        };
+        StringBuilder sb = new StringBuilder("<patterns>\n");
+        for (int i = 0; i < count; ++i) {
+            sb.append("    ");
+            if (i < realistic.length) {
+                sb.append(realistic[i]);
+            } else {
+                sb.append(String.format("<pattern name=\"Token %d\">tok%04d_[A-Za-z0-9]{%d,40}</pattern>", i, i, 16 + i % 8));
+            }
+            sb.append('\n');
+        }
+        return sb.append("</patterns>\n").toString();
+    }
+}
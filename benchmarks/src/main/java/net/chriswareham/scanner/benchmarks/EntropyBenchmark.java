@@ -0,0 +1,87 @@
+package net.chriswareham.scanner.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.chriswareham.scanner.ScannerEntropyCharset;
+import net.chriswareham.scanner.ScannerEntropyDetector;
+import net.chriswareham.scanner.ScannerMatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks the throughput of detecting high entropy strings, in
+ * lines per second. Run with {@code -prof gc} to check that lines without
+ * matches allocate nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntropyBenchmark {
+    /**
+     * The number of lines matched in each invocation.
+     */
+    private static final int LINES = 10000;
+
+    /**
+     * The character set of the tokens.
+     */
+    @Param({"base64", "hex"})
+    private String charset;
+
+    /**
+     * The lines to match.
+     */
+    private List<String> lines;
+
+    /**
+     * The detector of high entropy strings.
+     */
+    private ScannerEntropyDetector detector;
+
+    /**
+     * The histogram for the detector.
+     */
+    private int[] histogram;
+
+    /**
+     * Generate the lines and create the detector.
+     */
+    @Setup
+    public void setup() {
+        ScannerEntropyCharset entropyCharset = ScannerEntropyCharset.valueOfMnemonic(charset);
+        detector = new ScannerEntropyDetector(entropyCharset, 20, entropyCharset.getDefaultThreshold());
+        histogram = ScannerEntropyDetector.newHistogram();
+        lines = Corpus.lines(new Random(Corpus.SEED), LINES, 0.01);
+    }
+
+    /**
+     * Detect the high entropy strings in the lines.
+     *
+     * @return the matches
+     */
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public List<ScannerMatch> detect() {
+        List<ScannerMatch> matches = new ArrayList<>();
+        for (int i = 0; i < LINES; ++i) {
+            detector.find(0, lines.get(i), i + 1, matches, histogram);
+        }
+        return matches;
+    }
+}
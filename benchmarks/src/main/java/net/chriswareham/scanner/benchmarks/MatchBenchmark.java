@@ -0,0 +1,129 @@
+package net.chriswareham.scanner.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.chriswareham.scanner.ScannerContext;
+import net.chriswareham.scanner.ScannerEngine;
+import net.chriswareham.scanner.ScannerFileFilter;
+import net.chriswareham.scanner.ScannerFileMatcher;
+import net.chriswareham.scanner.ScannerMatch;
+import net.chriswareham.scanner.ScannerMatchGuard;
+import net.chriswareham.scanner.ScannerOutputFormat;
+import net.chriswareham.scanner.ScannerPattern;
+import net.chriswareham.scanner.ScannerPatternSet;
+import net.chriswareham.scanner.ScannerPatternsXmlParser;
+import net.chriswareham.scanner.ScannerStatistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks the throughput of matching lines, in lines per
+ * second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatchBenchmark {
+    /**
+     * The number of lines matched in each invocation.
+     */
+    private static final int LINES = 10000;
+
+    /**
+     * The number of patterns.
+     */
+    @Param({"10", "100", "1000"})
+    private int patternCount;
+
+    /**
+     * The matching engine.
+     */
+    @Param({"regex", "automaton"})
+    private String engine;
+
+    /**
+     * The probability of a line having a secret.
+     */
+    @Param({"0.01"})
+    private double density;
+
+    /**
+     * The match budget, or zero for no budget.
+     */
+    @Param({"0", "1000000"})
+    private long budget;
+
+    /**
+     * Whether to collect statistics.
+     */
+    @Param({"false", "true"})
+    private boolean statistics;
+
+    /**
+     * The lines to match.
+     */
+    private List<String> lines;
+
+    /**
+     * The matcher for the lines.
+     */
+    private ScannerFileMatcher matcher;
+
+    /**
+     * Generate the lines and create the matcher.
+     *
+     * @throws IOException if an error occurs
+     */
+    @Setup
+    public void setup() throws IOException {
+        List<ScannerPattern> patterns = new ScannerPatternsXmlParser().parse(new StringReader(Corpus.patterns(patternCount)));
+        ScannerContext context = new ScannerContext(
+            "UTF-8",
+            ScannerOutputFormat.XML,
+            ScannerEngine.valueOfMnemonic(engine),
+            new ScannerFileFilter(List.of(".java"), List.of()),
+            List.of(),
+            new ScannerPatternSet(patterns),
+            List.of(),
+            new ScannerMatchGuard(patterns.size(), budget, false),
+            statistics ? new ScannerStatistics(patterns, 10) : null
+        );
+        lines = Corpus.lines(new Random(Corpus.SEED), LINES, density);
+        File file = new File("Benchmark.java");
+        matcher = context.getMatcher().forFile(file, context.getActivePatterns(file), new ArrayList<>());
+    }
+
+    /**
+     * Match the lines.
+     *
+     * @return the matches
+     */
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public List<ScannerMatch> match() {
+        List<ScannerMatch> matches = new ArrayList<>();
+        for (int i = 0; i < LINES; ++i) {
+            matcher.match(lines.get(i), i + 1, matches);
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,84 @@
+package net.chriswareham.scanner.benchmarks;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.chriswareham.scanner.ScannerPattern;
+import net.chriswareham.scanner.ScannerPatternCache;
+import net.chriswareham.scanner.ScannerPatternSet;
+import net.chriswareham.scanner.ScannerPatternsXmlParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks parsing a scanner patterns file, including compiling
+ * the patterns and extracting their required literals.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatternParseBenchmark {
+    /**
+     * The number of patterns.
+     */
+    @Param({"10", "100", "1000"})
+    private int patternCount;
+
+    /**
+     * The scanner patterns file.
+     */
+    private String xml;
+
+    /**
+     * The content of the scanner patterns file.
+     */
+    private byte[] content;
+
+    /**
+     * Generate the scanner patterns file.
+     */
+    @Setup
+    public void setup() {
+        xml = Corpus.patterns(patternCount);
+        content = xml.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parse the scanner patterns file.
+     *
+     * @return the scanner patterns
+     * @throws IOException if an error occurs
+     */
+    @Benchmark
+    public List<ScannerPattern> parse() throws IOException {
+        return new ScannerPatternsXmlParser().parse(new StringReader(xml));
+    }
+
+    /**
+     * Get the compiled scanner patterns from the cache shared by every scan
+     * in the JVM, which only hashes the scanner patterns file once the
+     * patterns have been compiled.
+     *
+     * @return the compiled scanner patterns
+     * @throws IOException if an error occurs
+     */
+    @Benchmark
+    public ScannerPatternSet cached() throws IOException {
+        return ScannerPatternCache.get("benchmark", content, "UTF-8");
+    }
+}
@@ -0,0 +1,109 @@
+package net.chriswareham.scanner.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.chriswareham.scanner.ScannerContext;
+import net.chriswareham.scanner.ScannerEngine;
+import net.chriswareham.scanner.ScannerFileFilter;
+import net.chriswareham.scanner.ScannerMatch;
+import net.chriswareham.scanner.ScannerMatchGuard;
+import net.chriswareham.scanner.ScannerMatches;
+import net.chriswareham.scanner.ScannerOutputFormat;
+import net.chriswareham.scanner.ScannerOutputListener;
+import net.chriswareham.scanner.ScannerPatternSet;
+import net.chriswareham.scanner.ScannerPatternsXmlParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks writing reports for large scanner contexts, both all
+ * at once and streamed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportWriteBenchmark {
+    /**
+     * The number of matches in each file.
+     */
+    private static final int MATCHES_PER_FILE = 10;
+
+    /**
+     * The output format.
+     */
+    @Param({"xml", "plain"})
+    private String format;
+
+    /**
+     * The number of files with matches.
+     */
+    @Param({"1000", "100000"})
+    private int files;
+
+    /**
+     * The scanner context with the matches.
+     */
+    private ScannerContext context;
+
+    /**
+     * Create the scanner context with the matches, which are of the "AWS
+     * Key" and "Password" patterns of the corpus.
+     *
+     * @throws IOException if an error occurs
+     */
+    @Setup
+    public void setup() throws IOException {
+        ScannerOutputFormat outputFormat = ScannerOutputFormat.valueOfMnemonic(format);
+        ScannerPatternSet patternSet = new ScannerPatternSet(new ScannerPatternsXmlParser().parse(new StringReader(Corpus.patterns(5))));
+        context = new ScannerContext("UTF-8", outputFormat, ScannerEngine.REGEX, new ScannerFileFilter(List.of(), List.of()), List.of(), patternSet, List.of(), new ScannerMatchGuard(patternSet.getPatterns().size(), 0, false), null);
+        for (int i = 0; i < files; ++i) {
+            List<ScannerMatch> matches = new ArrayList<>(MATCHES_PER_FILE);
+            for (int j = 0; j < MATCHES_PER_FILE; ++j) {
+                matches.add(new ScannerMatch(j % 2 == 0 ? 3 : 4, j * 7 + 1, j));
+            }
+            context.addMatches(new ScannerMatches(new File("src/main/java/pkg" + i % 100 + "/Type" + i + ".java"), matches));
+        }
+    }
+
+    /**
+     * Write the report all at once.
+     *
+     * @throws IOException if an error occurs
+     */
+    @Benchmark
+    public void write() throws IOException {
+        context.getOutputFormat().getOutputWriter().write(context, Writer.nullWriter());
+    }
+
+    /**
+     * Write the report streamed, one file at a time.
+     *
+     * @throws IOException if an error occurs
+     */
+    @Benchmark
+    public void stream() throws IOException {
+        ScannerOutputListener listener = context.getOutputFormat().getOutputWriter().start(context, Writer.nullWriter());
+        for (ScannerMatches matches : context.getMatches()) {
+            listener.onFileMatches(matches);
+        }
+        listener.finish();
+    }
+}
@@ -0,0 +1,96 @@
+package net.chriswareham.scanner.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import net.chriswareham.scanner.ScannerFileFilter;
+import net.chriswareham.scanner.ScannerFileWalker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks walking a source tree to collect the files to scan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeWalkBenchmark {
+    /**
+     * The number of files in the tree.
+     */
+    @Param({"1000", "10000"})
+    private int files;
+
+    /**
+     * The excludes, where leaf2 prunes a third of the leaf directories.
+     */
+    @Param({"", "leaf2"})
+    private String excludes;
+
+    /**
+     * The root directory of the tree.
+     */
+    private Path root;
+
+    /**
+     * The walker for the tree.
+     */
+    private ScannerFileWalker walker;
+
+    /**
+     * Generate the tree.
+     *
+     * @throws IOException if an error occurs
+     */
+    @Setup
+    public void setup() throws IOException {
+        root = Files.createTempDirectory("scanner-benchmark");
+        Corpus.generate(root, files, 5, 0.1);
+        List<String> excludeList = excludes.isEmpty() ? List.of() : List.of(excludes.split(","));
+        walker = new ScannerFileWalker(new ScannerFileFilter(List.of(".java", ".properties", ".yml"), excludeList));
+    }
+
+    /**
+     * Delete the tree.
+     *
+     * @throws IOException if an error occurs
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * Walk the tree.
+     *
+     * @return the files to scan
+     * @throws IOException if an error occurs
+     */
+    @Benchmark
+    public List<File> walk() throws IOException {
+        return walker.walk(root.toFile());
+    }
+}
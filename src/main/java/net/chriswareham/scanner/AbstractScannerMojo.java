@@ -0,0 +1,1495 @@
+package net.chriswareham.scanner;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * This class provides the base for the scanner goals, which scan the files
+ * under one or more root directories for matches to the scanner patterns.
+ */
+public abstract class AbstractScannerMojo extends AbstractMojo {
+    /**
+     * The pattern that splits includes and excludes for files to scan.
+     */
+    private static final Pattern INCLUDES_PATTERN = Pattern.compile("\\s*,\\s*");
+
+    /**
+     * The default scanner patterns file location.
+     */
+    private static final String DEFAULT_PATTERNS_LOCATION = "scanner-patterns.xml";
+
+    /**
+     * The default suppressions file location.
+     */
+    private static final String DEFAULT_SUPPRESSIONS_LOCATION = "scanner-suppressions.xml";
+
+    /**
+     * The default root directory to execute the scanner from.
+     */
+    private static final String DEFAULT_ROOT = "src";
+
+    /**
+     * The default includes for files to scan.
+     */
+    private static final String DEFAULT_INCLUDES = ".java,.properties,.yml";
+
+    /**
+     * The default output file.
+     */
+    private static final String DEFAULT_OUTPUT_FILE = "${project.build.directory}/scanner-result.xml";
+
+    /**
+     * The default output format.
+     */
+    private static final String DEFAULT_OUTPUT_FORMAT = "xml";
+
+    /**
+     * The default cache file.
+     */
+    private static final String DEFAULT_CACHE_FILE = "${project.build.directory}/scanner-cache.dat";
+
+    /**
+     * The default matching engine.
+     */
+    private static final String DEFAULT_ENGINE = "regex";
+
+    /**
+     * The default input encoding.
+     */
+    private static final String DEFAULT_INPUT_ENCODING = "${project.build.sourceEncoding}";
+
+    /**
+     * The default encoding.
+     */
+    private static final Charset DEFAULT_ENCODING = StandardCharsets.UTF_8;
+
+    /**
+     * The encodings where each ASCII character is encoded as a single byte
+     * and no other character encodes to an ASCII byte.
+     */
+    private static final Set<Charset> ASCII_COMPATIBLE_ENCODINGS = Set.of(
+        StandardCharsets.US_ASCII,
+        StandardCharsets.ISO_8859_1,
+        StandardCharsets.UTF_8
+    );
+
+    /**
+     * The number of files per thread that may be submitted to the pool ahead
+     * of the earliest file that has not finished.
+     */
+    private static final int FILE_WINDOW_FACTOR = 4;
+
+    /**
+     * The Maven project.
+     */
+    @Parameter(defaultValue = "${project}", required = true, readonly = true)
+    private MavenProject project;
+
+    /**
+     * The scanner patterns file location.
+     */
+    @Parameter(property = "scanner.patternsLocation", defaultValue = DEFAULT_PATTERNS_LOCATION)
+    private String patternsLocation;
+
+    /**
+     * The scanner suppressions file location.
+     */
+    @Parameter(property = "scanner.suppressionsLocation", defaultValue = DEFAULT_SUPPRESSIONS_LOCATION)
+    private String suppressionsLocation;
+
+    /**
+     * The root directory to execute the scanner from.
+     */
+    @Parameter(property = "scanner.root", defaultValue = DEFAULT_ROOT)
+    private String root;
+
+    /**
+     * The git ref to compare against, to only scan files that have been
+     * added or modified since the ref, or that are untracked.
+     */
+    @Parameter(property = "scanner.changedSince")
+    private String changedSince;
+
+    /**
+     * The includes for files to scan.
+     */
+    @Parameter(property = "scanner.includes", defaultValue = DEFAULT_INCLUDES)
+    private String includes;
+
+    /**
+     * The excludes for files and directories not to scan.
+     */
+    @Parameter(property = "scanner.excludes", defaultValue = "")
+    private String excludes;
+
+    /**
+     * The path and filename to save the scanner output to.
+     */
+    @Parameter(property = "scanner.output.file", defaultValue = DEFAULT_OUTPUT_FILE)
+    private File outputFile;
+
+    /**
+     * The format of the scanner output.
+     */
+    @Parameter(property = "scanner.output.format", defaultValue = DEFAULT_OUTPUT_FORMAT)
+    private String outputFileFormat;
+
+    /**
+     * Whether to write the scanner output as the files are scanned, rather
+     * than keeping all the matches in memory until the end.
+     */
+    @Parameter(property = "scanner.output.streaming", defaultValue = "false")
+    private boolean streamOutput;
+
+    /**
+     * The matching engine, either regex to run each pattern with the Java
+     * regular expression engine or automaton to match all patterns with a
+     * single combined automaton.
+     */
+    @Parameter(property = "scanner.engine", defaultValue = DEFAULT_ENGINE)
+    private String engine;
+
+    /**
+     * Whether to fail on matches to the scanner patterns.
+     */
+    @Parameter(property = "scanner.failOnMatches", defaultValue = "true")
+    private boolean failOnMatches;
+
+    /**
+     * Whether to skip execution.
+     */
+    @Parameter(property = "scanner.skip", defaultValue = "false")
+    private boolean skip;
+
+    /**
+     * The number of threads to scan files with, or zero to use the number of
+     * available processors.
+     */
+    @Parameter(property = "scanner.threads", defaultValue = "0")
+    private int threads;
+
+    /**
+     * Whether to memory map files in ASCII compatible encodings, rather than
+     * decoding them a line at a time.
+     */
+    @Parameter(property = "scanner.memoryMapped", defaultValue = "true")
+    private boolean memoryMapped;
+
+    /**
+     * Whether to cache the matches for files between runs.
+     */
+    @Parameter(property = "scanner.cache", defaultValue = "true")
+    private boolean cache;
+
+    /**
+     * The path and filename to cache the matches for files in.
+     */
+    @Parameter(property = "scanner.cache.file", defaultValue = DEFAULT_CACHE_FILE)
+    private File cacheFile;
+
+    /**
+     * The maximum size in bytes of a file to scan, or zero for no maximum.
+     * Larger files are skipped and reported as warnings, which do not fail
+     * the build, so there is no maximum by default.
+     */
+    @Parameter(property = "scanner.maxFileSize", defaultValue = "0")
+    private long maxFileSize;
+
+    /**
+     * The size in bytes above which a memory mapped file is split into line
+     * aligned segments of about this size, which are scanned concurrently,
+     * or zero not to split files. Files are not split when they are matched
+     * whole or scanned with a single thread.
+     */
+    @Parameter(property = "scanner.segmentSize", defaultValue = "8388608")
+    private long segmentSize;
+
+    /**
+     * The maximum length of a line to match at once, or zero for no maximum.
+     * Longer lines are matched in overlapping windows and reported as
+     * warnings.
+     */
+    @Parameter(property = "scanner.maxLineLength", defaultValue = "20000")
+    private int maxLineLength;
+
+    /**
+     * Whether to match the patterns against the whole content of each file
+     * rather than line by line, so that patterns can match across lines. The
+     * patterns are always run with the Java regular expression engine, and
+     * long lines are not split into windows.
+     */
+    @Parameter(property = "scanner.wholeFile", defaultValue = "false")
+    private boolean wholeFile;
+
+    /**
+     * Whether to search memory mapped files for line terminators and the
+     * first bytes of literals with the vector API, which is only used if the
+     * {@code jdk.incubator.vector} module has been added to the JVM, for
+     * example with {@code MAVEN_OPTS="--add-modules jdk.incubator.vector"}.
+     */
+    @Parameter(property = "scanner.vectorized", defaultValue = "true")
+    private boolean vectorized;
+
+    /**
+     * The extensions of archives in the zip format to scan the included
+     * entries of, such as {@code .jar,.war,.zip}, or empty not to scan
+     * archives.
+     */
+    @Parameter(property = "scanner.archives", defaultValue = "")
+    private String archives;
+
+    /**
+     * The maximum depth of nested archives to scan, where an archive on disk
+     * has a depth of one.
+     */
+    @Parameter(property = "scanner.archiveDepth", defaultValue = "3")
+    private int archiveDepth;
+
+    /**
+     * The maximum uncompressed size in bytes of an entry of an archive to
+     * scan, or zero for no maximum. Entries are read into memory, so larger
+     * entries are skipped and reported as warnings, which guards against
+     * highly compressed entries exhausting the heap. A smaller maximum file
+     * size also applies to entries.
+     */
+    @Parameter(property = "scanner.maxEntrySize", defaultValue = "16777216")
+    private long maxEntrySize;
+
+    /**
+     * The budget of characters that a pattern run with the Java regular
+     * expression engine may read on a line before it is aborted, which guards
+     * against catastrophic backtracking, or zero for no budget.
+     */
+    @Parameter(property = "scanner.matchBudget", defaultValue = "1000000")
+    private long matchBudget;
+
+    /**
+     * Whether to disable a pattern for the rest of the run once it has
+     * exceeded its match budget.
+     */
+    @Parameter(property = "scanner.disableOnTimeout", defaultValue = "false")
+    private boolean disableOnTimeout;
+
+    /**
+     * Whether to fail on patterns that their static analysis flags as prone
+     * to catastrophic backtracking, rather than warn about them.
+     */
+    @Parameter(property = "scanner.strictPatterns", defaultValue = "false")
+    private boolean strictPatterns;
+
+    /**
+     * Whether to collect timing statistics for the patterns and files, and
+     * include them in the log and XML report. As the timings vary from run to
+     * run, reports with statistics cannot be compared directly.
+     */
+    @Parameter(property = "scanner.statistics", defaultValue = "false")
+    private boolean statistics;
+
+    /**
+     * The number of slowest patterns and files to include in the statistics.
+     */
+    @Parameter(property = "scanner.statistics.top", defaultValue = "10")
+    private int statisticsTop;
+
+    /**
+     * The encoding to use when reading files.
+     */
+    @Parameter(property = "encoding", defaultValue = DEFAULT_INPUT_ENCODING)
+    private String inputEncoding;
+
+    /**
+     * Execute a scan.
+     *
+     * @throws MojoExecutionException if an unexpected error occurs
+     * @throws MojoFailureException if an expected error occurs
+     */
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        getLog().info("Executing scan from " + root + " directory.");
+
+        if (skip) {
+            return;
+        }
+
+        String encoding = getEncoding();
+        getLog().debug("Searching mapped files with the " + ScannerByteKernels.get(vectorized).getName() + " byte kernel.");
+
+        MessageDigest fingerprint = ScannerCache.newDigest();
+        ScannerPatternSet patternSet = readPatterns(encoding, fingerprint);
+        List<ScannerPattern> patterns = patternSet.getPatterns();
+        checkPatterns(patterns);
+        List<ScannerSuppression> suppressions = parseSuppressions(encoding, fingerprint);
+        List<String> includeList = parseList(includes);
+        List<String> excludeList = parseList(excludes);
+        List<String> archiveList = parseList(archives);
+        ScannerEngine scannerEngine = getEngine();
+        fingerprint.update((encoding + '\n' + scannerEngine.getMnemonic() + '\n' + includeList + '\n' + excludeList + '\n' + archiveList + '\n' + archiveDepth + '\n' + maxLineLength + '\n' + matchBudget + '\n' + wholeFile).getBytes(StandardCharsets.UTF_8));
+
+        ScannerFileFilter fileFilter = new ScannerFileFilter(includeList, excludeList, archiveList);
+        ScannerStatistics scannerStatistics = statistics ? new ScannerStatistics(patterns, statisticsTop) : null;
+        ScannerMatchGuard guard = new ScannerMatchGuard(patterns.size(), matchBudget, disableOnTimeout);
+        List<ScannerModule> modules = getModules();
+        ScannerContext context = new ScannerContext(encoding, getOutputFormat(), scannerEngine, fileFilter, suppressions, patternSet, modules, guard, scannerStatistics);
+
+        ScannerCache scannerCache = cache ? new ScannerCache(cacheFile, fingerprint.digest()) : null;
+
+        List<File> files = new ArrayList<>();
+        boolean changed = changedSince != null && !changedSince.isBlank();
+        List<File> rootDirs = getRootDirs(modules);
+        if (changed) {
+            listChangedFiles(context, rootDirs, files);
+        } else {
+            for (File rootDir : rootDirs) {
+                processDir(context, rootDir, files);
+            }
+        }
+        files = new ArrayList<>(new LinkedHashSet<>(files));
+        if (changed) {
+            getLog().info("Scanning " + files.size() + " files changed since " + changedSince + ".");
+        }
+        Predicate<File> retain = changed ? file -> isScannable(context, rootDirs, file) : file -> false;
+        if (streamOutput) {
+            streamFiles(context, scannerCache, retain, files);
+        } else {
+            processFiles(context, scannerCache, files, null);
+            saveCache(scannerCache, retain);
+
+            if (!context.isOutputEmpty()) {
+                LogWriter logWriter = new LogWriter(context, getLog());
+                logWriter.write();
+
+                generateReports(context);
+            }
+        }
+
+        if (failOnMatches && !context.isMatchesEmpty()) {
+            throw new MojoFailureException(context.toString());
+        }
+    }
+
+    /**
+     * Get the modules to scan, for the breakdown of the matches by module.
+     *
+     * @return the modules to scan, which are empty for a scan of a single
+     * module
+     * @throws MojoFailureException if an error occurs
+     */
+    protected abstract List<ScannerModule> getModules() throws MojoFailureException;
+
+    /**
+     * Get the root directories to scan, none of which may contain another.
+     *
+     * @param modules the modules to scan
+     * @return the root directories to scan
+     * @throws MojoFailureException if an error occurs
+     */
+    protected abstract List<File> getRootDirs(List<ScannerModule> modules) throws MojoFailureException;
+
+    /**
+     * Get the scanner suppressions.
+     *
+     * @param encoding the encoding to use
+     * @param fingerprint the digest to update with the suppressions files
+     * @return the scanner suppressions
+     * @throws MojoFailureException if an error occurs
+     */
+    protected abstract List<ScannerSuppression> parseSuppressions(String encoding, MessageDigest fingerprint) throws MojoFailureException;
+
+    /**
+     * Get the Maven project.
+     *
+     * @return the Maven project
+     */
+    protected MavenProject getProject() {
+        return project;
+    }
+
+    /**
+     * Get the root directory to execute the scanner from, which may be
+     * relative to the base directory of a project.
+     *
+     * @return the root directory to execute the scanner from
+     */
+    protected String getRoot() {
+        return root;
+    }
+
+    /**
+     * Get the scanner suppressions file location.
+     *
+     * @return the scanner suppressions file location
+     */
+    protected String getSuppressionsLocation() {
+        return suppressionsLocation;
+    }
+
+    /**
+     * Save the cache of matches for files, logging rather than failing on an
+     * error.
+     *
+     * @param scannerCache the cache of matches for files, or null
+     * @param retain whether to keep the cached matches for a file that was
+     * not scanned
+     */
+    private void saveCache(final ScannerCache scannerCache, final Predicate<File> retain) {
+        if (scannerCache != null) {
+            try {
+                scannerCache.save(retain);
+            } catch (IOException exception) {
+                getLog().warn("Error writing cache file " + cacheFile + ": " + exception.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Get the encoding to use.
+     *
+     * @return the encoding to use
+     */
+    private String getEncoding() {
+        return inputEncoding != null && !inputEncoding.isBlank() ? inputEncoding : System.getProperty("file.encoding", DEFAULT_ENCODING.name());
+    }
+
+    /**
+     * Split a comma separated list of includes or excludes.
+     *
+     * @param list the comma separated list, which may be null
+     * @return the includes or excludes
+     */
+    private static List<String> parseList(final String list) {
+        if (list == null) {
+            return List.of();
+        }
+        return INCLUDES_PATTERN.splitAsStream(list.trim())
+            .filter(include -> !include.isEmpty())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Read the scanner suppressions from a suppressions file.
+     *
+     * @param file the suppressions file
+     * @param baseDir the directory to resolve the relative paths of the
+     * suppressed files against, or null to resolve them against the working
+     * directory
+     * @param encoding the encoding to use
+     * @param fingerprint the digest to update with the suppressions file
+     * @return the scanner suppressions, which are empty if the suppressions
+     * file does not exist
+     * @throws MojoFailureException if an error occurs
+     */
+    protected List<ScannerSuppression> readSuppressions(final File file, final File baseDir, final String encoding, final MessageDigest fingerprint) throws MojoFailureException {
+        if (!file.exists() || !file.isFile()) {
+            return List.of();
+        }
+
+        try {
+            byte[] content;
+            try (InputStream inputStream = new FileInputStream(file)) {
+                content = inputStream.readAllBytes();
+            }
+            fingerprint.update(content);
+            ScannerSuppressionsXmlParser parser = new ScannerSuppressionsXmlParser();
+            return parser.parse(new InputStreamReader(new ByteArrayInputStream(content), encoding), baseDir);
+        } catch (IOException exception) {
+            throw new MojoFailureException("Error reading suppressions file " + file + ": " + exception.getMessage());
+        } catch (IllegalStateException exception) {
+            throw new MojoFailureException("Error parsing suppressions file " + file + ": " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Get the compiled scanner patterns. The patterns are only parsed and
+     * compiled once per JVM for the same patterns file, so the modules of a
+     * reactor build share them.
+     *
+     * @param encoding the encoding to use
+     * @param fingerprint the digest to update with the patterns file
+     * @return the compiled scanner patterns
+     * @throws MojoFailureException if an error occurs
+     */
+    private ScannerPatternSet readPatterns(final String encoding, final MessageDigest fingerprint) throws MojoFailureException {
+        URL url = getClass().getClassLoader().getResource(patternsLocation);
+
+        if (url == null) {
+            throw new MojoFailureException("Patterns file " + patternsLocation + " not found");
+        }
+
+        try (InputStream inputStream = url.openStream()) {
+            byte[] content = inputStream.readAllBytes();
+            fingerprint.update(content);
+            return ScannerPatternCache.get(url.toString(), content, encoding);
+        } catch (IOException exception) {
+            throw new MojoFailureException("Error reading patterns file " + patternsLocation + ": " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Check the static analysis of the scanner patterns, warning about or
+     * failing on the patterns that are prone to catastrophic backtracking.
+     *
+     * @param patterns the scanner patterns
+     * @throws MojoFailureException if a pattern is prone to catastrophic
+     * backtracking and patterns are checked strictly
+     */
+    private void checkPatterns(final List<ScannerPattern> patterns) throws MojoFailureException {
+        for (ScannerPattern pattern : patterns) {
+            ScannerRegexAnalysis analysis = pattern.getAnalysis();
+            if (getLog().isDebugEnabled()) {
+                getLog().debug("Pattern " + pattern.getName() + " has " + analysis + ".");
+            }
+            if (analysis.getRisk() != null) {
+                String message = "Pattern " + pattern.getName() + " is prone to catastrophic backtracking from " + analysis.getRisk();
+                if (strictPatterns) {
+                    throw new MojoFailureException(message);
+                }
+                getLog().warn(message + ".");
+            }
+        }
+    }
+
+    /**
+     * Get the format of the scanner output.
+     *
+     * @return the format of the scanner output
+     * @throws MojoFailureException if an error occurs
+     */
+    private ScannerOutputFormat getOutputFormat() throws MojoFailureException {
+        if (!ScannerOutputFormat.isMnemonic(outputFileFormat)) {
+            throw new MojoFailureException("Invalid output file format " + outputFileFormat);
+        }
+        return ScannerOutputFormat.valueOfMnemonic(outputFileFormat);
+    }
+
+    /**
+     * Get the matching engine.
+     *
+     * @return the matching engine
+     * @throws MojoFailureException if an error occurs
+     */
+    private ScannerEngine getEngine() throws MojoFailureException {
+        if (!ScannerEngine.isMnemonic(engine)) {
+            throw new MojoFailureException("Invalid engine " + engine);
+        }
+        return ScannerEngine.valueOfMnemonic(engine);
+    }
+
+    /**
+     * Get the number of threads to scan files with.
+     *
+     * @return the number of threads to scan files with
+     * @throws MojoFailureException if an error occurs
+     */
+    private int getThreads() throws MojoFailureException {
+        if (threads < 0) {
+            throw new MojoFailureException("Invalid number of threads " + threads);
+        }
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Process a directory, collecting the files to scan.
+     *
+     * @param context the scanner context
+     * @param directory the directory to process
+     * @param files the files to scan
+     * @throws MojoFailureException if an error occurs
+     */
+    private void processDir(final ScannerContext context, final File directory, final List<File> files) throws MojoFailureException {
+        try {
+            files.addAll(new ScannerFileWalker(context.getFileFilter()).walk(directory));
+        } catch (IOException exception) {
+            throw new MojoFailureException("Error listing files in " + directory + ": " + exception.getMessage());
+        }
+    }
+
+    /**
+     * List the files to scan that have changed since the configured git ref.
+     *
+     * @param context the scanner context
+     * @param rootDirs the root directories to execute the scanner from
+     * @param files the files to scan
+     * @throws MojoFailureException if an error occurs
+     */
+    private void listChangedFiles(final ScannerContext context, final List<File> rootDirs, final List<File> files) throws MojoFailureException {
+        ScannerFileFilter filter = context.getFileFilter();
+        try {
+            for (Map.Entry<File, List<File>> entry : ScannerGitChanges.list(rootDirs, changedSince).entrySet()) {
+                Path root = entry.getKey().toPath().toAbsolutePath();
+                for (File file : entry.getValue()) {
+                    Path relativePath = root.relativize(file.toPath().toAbsolutePath());
+                    if (!filter.isWithinExcluded(relativePath) && (filter.isIncluded(relativePath) || filter.isArchive(relativePath))) {
+                        files.add(file);
+                    }
+                }
+            }
+        } catch (IOException exception) {
+            throw new MojoFailureException("Error listing files changed since " + changedSince + ": " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Get whether a file exists and would be scanned by a walk of the root
+     * directories.
+     *
+     * @param context the scanner context
+     * @param rootDirs the root directories
+     * @param file the file
+     * @return whether the file would be scanned
+     */
+    private static boolean isScannable(final ScannerContext context, final List<File> rootDirs, final File file) {
+        if (!file.isFile()) {
+            return false;
+        }
+        ScannerFileFilter filter = context.getFileFilter();
+        Path path = file.toPath().toAbsolutePath();
+        for (File rootDir : rootDirs) {
+            Path root = rootDir.toPath().toAbsolutePath();
+            if (path.startsWith(root)) {
+                Path relativePath = root.relativize(path);
+                return !filter.isWithinExcluded(relativePath) && (filter.isIncluded(relativePath) || filter.isArchive(relativePath));
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Process files in order of their paths, writing the scanner output as
+     * they are scanned.
+     *
+     * @param context the scanner context
+     * @param scannerCache the cache of matches for files, or null
+     * @param retain whether to keep the cached matches for a file that was
+     * not scanned
+     * @param files the files to process
+     * @throws MojoFailureException if an error occurs
+     */
+    private void streamFiles(
+        final ScannerContext context,
+        final ScannerCache scannerCache,
+        final Predicate<File> retain,
+        final List<File> files
+    ) throws MojoFailureException {
+        files.sort(null);
+
+        try (ReportWriter reportWriter = new ReportWriter(context)) {
+            ScannerOrderedOutput output = new ScannerOrderedOutput(List.of(new LogWriter(context, getLog()), reportWriter));
+            processFiles(context, scannerCache, files, output);
+            saveCache(scannerCache, retain);
+            output.finish();
+        } catch (IOException exception) {
+            throw new MojoFailureException("Error writing report: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Process files, using a work-stealing pool if more than one thread is
+     * configured.
+     *
+     * @param context the scanner context
+     * @param scannerCache the cache of matches for files, or null
+     * @param files the files to process
+     * @param output the output to pass the scanner matches for the files to
+     * as they are scanned, or null to add them to the scanner context
+     * @throws MojoFailureException if an error occurs
+     */
+    private void processFiles(
+        final ScannerContext context,
+        final ScannerCache scannerCache,
+        final List<File> files,
+        final ScannerOrderedOutput output
+    ) throws MojoFailureException {
+        long start = System.nanoTime();
+        try {
+            int threadCount = getThreads();
+            processFiles(context, scannerCache, files, output, segmentSize > 0 ? threadCount : Math.min(threadCount, Math.max(files.size(), 1)));
+        } finally {
+            if (context.getStatistics() != null) {
+                context.getStatistics().setElapsed(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Process files, using a work-stealing pool if more than one thread is
+     * used. Files are submitted to the pool in a sliding window, so a file is
+     * only submitted once the file a window before it has finished, which
+     * bounds the matches that an ordered output holds for files that finish
+     * out of order.
+     *
+     * @param context the scanner context
+     * @param scannerCache the cache of matches for files, or null
+     * @param files the files to process
+     * @param output the output to pass the scanner matches for the files to
+     * as they are scanned, or null to add them to the scanner context
+     * @param parallelism the number of threads to use
+     * @throws MojoFailureException if an error occurs
+     */
+    private void processFiles(
+        final ScannerContext context,
+        final ScannerCache scannerCache,
+        final List<File> files,
+        final ScannerOrderedOutput output,
+        final int parallelism
+    ) throws MojoFailureException {
+        if (parallelism == 1) {
+            for (int i = 0; i < files.size(); ++i) {
+                completeFile(context, output, i, files.get(i), processFile(context, scannerCache, files.get(i)));
+            }
+            return;
+        }
+
+        int window = FILE_WINDOW_FACTOR * parallelism;
+        List<Future<Void>> futures = new ArrayList<>(files.size());
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (int i = 0; i < files.size(); ++i) {
+                if (i >= window) {
+                    futures.get(i - window).get();
+                }
+                int index = i;
+                Callable<Void> task = () -> {
+                    completeFile(context, output, index, files.get(index), processFile(context, scannerCache, files.get(index)));
+                    return null;
+                };
+                futures.add(pool.submit(task));
+            }
+            for (int i = Math.max(files.size() - window, 0); i < futures.size(); ++i) {
+                futures.get(i).get();
+            }
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof MojoFailureException) {
+                throw (MojoFailureException) exception.getCause();
+            }
+            throw new MojoFailureException("Error scanning files: " + exception.getCause().getMessage());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new MojoFailureException("Scan interrupted");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Complete a file that has been processed, recording it against its
+     * module and either adding its scanner matches to the scanner context or
+     * passing them to the output.
+     *
+     * @param context the scanner context
+     * @param output the output to pass the scanner matches to, or null to add
+     * them to the scanner context
+     * @param index the index of the file
+     * @param file the file
+     * @param matches the scanner matches for the file, or for the entries of
+     * an archive, which are empty if it has no matches
+     * @throws MojoFailureException if an error occurs
+     */
+    private static void completeFile(
+        final ScannerContext context,
+        final ScannerOrderedOutput output,
+        final int index,
+        final File file,
+        final List<ScannerMatches> matches
+    ) throws MojoFailureException {
+        ScannerModule module = context.getModule(file);
+        if (module != null) {
+            module.record(matches);
+        }
+
+        if (output == null) {
+            for (ScannerMatches fileMatches : matches) {
+                context.addMatches(fileMatches);
+            }
+            return;
+        }
+
+        for (int i = 0; i < matches.size(); ++i) {
+            context.countMatches();
+        }
+        try {
+            output.complete(index, matches);
+        } catch (IOException exception) {
+            throw new MojoFailureException("Error writing report: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Process a file, reusing the cached matches if the file is unchanged.
+     * Files larger than the maximum size are skipped, as are binary files and
+     * files that no patterns apply to, which are not read. The patterns that
+     * apply to a file are looked up once, by its extension. The entries of
+     * archives are scanned instead of the archives.
+     *
+     * @param context the scanner context
+     * @param scannerCache the cache of matches for files, or null
+     * @param file the file to process
+     * @return the scanner matches for the file, or for the entries of an
+     * archive, which are empty if it has no matches
+     * @throws MojoFailureException if an error occurs
+     */
+    private List<ScannerMatches> processFile(final ScannerContext context, final ScannerCache scannerCache, final File file) throws MojoFailureException {
+        if (context.getFileFilter().isArchive(file.toPath().getFileName())) {
+            return processArchive(context, file);
+        }
+
+        List<ScannerMatch> matches = new ArrayList<>();
+        List<ScannerWarning> warnings = new ArrayList<>();
+
+        try {
+            long size = file.length();
+            long lastModified = file.lastModified();
+
+            if (maxFileSize > 0 && size > maxFileSize) {
+                context.addWarning(new ScannerWarning(file, 0, String.format("skipped as its size of %d bytes exceeds %d bytes", size, maxFileSize)));
+                return List.of();
+            }
+
+            List<ScannerMatch> cachedMatches = scannerCache != null ? scannerCache.get(file, size, lastModified) : null;
+            if (cachedMatches != null) {
+                matches.addAll(cachedMatches);
+                if (context.getStatistics() != null) {
+                    context.getStatistics().recordCachedFile();
+                }
+                warnings.addAll(scannerCache.getWarnings(file));
+            } else {
+                BitSet active = context.getActivePatterns(file);
+                if (!active.isEmpty()) {
+                    Charset charset = Charset.forName(context.getEncoding());
+                    if (ScannerBinaryDetector.isBinary(file, charset)) {
+                        warnings.add(new ScannerWarning(file, 0, "skipped as it is binary"));
+                    } else {
+                        scanFile(context, file, active, charset, size, matches, warnings);
+                    }
+                }
+                if (scannerCache != null && !context.getGuard().hasDisabled()) {
+                    scannerCache.put(file, size, lastModified, matches, warnings);
+                }
+            }
+        } catch (IOException exception) {
+            throw new MojoFailureException("Error reading file " + file + ": " + exception.getMessage());
+        }
+
+        for (ScannerWarning warning : warnings) {
+            context.addWarning(warning);
+        }
+
+        return !matches.isEmpty() ? List.of(new ScannerMatches(file, matches)) : List.of();
+    }
+
+    /**
+     * Process an archive, scanning the entries that are included and the
+     * entries of any nested archives. The matches for archives are not
+     * cached.
+     *
+     * @param context the scanner context
+     * @param file the archive to process
+     * @return the scanner matches for the entries of the archive
+     * @throws MojoFailureException if an error occurs
+     */
+    private List<ScannerMatches> processArchive(final ScannerContext context, final File file) throws MojoFailureException {
+        List<ScannerWarning> warnings = new ArrayList<>();
+        List<ScannerMatches> matches;
+
+        try {
+            long entrySize = maxFileSize > 0 && (maxEntrySize <= 0 || maxFileSize < maxEntrySize) ? maxFileSize : maxEntrySize;
+            ScannerArchiveReader reader = new ScannerArchiveReader(context.getFileFilter(), archiveDepth, entrySize);
+            matches = reader.read(file, warnings, (entry, content, entryWarnings) -> scanEntry(context, entry, content, entryWarnings));
+        } catch (IOException exception) {
+            throw new MojoFailureException("Error reading archive " + file + ": " + exception.getMessage());
+        }
+
+        for (ScannerWarning warning : warnings) {
+            context.addWarning(warning);
+        }
+
+        return matches;
+    }
+
+    /**
+     * Scan the content of an entry of an archive, unless it is binary or no
+     * patterns apply to it.
+     *
+     * @param context the scanner context
+     * @param entry the path of the entry
+     * @param content the content of the entry
+     * @param warnings the list to add the warnings to
+     * @return the scanner matches for the entry, or null if it has no matches
+     * @throws IOException if an error occurs
+     */
+    private ScannerMatches scanEntry(final ScannerContext context, final File entry, final byte[] content, final List<ScannerWarning> warnings) throws IOException {
+        BitSet active = context.getActivePatterns(entry);
+        if (active.isEmpty()) {
+            return null;
+        }
+
+        Charset charset = Charset.forName(context.getEncoding());
+        if (ScannerBinaryDetector.isBinary(content, charset)) {
+            warnings.add(new ScannerWarning(entry, 0, "skipped as it is binary"));
+            return null;
+        }
+
+        List<ScannerMatch> matches = new ArrayList<>();
+        if (wholeFile) {
+            scanContent(context, entry, active, content.length, new String(content, charset), matches, warnings);
+        } else {
+            scanLines(context, entry, active, content.length, warnings, matcher -> readLines(new ByteArrayInputStream(content), charset, matcher, matches));
+        }
+        return !matches.isEmpty() ? new ScannerMatches(entry, matches) : null;
+    }
+
+    /**
+     * Scan the lines of a text file.
+     *
+     * @param context the scanner context
+     * @param file the file
+     * @param active the ids of the patterns that apply to the file
+     * @param charset the encoding of the file
+     * @param size the size of the file
+     * @param matches the list to add the matches to
+     * @param warnings the list to add the warnings to
+     * @throws IOException if an error occurs
+     */
+    private void scanFile(
+        final ScannerContext context,
+        final File file,
+        final BitSet active,
+        final Charset charset,
+        final long size,
+        final List<ScannerMatch> matches,
+        final List<ScannerWarning> warnings
+    ) throws IOException {
+        if (wholeFile) {
+            if (memoryMapped && ASCII_COMPATIBLE_ENCODINGS.contains(charset) && size <= Integer.MAX_VALUE) {
+                mapContent(context, file, active, charset, matches, warnings);
+            } else {
+                scanContent(context, file, active, size, new String(Files.readAllBytes(file.toPath()), charset), matches, warnings);
+            }
+        } else if (memoryMapped && ASCII_COMPATIBLE_ENCODINGS.contains(charset) && segmentSize > 0 && size > segmentSize && ForkJoinTask.inForkJoinPool()) {
+            if (!scanSegments(context, file, active, charset, size, matches, warnings)) {
+                scanLines(context, file, active, size, warnings, matcher -> readLines(new FileInputStream(file), charset, matcher, matches));
+            }
+        } else if (memoryMapped && ASCII_COMPATIBLE_ENCODINGS.contains(charset) && size <= Integer.MAX_VALUE) {
+            scanLines(context, file, active, size, warnings, matcher -> mapLines(context, file, active, charset, matcher, matches));
+        } else {
+            scanLines(context, file, active, size, warnings, matcher -> readLines(new FileInputStream(file), charset, matcher, matches));
+        }
+    }
+
+    /**
+     * Scan the whole content of a text file or entry with the whole file
+     * matcher.
+     *
+     * @param context the scanner context
+     * @param file the file or entry
+     * @param active the ids of the patterns that apply to the file or entry
+     * @param size the size of the file or entry
+     * @param content the content of the file or entry
+     * @param matches the list to add the matches to
+     * @param warnings the list to add the warnings to
+     */
+    private static void scanContent(
+        final ScannerContext context,
+        final File file,
+        final BitSet active,
+        final long size,
+        final CharSequence content,
+        final List<ScannerMatch> matches,
+        final List<ScannerWarning> warnings
+    ) {
+        long start = System.nanoTime();
+        context.getWholeFileMatcher().match(file, active, content, matches, warnings);
+        if (context.getStatistics() != null) {
+            context.getStatistics().recordFile(file, size, ScannerLineIndex.countLines(content), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Scan the whole content of a text file in an ASCII compatible encoding,
+     * by memory mapping it. Content that is all ASCII, or any content in
+     * ISO-8859-1, is matched through a view over the bytes, so only content
+     * with multibyte characters is decoded.
+     *
+     * @param context the scanner context
+     * @param file the file
+     * @param active the ids of the patterns that apply to the file
+     * @param charset the encoding of the file
+     * @param matches the list to add the matches to
+     * @param warnings the list to add the warnings to
+     * @throws IOException if an error occurs
+     */
+    private static void mapContent(
+        final ScannerContext context,
+        final File file,
+        final BitSet active,
+        final Charset charset,
+        final List<ScannerMatch> matches,
+        final List<ScannerWarning> warnings
+    ) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            int size = (int) channel.size();
+            if (size == 0) {
+                return;
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            boolean bytesAreChars = StandardCharsets.ISO_8859_1.equals(charset);
+            boolean ascii = true;
+            for (int i = 0; i < size && ascii && !bytesAreChars; ++i) {
+                ascii = buffer.get(i) >= 0;
+            }
+
+            CharSequence content = ascii || bytesAreChars ? new ScannerByteSequence(buffer).reset(0, size) : charset.decode(buffer);
+            scanContent(context, file, active, size, content, matches, warnings);
+        }
+    }
+
+    /**
+     * Scan the lines of a text file or entry with the matcher for the file,
+     * matching long lines in overlapping windows.
+     *
+     * @param context the scanner context
+     * @param file the file or entry
+     * @param active the ids of the patterns that apply to the file or entry
+     * @param size the size of the file or entry
+     * @param warnings the list to add the warnings to
+     * @param lineReader the reader that passes the lines to the matcher
+     * @throws IOException if an error occurs
+     */
+    private void scanLines(
+        final ScannerContext context,
+        final File file,
+        final BitSet active,
+        final long size,
+        final List<ScannerWarning> warnings,
+        final LineReader lineReader
+    ) throws IOException {
+        ScannerFileMatcher matcher = context.getMatcher().forFile(file, active, warnings);
+        ScannerWindowedFileMatcher windowedMatcher = null;
+        if (maxLineLength > 0) {
+            windowedMatcher = new ScannerWindowedFileMatcher(matcher, maxLineLength);
+            matcher = windowedMatcher;
+        }
+
+        long start = System.nanoTime();
+        int lines = lineReader.read(matcher);
+        if (context.getStatistics() != null) {
+            context.getStatistics().recordFile(file, size, lines, System.nanoTime() - start);
+        }
+
+        if (windowedMatcher != null) {
+            warnLongLines(file, windowedMatcher.getLongLines(), windowedMatcher.getFirstLongLine(), warnings);
+        }
+    }
+
+    /**
+     * Scan the lines of a large text file in an ASCII compatible encoding in
+     * line aligned segments, which are scanned concurrently on the worker
+     * pool. The lines of the segments are counted concurrently first, to find
+     * the line number of the first line of each segment, and the matches and
+     * warnings for the segments are then merged in order.
+     *
+     * @param context the scanner context
+     * @param file the file
+     * @param active the ids of the patterns that apply to the file
+     * @param charset the encoding of the file
+     * @param size the size of the file
+     * @param matches the list to add the matches to
+     * @param warnings the list to add the warnings to
+     * @return whether the file was scanned, as it could be split into
+     * segments that are small enough to map
+     * @throws IOException if an error occurs
+     */
+    private boolean scanSegments(
+        final ScannerContext context,
+        final File file,
+        final BitSet active,
+        final Charset charset,
+        final long size,
+        final List<ScannerMatch> matches,
+        final List<ScannerWarning> warnings
+    ) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            List<ScannerFileSegment> segments = ScannerFileSegment.split(channel, segmentSize);
+            if (segments == null) {
+                return false;
+            }
+
+            long start = System.nanoTime();
+            int lines = ScannerFileSegment.numberLines(segments);
+
+            List<List<ScannerMatch>> segmentMatches = new ArrayList<>(segments.size());
+            List<List<ScannerWarning>> segmentWarnings = new ArrayList<>(segments.size());
+            ScannerWindowedFileMatcher[] windowedMatchers = new ScannerWindowedFileMatcher[segments.size()];
+            List<ForkJoinTask<?>> scanTasks = new ArrayList<>(segments.size());
+            for (int i = 0; i < segments.size(); ++i) {
+                int index = i;
+                segmentMatches.add(new ArrayList<>());
+                segmentWarnings.add(new ArrayList<>());
+                scanTasks.add(ForkJoinTask.adapt(() -> {
+                    ScannerFileMatcher matcher = context.getMatcher().forFile(file, active, segmentWarnings.get(index));
+                    if (maxLineLength > 0) {
+                        windowedMatchers[index] = new ScannerWindowedFileMatcher(matcher, maxLineLength);
+                        matcher = windowedMatchers[index];
+                    }
+                    newLineReader(context, active, segments.get(index).getBuffer(), charset).read(segments.get(index).getFirstLine(), matcher, segmentMatches.get(index));
+                }));
+            }
+            ForkJoinTask.invokeAll(scanTasks);
+
+            int longLines = 0;
+            int firstLongLine = 0;
+            for (int i = 0; i < segments.size(); ++i) {
+                matches.addAll(segmentMatches.get(i));
+                warnings.addAll(segmentWarnings.get(i));
+                if (windowedMatchers[i] != null && windowedMatchers[i].getLongLines() > 0) {
+                    if (longLines == 0) {
+                        firstLongLine = windowedMatchers[i].getFirstLongLine();
+                    }
+                    longLines += windowedMatchers[i].getLongLines();
+                }
+            }
+            if (context.getStatistics() != null) {
+                context.getStatistics().recordFile(file, size, lines, System.nanoTime() - start);
+            }
+            warnLongLines(file, longLines, firstLongLine, warnings);
+        }
+        return true;
+    }
+
+    /**
+     * Warn about the lines of a file that were longer than the maximum line
+     * length and were matched in overlapping windows, if there were any.
+     *
+     * @param file the file
+     * @param longLines the number of lines matched in windows
+     * @param firstLongLine the line number of the first line matched in
+     * windows
+     * @param warnings the list to add the warning to
+     */
+    private void warnLongLines(final File file, final int longLines, final int firstLongLine, final List<ScannerWarning> warnings) {
+        if (longLines > 0) {
+            String message = longLines == 1
+                ? String.format("is longer than %d characters and was scanned in overlapping windows", maxLineLength)
+                : String.format("is the first of %d lines longer than %d characters that were scanned in overlapping windows", longLines, maxLineLength);
+            warnings.add(new ScannerWarning(file, firstLongLine, message));
+        }
+    }
+
+    /**
+     * Match the lines of a file, decoding them with a reader.
+     *
+     * @param input the stream of the content of the file, which is closed
+     * @param charset the encoding of the file
+     * @param matcher the matcher for the lines of the file
+     * @param matches the list to add the matches to
+     * @return the number of lines
+     * @throws IOException if an error occurs
+     */
+    private static int readLines(final InputStream input, final Charset charset, final ScannerFileMatcher matcher, final List<ScannerMatch> matches) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, charset))) {
+            int n = 0;
+            while (reader.ready()) {
+                matcher.match(reader.readLine(), ++n, matches);
+            }
+            return n;
+        }
+    }
+
+    /**
+     * Match the lines of a file in an ASCII compatible encoding, by memory
+     * mapping it.
+     *
+     * @param context the scanner context
+     * @param file the file
+     * @param active the ids of the patterns that apply to the file
+     * @param charset the encoding of the file
+     * @param matcher the matcher for the lines of the file
+     * @param matches the list to add the matches to
+     * @return the number of lines
+     * @throws IOException if an error occurs
+     */
+    private int mapLines(
+        final ScannerContext context,
+        final File file,
+        final BitSet active,
+        final Charset charset,
+        final ScannerFileMatcher matcher,
+        final List<ScannerMatch> matches
+    ) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            int size = (int) channel.size();
+            if (size == 0) {
+                return 0;
+            }
+
+            return newLineReader(context, active, channel.map(FileChannel.MapMode.READ_ONLY, 0, size), charset).read(1, matcher, matches);
+        }
+    }
+
+    /**
+     * Create a reader of the lines of mapped bytes in an ASCII compatible
+     * encoding. If every pattern that applies has literals or keywords, and
+     * statistics are not being collected, the reader skips the lines that
+     * contain none of their first bytes.
+     *
+     * @param context the scanner context
+     * @param active the ids of the patterns that apply to the file
+     * @param buffer the mapped bytes
+     * @param charset the encoding of the bytes
+     * @return the reader
+     */
+    private ScannerMappedLineReader newLineReader(final ScannerContext context, final BitSet active, final MappedByteBuffer buffer, final Charset charset) {
+        ScannerPrefilter prefilter = context.getPrefilter();
+        ScannerByteSet firstBytes = context.getStatistics() == null && prefilter.filtersAll(active) ? prefilter.getFirstBytes() : null;
+        return new ScannerMappedLineReader(buffer, charset, ScannerByteKernels.get(vectorized), firstBytes, maxLineLength);
+    }
+
+    /**
+     * Generate reports for a scanner context.
+     *
+     * @param context the scanner context to generate reports for
+     * @throws MojoFailureException if an error occurs
+     */
+    private void generateReports(final ScannerContext context) throws MojoFailureException {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(outputFile), context.getEncoding())) {
+            ScannerOutputWriter outputWriter = context.getOutputFormat().getOutputWriter();
+            outputWriter.write(context, writer);
+        } catch (IOException exception) {
+            throw new MojoFailureException("Error writing report: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * This interface is implemented by readers that pass the lines of a file
+     * to a matcher.
+     */
+    @FunctionalInterface
+    private interface LineReader {
+        /**
+         * Pass the lines of a file to a matcher.
+         *
+         * @param matcher the matcher for the lines of the file
+         * @return the number of lines
+         * @throws IOException if an error occurs
+         */
+        int read(ScannerFileMatcher matcher) throws IOException;
+    }
+
+    /**
+     * This class provides a report writer for streamed scanner output, which
+     * only creates the report once there is something to write to it.
+     */
+    private final class ReportWriter implements ScannerOutputListener, Closeable {
+        /**
+         * The scanner context.
+         */
+        private final ScannerContext context;
+
+        /**
+         * The writer for the report, or null if it has not been created.
+         */
+        private Writer writer;
+
+        /**
+         * The output listener writing to the report, or null if it has not
+         * been created.
+         */
+        private ScannerOutputListener listener;
+
+        /**
+         * Construct an instance of a report writer.
+         *
+         * @param context the scanner context
+         */
+        private ReportWriter(final ScannerContext context) {
+            this.context = context;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onFileMatches(final ScannerMatches matches) throws IOException {
+            open().onFileMatches(matches);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void finish() throws IOException {
+            if (listener != null || !context.isOutputEmpty()) {
+                open().finish();
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() throws IOException {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+
+        /**
+         * Create the report, if it has not been created.
+         *
+         * @return the output listener writing to the report
+         * @throws IOException if an error occurs
+         */
+        private ScannerOutputListener open() throws IOException {
+            if (listener == null) {
+                writer = new OutputStreamWriter(new FileOutputStream(outputFile), context.getEncoding());
+                listener = context.getOutputFormat().getOutputWriter().start(context, writer);
+            }
+            return listener;
+        }
+    }
+
+    /**
+     * This class provides a log writer.
+     */
+    private static final class LogWriter implements ScannerOutputListener {
+        /**
+         * The scanner context.
+         */
+        private final ScannerContext context;
+
+        /**
+         * The log to write to.
+         */
+        private final Log log;
+
+        /**
+         * Construct an instance of a log writer.
+         *
+         * @param context the scanner context
+         * @param log the log to write to
+         */
+        private LogWriter(final ScannerContext context, final Log log) {
+            this.context = context;
+            this.log = log;
+        }
+
+        /**
+         * Write a summary of the scanner context to the log.
+         */
+        private void write() {
+            log.info(context.toString());
+
+            for (ScannerMatches matches : context.getMatches()) {
+                onFileMatches(matches);
+            }
+
+            for (ScannerWarning warning : context.getWarnings()) {
+                log.warn(warning.toString());
+            }
+
+            writeModules();
+
+            writeStatistics();
+        }
+
+        /**
+         * Write the modules to the log, if the scan is an aggregate scan.
+         */
+        private void writeModules() {
+            for (ScannerModule module : context.getModules()) {
+                log.info(module.toString());
+            }
+        }
+
+        /**
+         * Write a summary of the statistics to the log, with the slowest
+         * patterns and files.
+         */
+        private void writeStatistics() {
+            ScannerStatistics statistics = context.getStatistics();
+            if (statistics == null) {
+                return;
+            }
+
+            log.info(statistics.toString());
+
+            List<ScannerStatistics.PatternStatistics> patterns = statistics.getPatterns();
+            for (ScannerStatistics.PatternStatistics pattern : patterns.subList(0, Math.min(statistics.getTop(), patterns.size()))) {
+                log.info(pattern.toString());
+            }
+
+            for (ScannerStatistics.FileStatistics file : statistics.getSlowestFiles()) {
+                log.info(file.toString());
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onFileMatches(final ScannerMatches matches) {
+            log.info(matches.toString());
+
+            for (ScannerMatch match : matches.getMatches()) {
+                log.info(match.toString(context.getPatternSet()));
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void finish() {
+            for (ScannerWarning warning : context.getWarnings()) {
+                log.warn(warning.toString());
+            }
+
+            writeModules();
+
+            if (!context.isOutputEmpty()) {
+                log.info(context.toString());
+            }
+
+            writeStatistics();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package net.chriswareham.scanner;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * This class implements an aggregate scanner, which runs once for a reactor
+ * build and scans the root directories of all of its modules in a single
+ * pass. Root directories nested within the root directory of another module
+ * are only walked once, and the files are scanned with one shared pool of
+ * threads. The report combines the matches for all the modules, with a
+ * breakdown of the files and matches for each module, where a file belongs to
+ * the module with the deepest root directory that contains it.
+ * <p>
+ * The goal is intended to be run from the command line, or to be bound in
+ * the POM of the execution root.
+ */
+@Mojo(name = "aggregate", aggregator = true, threadSafe = true)
+public class ScannerAggregateMojo extends AbstractScannerMojo {
+    /**
+     * The Maven session.
+     */
+    @Parameter(defaultValue = "${session}", required = true, readonly = true)
+    private MavenSession session;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected List<ScannerModule> getModules() throws MojoFailureException {
+        Map<Path, ScannerModule> modules = new LinkedHashMap<>();
+        for (MavenProject module : session.getProjects()) {
+            File rootDir = new File(getRoot());
+            if (!rootDir.isAbsolute()) {
+                rootDir = new File(module.getBasedir(), getRoot());
+            }
+            if (rootDir.isDirectory()) {
+                Path rootPath = rootDir.toPath().toAbsolutePath().normalize();
+                modules.putIfAbsent(rootPath, new ScannerModule(module.getArtifactId(), rootPath.toFile()));
+            }
+        }
+
+        if (modules.isEmpty()) {
+            throw new MojoFailureException("Root directory " + getRoot() + " not found in any module");
+        }
+
+        return new ArrayList<>(modules.values());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected List<File> getRootDirs(final List<ScannerModule> modules) {
+        List<Path> rootPaths = new ArrayList<>();
+        for (ScannerModule module : modules) {
+            rootPaths.add(module.getRootDir().toPath());
+        }
+        rootPaths.sort(null);
+
+        List<Path> keptPaths = new ArrayList<>();
+        List<File> rootDirs = new ArrayList<>();
+        for (Path rootPath : rootPaths) {
+            if (keptPaths.stream().noneMatch(rootPath::startsWith)) {
+                keptPaths.add(rootPath);
+                rootDirs.add(rootPath.toFile());
+            }
+        }
+
+        getLog().info("Scanning " + modules.size() + " modules from " + rootDirs.size() + " root directories.");
+
+        return rootDirs;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected List<ScannerSuppression> parseSuppressions(final String encoding, final MessageDigest fingerprint) throws MojoFailureException {
+        List<ScannerSuppression> suppressions = new ArrayList<>();
+        for (MavenProject module : session.getProjects()) {
+            File file = new File(new File(module.getBasedir(), "src/main/resources"), getSuppressionsLocation());
+            suppressions.addAll(readSuppressions(file, module.getBasedir(), encoding, fingerprint));
+        }
+        return suppressions;
+    }
+}
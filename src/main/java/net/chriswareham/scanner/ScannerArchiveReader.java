@@ -0,0 +1,294 @@
+package net.chriswareham.scanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+/**
+ * This class implements a reader for the entries of archives in the zip
+ * format, such as jar, war and zip files, that passes the content of each
+ * entry to scan to a handler without extracting it to disk. The entries of an
+ * archive on disk are listed from its central directory, and are read in
+ * parallel when the reader is called from a fork join pool. Archives nested
+ * within an archive are streamed, up to a maximum depth. An entry is
+ * identified by the path of its archive followed by {@code !/} and the name
+ * of the entry. This class is thread safe.
+ */
+public class ScannerArchiveReader {
+    /**
+     * The separator between the path of an archive and the name of an entry.
+     */
+    public static final String SEPARATOR = "!/";
+
+    /**
+     * The filter for the entries to scan.
+     */
+    private final ScannerFileFilter filter;
+
+    /**
+     * The maximum depth of nested archives to read, where an archive on disk
+     * has a depth of one.
+     */
+    private final int maxDepth;
+
+    /**
+     * The maximum size in bytes of an entry to scan, or zero for no maximum.
+     */
+    private final long maxEntrySize;
+
+    /**
+     * Construct an instance of a reader for the entries of archives.
+     *
+     * @param filter the filter for the entries to scan
+     * @param maxDepth the maximum depth of nested archives to read, where an
+     * archive on disk has a depth of one
+     * @param maxEntrySize the maximum size in bytes of an entry to scan, or
+     * zero for no maximum
+     */
+    public ScannerArchiveReader(final ScannerFileFilter filter, final int maxDepth, final long maxEntrySize) {
+        this.filter = filter;
+        this.maxDepth = maxDepth;
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    /**
+     * Read the entries of an archive on disk, passing the content of each
+     * entry to scan to a handler.
+     *
+     * @param archive the archive
+     * @param warnings the list to add the warnings for the archive and its
+     * entries to
+     * @param handler the handler for the content of the entries
+     * @return the scanner matches for the entries, ordered by entry
+     * @throws IOException if an error occurs
+     */
+    public List<ScannerMatches> read(final File archive, final List<ScannerWarning> warnings, final EntryHandler handler) throws IOException {
+        Result[] results;
+        try (ZipFile zipFile = new ZipFile(archive)) {
+            List<? extends ZipEntry> entries = zipFile.stream()
+                .filter(entry -> !entry.isDirectory() && isScanned(entry.getName()))
+                .collect(Collectors.toList());
+
+            results = new Result[entries.size()];
+            if (entries.size() > 1 && ForkJoinTask.inForkJoinPool()) {
+                List<ForkJoinTask<Void>> tasks = new ArrayList<>(entries.size());
+                for (int i = 0; i < entries.size(); ++i) {
+                    int index = i;
+                    tasks.add(ForkJoinTask.adapt(() -> {
+                        results[index] = readEntry(zipFile, entries.get(index), archive, handler);
+                        return null;
+                    }));
+                }
+                invokeAll(tasks);
+            } else {
+                for (int i = 0; i < entries.size(); ++i) {
+                    results[i] = readEntry(zipFile, entries.get(i), archive, handler);
+                }
+            }
+        } catch (ZipException exception) {
+            warnings.add(new ScannerWarning(archive, 0, "skipped as it is not a valid archive: " + exception.getMessage()));
+            return List.of();
+        }
+
+        List<ScannerMatches> matches = new ArrayList<>();
+        for (Result result : results) {
+            matches.addAll(result.matches);
+            warnings.addAll(result.warnings);
+        }
+        matches.sort(Comparator.comparing(ScannerMatches::getFile));
+        return matches;
+    }
+
+    /**
+     * Run tasks in the current fork join pool, rethrowing the first error.
+     *
+     * @param tasks the tasks
+     * @throws IOException if a task failed with an error
+     */
+    private static void invokeAll(final List<ForkJoinTask<Void>> tasks) throws IOException {
+        try {
+            ForkJoinTask.invokeAll(tasks);
+        } catch (RuntimeException exception) {
+            if (exception.getCause() instanceof IOException) {
+                throw (IOException) exception.getCause();
+            }
+            throw exception;
+        }
+    }
+
+    /**
+     * Read an entry of an archive on disk.
+     *
+     * @param zipFile the archive
+     * @param entry the entry
+     * @param archive the path of the archive
+     * @param handler the handler for the content of the entries
+     * @return the result of reading the entry
+     * @throws IOException if an error occurs
+     */
+    private Result readEntry(final ZipFile zipFile, final ZipEntry entry, final File archive, final EntryHandler handler) throws IOException {
+        Result result = new Result();
+        try (InputStream input = zipFile.getInputStream(entry)) {
+            readEntry(archive.getPath() + SEPARATOR + entry.getName(), entry, input, 1, result, handler);
+        }
+        return result;
+    }
+
+    /**
+     * Read an entry of an archive from a stream, either passing its content
+     * to the handler or reading it as a nested archive.
+     *
+     * @param path the path of the entry
+     * @param entry the entry
+     * @param input the stream of the content of the entry
+     * @param depth the depth of the archive that the entry is in
+     * @param result the result to add the matches and warnings to
+     * @param handler the handler for the content of the entries
+     * @throws IOException if an error occurs
+     */
+    private void readEntry(
+        final String path,
+        final ZipEntry entry,
+        final InputStream input,
+        final int depth,
+        final Result result,
+        final EntryHandler handler
+    ) throws IOException {
+        File file = new File(path);
+
+        if (isArchive(entry.getName())) {
+            if (depth >= maxDepth) {
+                result.warnings.add(new ScannerWarning(file, 0, String.format("skipped as it is nested more than %d archives deep", maxDepth)));
+                return;
+            }
+            try {
+                readNested(path, new ZipInputStream(input), depth + 1, result, handler);
+            } catch (ZipException exception) {
+                result.warnings.add(new ScannerWarning(file, 0, "skipped as it is not a valid archive: " + exception.getMessage()));
+            }
+            return;
+        }
+
+        byte[] content = readContent(entry, input);
+        if (content == null) {
+            result.warnings.add(new ScannerWarning(file, 0, String.format("skipped as its size exceeds %d bytes", maxEntrySize)));
+            return;
+        }
+
+        ScannerMatches matches = handler.scan(file, content, result.warnings);
+        if (matches != null) {
+            result.matches.add(matches);
+        }
+    }
+
+    /**
+     * Read the entries of a nested archive from a stream. The stream is not
+     * closed, as that would close the stream of the enclosing archive.
+     *
+     * @param path the path of the nested archive
+     * @param input the stream of the nested archive
+     * @param depth the depth of the nested archive
+     * @param result the result to add the matches and warnings to
+     * @param handler the handler for the content of the entries
+     * @throws IOException if an error occurs
+     */
+    private void readNested(final String path, final ZipInputStream input, final int depth, final Result result, final EntryHandler handler) throws IOException {
+        for (ZipEntry entry = input.getNextEntry(); entry != null; entry = input.getNextEntry()) {
+            if (!entry.isDirectory() && isScanned(entry.getName())) {
+                readEntry(path + SEPARATOR + entry.getName(), entry, input, depth, result, handler);
+            }
+        }
+    }
+
+    /**
+     * Read the content of an entry, unless it exceeds the maximum size.
+     *
+     * @param entry the entry
+     * @param input the stream of the content of the entry
+     * @return the content of the entry, or null if it exceeds the maximum
+     * size
+     * @throws IOException if an error occurs
+     */
+    private byte[] readContent(final ZipEntry entry, final InputStream input) throws IOException {
+        if (maxEntrySize <= 0) {
+            return input.readAllBytes();
+        }
+        if (entry.getSize() > maxEntrySize) {
+            return null;
+        }
+        byte[] content = input.readNBytes((int) Math.min(maxEntrySize + 1, Integer.MAX_VALUE - 8));
+        return content.length <= maxEntrySize ? content : null;
+    }
+
+    /**
+     * Get whether an entry is to be scanned, either as a file or as a nested
+     * archive.
+     *
+     * @param name the name of the entry
+     * @return whether the entry is to be scanned
+     */
+    private boolean isScanned(final String name) {
+        try {
+            Path path = Path.of(name);
+            return filter.isIncluded(path) || filter.isArchive(path);
+        } catch (InvalidPathException exception) {
+            return false;
+        }
+    }
+
+    /**
+     * Get whether an entry is a nested archive.
+     *
+     * @param name the name of the entry
+     * @return whether the entry is a nested archive
+     */
+    private boolean isArchive(final String name) {
+        return filter.isArchive(Path.of(name));
+    }
+
+    /**
+     * This interface is implemented by handlers for the content of the
+     * entries of archives, which may be called concurrently.
+     */
+    @FunctionalInterface
+    public interface EntryHandler {
+        /**
+         * Scan the content of an entry.
+         *
+         * @param entry the path of the entry
+         * @param content the content of the entry
+         * @param warnings the list to add the warnings for the entry to
+         * @return the scanner matches for the entry, or null if it has no
+         * matches
+         * @throws IOException if an error occurs
+         */
+        ScannerMatches scan(File entry, byte[] content, List<ScannerWarning> warnings) throws IOException;
+    }
+
+    /**
+     * This class describes the result of reading an entry of an archive on
+     * disk, including any nested entries.
+     */
+    private static final class Result {
+        /**
+         * The scanner matches for the entries.
+         */
+        private final List<ScannerMatches> matches = new ArrayList<>();
+
+        /**
+         * The warnings for the entries.
+         */
+        private final List<ScannerWarning> warnings = new ArrayList<>();
+    }
+}
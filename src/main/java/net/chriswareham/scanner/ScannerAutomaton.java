@@ -0,0 +1,888 @@
+package net.chriswareham.scanner;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * This class implements a combined automaton for a set of scanner patterns.
+ * The patterns are compiled into a single Thompson NFA, which is matched in
+ * two stages. A lazily built DFA finds the patterns that match a line in a
+ * single left to right pass, whatever the number of patterns. A Pike VM then
+ * finds the positions of the matches of those patterns, with the same
+ * leftmost-first semantics as {@link java.util.regex.Matcher#find()}.
+ * <p>
+ * The DFA treats word boundaries and assertions about line terminators
+ * within a line as always satisfied, so it may report a pattern that the
+ * Pike VM then finds no match for, but never misses one. Characters are
+ * matched individually, so a dot or negated class matches half of a
+ * surrogate pair rather than the whole code point.
+ * <p>
+ * This class is thread safe.
+ */
+public class ScannerAutomaton {
+    /**
+     * The instruction that consumes a character in a class.
+     */
+    private static final int CLASS = 0;
+
+    /**
+     * The instruction that branches, preferring the first branch.
+     */
+    private static final int SPLIT = 1;
+
+    /**
+     * The instruction that checks a zero width assertion.
+     */
+    private static final int ASSERT = 2;
+
+    /**
+     * The instruction that reports a match.
+     */
+    private static final int MATCH = 3;
+
+    /**
+     * The closure mode for the start of a non-empty line.
+     */
+    private static final int MODE_START = 0;
+
+    /**
+     * The closure mode for the middle of a line.
+     */
+    private static final int MODE_MIDDLE = 1;
+
+    /**
+     * The closure mode for the end of a non-empty line.
+     */
+    private static final int MODE_END = 2;
+
+    /**
+     * The closure mode for an empty line.
+     */
+    private static final int MODE_EMPTY = 3;
+
+    /**
+     * The maximum number of instructions for a single pattern.
+     */
+    private static final int MAX_PATTERN_SIZE = 10000;
+
+    /**
+     * The maximum number of cached DFA states.
+     */
+    private static final int MAX_STATES = 10000;
+
+    /**
+     * The instruction operations.
+     */
+    private int[] ops = new int[256];
+
+    /**
+     * The first operand of each instruction, which is the next instruction.
+     */
+    private int[] out1 = new int[256];
+
+    /**
+     * The second operand of each instruction, which is the alternative
+     * branch of a split or the pattern index of a match.
+     */
+    private int[] out2 = new int[256];
+
+    /**
+     * The character class of each class instruction.
+     */
+    private ScannerRegexNode.CharClass[] charClasses = new ScannerRegexNode.CharClass[256];
+
+    /**
+     * The kind of each assertion instruction.
+     */
+    private ScannerRegexNode.Assertion.Kind[] kinds = new ScannerRegexNode.Assertion.Kind[256];
+
+    /**
+     * The number of instructions.
+     */
+    private int size;
+
+    /**
+     * The first instruction of the pattern being compiled.
+     */
+    private int patternBegin;
+
+    /**
+     * The start instruction of each pattern, or -1 if the pattern could not
+     * be compiled.
+     */
+    private final int[] starts;
+
+    /**
+     * The first instruction of each pattern.
+     */
+    private final int[] begins;
+
+    /**
+     * The instruction after the last instruction of each pattern.
+     */
+    private final int[] ends;
+
+    /**
+     * The start instructions of all the compiled patterns.
+     */
+    private final int[] startPcs;
+
+    /**
+     * The lower bounds of the character equivalence classes.
+     */
+    private final char[] bounds;
+
+    /**
+     * The map of ASCII characters to character equivalence classes.
+     */
+    private final int[] asciiClasses;
+
+    /**
+     * The DFA states, keyed by their instructions.
+     */
+    private final Map<Key, State> states = new HashMap<>();
+
+    /**
+     * The initial DFA state.
+     */
+    private final State initial;
+
+    /**
+     * Construct an instance of a combined automaton for scanner patterns.
+     * Patterns that use syntax the automaton does not support, or that
+     * compile to too many instructions, are left out, as are detectors of
+     * high entropy strings.
+     *
+     * @param patterns the scanner patterns
+     */
+    public ScannerAutomaton(final List<ScannerPattern> patterns) {
+        starts = new int[patterns.size()];
+        begins = new int[patterns.size()];
+        ends = new int[patterns.size()];
+
+        ScannerRegexParser parser = new ScannerRegexParser();
+        int compiled = 0;
+        for (int i = 0; i < patterns.size(); ++i) {
+            begins[i] = size;
+            patternBegin = size;
+            starts[i] = -1;
+            if (patterns.get(i).getRegex() != null) {
+                try {
+                    ScannerRegexNode node = parser.parse(patterns.get(i).getRegex());
+                    int match = emit(MATCH, -1, i);
+                    starts[i] = compile(node, match);
+                    ++compiled;
+                } catch (IllegalArgumentException exception) {
+                    size = begins[i];
+                    starts[i] = -1;
+                }
+            }
+            ends[i] = size;
+        }
+
+        startPcs = new int[compiled];
+        for (int i = 0, j = 0; i < starts.length; ++i) {
+            if (starts[i] >= 0) {
+                startPcs[j++] = starts[i];
+            }
+        }
+
+        TreeSet<Character> lowerBounds = new TreeSet<>();
+        lowerBounds.add(Character.MIN_VALUE);
+        for (int pc = 0; pc < size; ++pc) {
+            if (ops[pc] == CLASS) {
+                char[] ranges = charClasses[pc].getRanges();
+                for (int i = 0; i < ranges.length; i += 2) {
+                    lowerBounds.add(ranges[i]);
+                    if (ranges[i + 1] < Character.MAX_VALUE) {
+                        lowerBounds.add((char) (ranges[i + 1] + 1));
+                    }
+                }
+            }
+        }
+        bounds = new char[lowerBounds.size()];
+        int b = 0;
+        for (char bound : lowerBounds) {
+            bounds[b++] = bound;
+        }
+        asciiClasses = new int[128];
+        for (char c = 0; c < 128; ++c) {
+            asciiClasses[c] = classOf(c);
+        }
+
+        initial = new State(new int[0], true);
+    }
+
+    /**
+     * Get whether a pattern was compiled into the automaton.
+     *
+     * @param index the index of the pattern
+     * @return whether the pattern was compiled into the automaton
+     */
+    public boolean isCompiled(final int index) {
+        return starts[index] >= 0;
+    }
+
+    /**
+     * Emit an instruction.
+     *
+     * @param op the operation
+     * @param next the next instruction
+     * @param operand the second operand
+     * @return the instruction
+     */
+    private int emit(final int op, final int next, final int operand) {
+        if (size - patternBegin >= MAX_PATTERN_SIZE) {
+            throw new IllegalArgumentException("Pattern too large");
+        }
+        if (size == ops.length) {
+            int capacity = size * 2;
+            ops = Arrays.copyOf(ops, capacity);
+            out1 = Arrays.copyOf(out1, capacity);
+            out2 = Arrays.copyOf(out2, capacity);
+            charClasses = Arrays.copyOf(charClasses, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+        }
+        ops[size] = op;
+        out1[size] = next;
+        out2[size] = operand;
+        return size++;
+    }
+
+    /**
+     * Compile a node, in continuation passing style.
+     *
+     * @param node the node
+     * @param next the instruction to continue with after the node
+     * @return the first instruction of the node
+     */
+    private int compile(final ScannerRegexNode node, final int next) {
+        if (node instanceof ScannerRegexNode.Literal) {
+            ScannerRegexNode.Literal literal = (ScannerRegexNode.Literal) node;
+            ScannerRegexNode.CharClassBuilder builder = new ScannerRegexNode.CharClassBuilder().add(literal.getCharacter());
+            if (literal.isCaseInsensitive()) {
+                builder.foldCase();
+            }
+            int pc = emit(CLASS, next, 0);
+            charClasses[pc] = builder.build(false);
+            return pc;
+        }
+        if (node instanceof ScannerRegexNode.CharClass) {
+            int pc = emit(CLASS, next, 0);
+            charClasses[pc] = (ScannerRegexNode.CharClass) node;
+            return pc;
+        }
+        if (node instanceof ScannerRegexNode.Assertion) {
+            int pc = emit(ASSERT, next, 0);
+            kinds[pc] = ((ScannerRegexNode.Assertion) node).getKind();
+            return pc;
+        }
+        if (node instanceof ScannerRegexNode.Concat) {
+            List<ScannerRegexNode> nodes = ((ScannerRegexNode.Concat) node).getNodes();
+            int pc = next;
+            for (int i = nodes.size() - 1; i >= 0; --i) {
+                pc = compile(nodes.get(i), pc);
+            }
+            return pc;
+        }
+        if (node instanceof ScannerRegexNode.Alternation) {
+            List<ScannerRegexNode> alternatives = ((ScannerRegexNode.Alternation) node).getAlternatives();
+            int pc = compile(alternatives.get(alternatives.size() - 1), next);
+            for (int i = alternatives.size() - 2; i >= 0; --i) {
+                pc = emit(SPLIT, compile(alternatives.get(i), next), pc);
+            }
+            return pc;
+        }
+        return compileRepeat((ScannerRegexNode.Repeat) node, next);
+    }
+
+    /**
+     * Compile a repeat, by expanding the mandatory repetitions and nesting
+     * the optional ones.
+     *
+     * @param repeat the repeat
+     * @param next the instruction to continue with after the repeat
+     * @return the first instruction of the repeat
+     */
+    private int compileRepeat(final ScannerRegexNode.Repeat repeat, final int next) {
+        if ((repeat.getMax() == ScannerRegexNode.Repeat.UNBOUNDED || repeat.getMax() > 1) && isNullable(repeat.getNode())) {
+            // the backtracking engine ends a repeat on an empty iteration, which a Pike VM cannot mirror
+            throw new IllegalArgumentException("Repeat of a node that can match empty text");
+        }
+
+        int pc;
+        if (repeat.getMax() == ScannerRegexNode.Repeat.UNBOUNDED) {
+            int loop = emit(SPLIT, -1, -1);
+            int body = compile(repeat.getNode(), loop);
+            out1[loop] = repeat.isGreedy() ? body : next;
+            out2[loop] = repeat.isGreedy() ? next : body;
+            pc = loop;
+        } else {
+            pc = next;
+            for (int i = repeat.getMin(); i < repeat.getMax(); ++i) {
+                int body = compile(repeat.getNode(), pc);
+                pc = repeat.isGreedy() ? emit(SPLIT, body, next) : emit(SPLIT, next, body);
+            }
+        }
+        for (int i = 0; i < repeat.getMin(); ++i) {
+            pc = compile(repeat.getNode(), pc);
+        }
+        return pc;
+    }
+
+    /**
+     * Get whether a node can match empty text.
+     *
+     * @param node the node
+     * @return whether the node can match empty text
+     */
+    private static boolean isNullable(final ScannerRegexNode node) {
+        if (node instanceof ScannerRegexNode.Literal || node instanceof ScannerRegexNode.CharClass) {
+            return false;
+        }
+        if (node instanceof ScannerRegexNode.Concat) {
+            return ((ScannerRegexNode.Concat) node).getNodes().stream().allMatch(ScannerAutomaton::isNullable);
+        }
+        if (node instanceof ScannerRegexNode.Alternation) {
+            return ((ScannerRegexNode.Alternation) node).getAlternatives().stream().anyMatch(ScannerAutomaton::isNullable);
+        }
+        if (node instanceof ScannerRegexNode.Repeat) {
+            ScannerRegexNode.Repeat repeat = (ScannerRegexNode.Repeat) node;
+            return repeat.getMin() == 0 || isNullable(repeat.getNode());
+        }
+        return true;
+    }
+
+    /**
+     * Get the character equivalence class of a character.
+     *
+     * @param c the character
+     * @return the character equivalence class
+     */
+    private int classOf(final char c) {
+        int low = 0;
+        int high = bounds.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (bounds[mid] <= c) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Find the patterns that match some text.
+     *
+     * @param text the text
+     * @param matched the set to add the indexes of the matching patterns to
+     */
+    public void detect(final CharSequence text, final BitSet matched) {
+        int n = text.length();
+        if (n == 0) {
+            initial.addEndMatches(matched);
+            return;
+        }
+
+        State state = initial;
+        for (int i = 0; i < n; ++i) {
+            state.addMatches(matched);
+            char c = text.charAt(i);
+            int cls = c < 128 ? asciiClasses[c] : classOf(c);
+            State next = state.next[cls];
+            if (next == null) {
+                next = step(state, cls);
+            }
+            state = next;
+        }
+        state.addEndMatches(matched);
+    }
+
+    /**
+     * Compute a DFA transition, caching the target state unless the cache is
+     * full.
+     *
+     * @param state the state
+     * @param cls the character equivalence class
+     * @return the target state
+     */
+    private synchronized State step(final State state, final int cls) {
+        State next = state.next[cls];
+        if (next != null) {
+            return next;
+        }
+
+        char c = bounds[cls];
+        int[] targets = new int[state.consuming.length];
+        int n = 0;
+        for (int pc : state.consuming) {
+            if (charClasses[pc].contains(c)) {
+                targets[n++] = out1[pc];
+            }
+        }
+        targets = Arrays.stream(targets, 0, n).sorted().distinct().toArray();
+
+        Key key = new Key(targets);
+        next = states.get(key);
+        if (next == null) {
+            next = new State(targets, false);
+            if (states.size() < MAX_STATES) {
+                states.put(key, next);
+            }
+        }
+        if (states.size() < MAX_STATES) {
+            state.next[cls] = next;
+        }
+        return next;
+    }
+
+    /**
+     * Compute the epsilon closure of a set of instructions, for the DFA.
+     *
+     * @param pcs the instructions
+     * @param mode the closure mode
+     * @return the class and match instructions in the closure
+     */
+    private int[] closure(final int[] pcs, final int mode) {
+        BitSet visited = new BitSet(size);
+        Deque<Integer> stack = new ArrayDeque<>();
+        int[] closure = new int[16];
+        int n = 0;
+
+        for (int pc : pcs) {
+            stack.push(pc);
+        }
+        if (mode != MODE_START && mode != MODE_EMPTY) {
+            for (int pc : startPcs) {
+                stack.push(pc);
+            }
+        }
+
+        while (!stack.isEmpty()) {
+            int pc = stack.pop();
+            if (visited.get(pc)) {
+                continue;
+            }
+            visited.set(pc);
+            switch (ops[pc]) {
+            case SPLIT:
+                stack.push(out2[pc]);
+                stack.push(out1[pc]);
+                break;
+            case ASSERT:
+                if (isPossible(kinds[pc], mode)) {
+                    stack.push(out1[pc]);
+                }
+                break;
+            default:
+                if (n == closure.length) {
+                    closure = Arrays.copyOf(closure, n * 2);
+                }
+                closure[n++] = pc;
+                break;
+            }
+        }
+
+        return Arrays.copyOf(closure, n);
+    }
+
+    /**
+     * Get whether an assertion could hold at a position, for the DFA.
+     *
+     * @param kind the kind of assertion
+     * @param mode the closure mode for the position
+     * @return whether the assertion could hold
+     */
+    private static boolean isPossible(final ScannerRegexNode.Assertion.Kind kind, final int mode) {
+        switch (kind) {
+        case BEGIN_INPUT:
+            return mode == MODE_START || mode == MODE_EMPTY;
+        case BEGIN_LINE:
+            return mode == MODE_START || mode == MODE_MIDDLE;
+        case END_INPUT:
+            return mode == MODE_END || mode == MODE_EMPTY;
+        default:
+            return true;
+        }
+    }
+
+    /**
+     * Find the next match of a pattern in some text.
+     *
+     * @param index the index of the pattern
+     * @param text the text
+     * @param from the position to start searching from
+     * @param match the array to set the start and end of the match in
+     * @return whether a match was found
+     */
+    public boolean find(final int index, final CharSequence text, final int from, final int[] match) {
+        return find(index, text, from, text.length(), match);
+    }
+
+    /**
+     * Find the next match of a pattern in a region of some text. The match
+     * ends within the region, but assertions are evaluated against the whole
+     * text, as they are by {@link java.util.regex.Matcher} with transparent,
+     * non-anchoring bounds.
+     *
+     * @param index the index of the pattern
+     * @param text the text
+     * @param from the position to start searching from
+     * @param to the end of the region
+     * @param match the array to set the start and end of the match in
+     * @return whether a match was found
+     */
+    public boolean find(final int index, final CharSequence text, final int from, final int to, final int[] match) {
+        int begin = begins[index];
+        Threads current = new Threads(begin, ends[index] - begin);
+        Threads next = new Threads(begin, ends[index] - begin);
+        boolean matched = false;
+        int n = to;
+
+        for (int i = from; i <= n; ++i) {
+            if (!matched) {
+                addThread(current, starts[index], i, text, i);
+            }
+            if (current.count == 0) {
+                if (matched) {
+                    break;
+                }
+                current.clear();
+                continue;
+            }
+            next.clear();
+            for (int t = 0; t < current.count; ++t) {
+                int pc = current.pcs[t];
+                if (ops[pc] == MATCH) {
+                    matched = true;
+                    match[0] = current.starts[t];
+                    match[1] = i;
+                    break;
+                }
+                if (i < n && charClasses[pc].contains(text.charAt(i))) {
+                    addThread(next, out1[pc], current.starts[t], text, i + 1);
+                }
+            }
+            Threads swap = current;
+            current = next;
+            next = swap;
+        }
+
+        return matched;
+    }
+
+    /**
+     * Add a thread and its epsilon closure to a thread list, in priority
+     * order.
+     *
+     * @param threads the thread list
+     * @param pc the instruction of the thread
+     * @param start the start position of the thread
+     * @param text the text
+     * @param i the position in the text
+     */
+    private void addThread(final Threads threads, final int pc, final int start, final CharSequence text, final int i) {
+        Deque<Integer> stack = threads.stack;
+        stack.push(pc);
+        while (!stack.isEmpty()) {
+            int p = stack.pop();
+            if (!threads.visit(p)) {
+                continue;
+            }
+            switch (ops[p]) {
+            case SPLIT:
+                stack.push(out2[p]);
+                stack.push(out1[p]);
+                break;
+            case ASSERT:
+                if (holds(kinds[p], text, i)) {
+                    stack.push(out1[p]);
+                }
+                break;
+            default:
+                threads.add(p, start);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Get whether an assertion holds at a position, with the same semantics
+     * as {@link java.util.regex.Pattern}.
+     *
+     * @param kind the kind of assertion
+     * @param text the text
+     * @param i the position in the text
+     * @return whether the assertion holds
+     */
+    private static boolean holds(final ScannerRegexNode.Assertion.Kind kind, final CharSequence text, final int i) {
+        int n = text.length();
+        switch (kind) {
+        case BEGIN_INPUT:
+            return i == 0;
+        case BEGIN_LINE:
+            if (i == n) {
+                return false;
+            }
+            return i == 0 || isLineTerminator(text.charAt(i - 1)) && !(text.charAt(i - 1) == '\r' && text.charAt(i) == '\n');
+        case END_INPUT:
+            return i == n;
+        case END_INPUT_OR_TERMINATOR:
+            if (i == n) {
+                return true;
+            }
+            if (i == n - 2) {
+                return text.charAt(i) == '\r' && text.charAt(i + 1) == '\n';
+            }
+            return i == n - 1 && isLineTerminator(text.charAt(i)) && !(text.charAt(i) == '\n' && i > 0 && text.charAt(i - 1) == '\r');
+        case END_LINE:
+            if (i == n) {
+                return true;
+            }
+            return isLineTerminator(text.charAt(i)) && !(text.charAt(i) == '\n' && i > 0 && text.charAt(i - 1) == '\r');
+        case WORD_BOUNDARY:
+            return isWord(text, i - 1) != isWord(text, i);
+        default:
+            return isWord(text, i - 1) == isWord(text, i);
+        }
+    }
+
+    /**
+     * Get whether a character is a line terminator.
+     *
+     * @param c the character
+     * @return whether the character is a line terminator
+     */
+    private static boolean isLineTerminator(final char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    /**
+     * Get whether the character at a position is a word character.
+     *
+     * @param text the text
+     * @param i the position, which may be outside the text
+     * @return whether the character at the position is a word character
+     */
+    private static boolean isWord(final CharSequence text, final int i) {
+        if (i < 0 || i >= text.length()) {
+            return false;
+        }
+        char c = text.charAt(i);
+        return c == '_' || Character.isLetterOrDigit(c);
+    }
+
+    /**
+     * This class describes a DFA state. The fields are final so that states
+     * can be safely published through racy reads of the transitions.
+     */
+    private final class State {
+        /**
+         * The class instructions in the closure of the state.
+         */
+        private final int[] consuming;
+
+        /**
+         * The indexes of the patterns that match in the state.
+         */
+        private final int[] matches;
+
+        /**
+         * The indexes of the patterns that match if the state is at the end
+         * of a line.
+         */
+        private final int[] endMatches;
+
+        /**
+         * The transitions, indexed by character equivalence class.
+         */
+        private final State[] next;
+
+        /**
+         * Construct an instance of a DFA state.
+         *
+         * @param pcs the instructions reached by the last transition
+         * @param start whether the state is the initial state
+         */
+        private State(final int[] pcs, final boolean start) {
+            int[] pcsOrStarts = start ? startPcs : pcs;
+            int[] closure = closure(pcsOrStarts, start ? MODE_START : MODE_MIDDLE);
+            consuming = Arrays.stream(closure).filter(pc -> ops[pc] == CLASS).toArray();
+            matches = patterns(closure);
+            endMatches = patterns(closure(pcsOrStarts, start ? MODE_EMPTY : MODE_END));
+            next = new State[bounds.length];
+        }
+
+        /**
+         * Get the indexes of the patterns of the match instructions in a
+         * closure.
+         *
+         * @param closure the closure
+         * @return the indexes of the patterns
+         */
+        private int[] patterns(final int[] closure) {
+            return Arrays.stream(closure).filter(pc -> ops[pc] == MATCH).map(pc -> out2[pc]).toArray();
+        }
+
+        /**
+         * Add the patterns that match in the state.
+         *
+         * @param matched the set to add the indexes of the patterns to
+         */
+        private void addMatches(final BitSet matched) {
+            for (int pattern : matches) {
+                matched.set(pattern);
+            }
+        }
+
+        /**
+         * Add the patterns that match if the state is at the end of a line.
+         *
+         * @param matched the set to add the indexes of the patterns to
+         */
+        private void addEndMatches(final BitSet matched) {
+            for (int pattern : endMatches) {
+                matched.set(pattern);
+            }
+        }
+    }
+
+    /**
+     * This class describes the key of a DFA state.
+     */
+    private static final class Key {
+        /**
+         * The sorted instructions reached by the last transition.
+         */
+        private final int[] pcs;
+
+        /**
+         * Construct an instance of the key of a DFA state.
+         *
+         * @param pcs the sorted instructions reached by the last transition
+         */
+        private Key(final int[] pcs) {
+            this.pcs = pcs;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof Key && Arrays.equals(pcs, ((Key) obj).pcs);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(pcs);
+        }
+    }
+
+    /**
+     * This class describes a Pike VM thread list, with a sparse set of the
+     * visited instructions of a single pattern.
+     */
+    private static final class Threads {
+        /**
+         * The first instruction of the pattern.
+         */
+        private final int begin;
+
+        /**
+         * The sparse index of the visited instructions.
+         */
+        private final int[] sparse;
+
+        /**
+         * The dense visited instructions.
+         */
+        private final int[] dense;
+
+        /**
+         * The number of visited instructions.
+         */
+        private int visited;
+
+        /**
+         * The instructions of the threads, in priority order.
+         */
+        private final int[] pcs;
+
+        /**
+         * The start positions of the threads.
+         */
+        private final int[] starts;
+
+        /**
+         * The number of threads.
+         */
+        private int count;
+
+        /**
+         * The stack used to compute the epsilon closure.
+         */
+        private final Deque<Integer> stack = new ArrayDeque<>();
+
+        /**
+         * Construct an instance of a thread list.
+         *
+         * @param begin the first instruction of the pattern
+         * @param size the number of instructions of the pattern
+         */
+        private Threads(final int begin, final int size) {
+            this.begin = begin;
+            sparse = new int[size];
+            dense = new int[size];
+            pcs = new int[size];
+            starts = new int[size];
+        }
+
+        /**
+         * Mark an instruction as visited.
+         *
+         * @param pc the instruction
+         * @return false if the instruction was already visited
+         */
+        private boolean visit(final int pc) {
+            int i = pc - begin;
+            int s = sparse[i];
+            if (s < visited && dense[s] == i) {
+                return false;
+            }
+            sparse[i] = visited;
+            dense[visited++] = i;
+            return true;
+        }
+
+        /**
+         * Add a thread.
+         *
+         * @param pc the instruction of the thread
+         * @param start the start position of the thread
+         */
+        private void add(final int pc, final int start) {
+            pcs[count] = pc;
+            starts[count++] = start;
+        }
+
+        /**
+         * Clear the thread list.
+         */
+        private void clear() {
+            visited = 0;
+            count = 0;
+        }
+    }
+}
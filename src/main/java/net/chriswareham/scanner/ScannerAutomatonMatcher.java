@@ -0,0 +1,106 @@
+package net.chriswareham.scanner;
+
+import java.io.File;
+import java.nio.CharBuffer;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * This class implements a scanner matcher that compiles the patterns into a
+ * single combined automaton. Patterns that the automaton cannot compile fall
+ * back to {@link java.util.regex.Pattern}, filtered by the prefilter and
+ * their static analysis and guarded against catastrophic backtracking.
+ * Detectors of high entropy strings are run directly.
+ */
+public class ScannerAutomatonMatcher implements ScannerMatcher {
+    /**
+     * The scanner context.
+     */
+    private final ScannerContext context;
+
+    /**
+     * The combined automaton.
+     */
+    private final ScannerAutomaton automaton;
+
+    /**
+     * Construct an instance of a scanner matcher.
+     *
+     * @param context the scanner context
+     */
+    public ScannerAutomatonMatcher(final ScannerContext context) {
+        this.context = context;
+        this.automaton = context.getPatternSet().getAutomaton();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ScannerFileMatcher forFile(final File file, final BitSet active, final List<ScannerWarning> warnings) {
+        ScannerFileSuppressions suppressions = context.getSuppressions(file);
+        List<ScannerPattern> patterns = context.getPatterns();
+        ScannerPrefilter prefilter = context.getPrefilter();
+        BitSet candidates = new BitSet(patterns.size() * 2);
+        boolean masked = context.getPatternSet().hasFirstChars();
+        ScannerCharMask lineChars = new ScannerCharMask();
+        BitSet detected = new BitSet(patterns.size());
+        int[] match = new int[2];
+        ScannerMatchGuard guard = context.getGuard();
+        ScannerBudgetedSequence budgeted = guard.newSequence();
+        int[] histogram = ScannerEntropyDetector.newHistogram();
+        ScannerStatistics.Recorder recorder = context.getStatistics() != null ? context.getStatistics().recorder() : null;
+
+        return (line, start, end, lineNumber, matches) -> {
+            if (recorder != null) {
+                recorder.line();
+            }
+
+            CharSequence region = start == 0 && end == line.length() ? line : CharBuffer.wrap(line, start, end).slice();
+
+            detected.clear();
+            automaton.detect(region, detected);
+
+            if (!prefilter.isEmpty()) {
+                candidates.clear();
+                prefilter.match(region, candidates);
+            }
+
+            if (masked) {
+                lineChars.reset(region);
+            }
+
+            for (int i = 0; i < patterns.size(); ++i) {
+                ScannerPattern pattern = patterns.get(i);
+
+                if (!active.get(i) || suppressions.isSuppressed(i, lineNumber)) {
+                    continue;
+                }
+
+                boolean compiled = automaton.isCompiled(i);
+                if (compiled ? !detected.get(i) || !prefilter.hasKeyword(i, candidates) : !prefilter.isCandidate(i, candidates) || !pattern.getAnalysis().isPossible(region, lineChars) || guard.isDisabled(i)) {
+                    continue;
+                }
+
+                long time = recorder != null ? recorder.start() : 0L;
+                int count = matches.size();
+
+                if (compiled) {
+                    int from = start;
+                    while (from <= end && automaton.find(i, line, from, end, match)) {
+                        matches.add(new ScannerMatch(i, lineNumber, match[0]));
+                        from = match[1] == match[0] ? match[1] + 1 : match[1];
+                    }
+                } else if (pattern.getDetector() != null) {
+                    pattern.getDetector().find(i, line, start, end, lineNumber, matches, histogram);
+                } else if (!ScannerRegexMatcher.find(pattern, line, start, end, lineNumber, matches, budgeted)) {
+                    guard.timeout(pattern, i, file, lineNumber, warnings);
+                }
+
+                if (recorder != null) {
+                    recorder.stop(i, time, matches.size() - count);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,116 @@
+package net.chriswareham.scanner;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+/**
+ * This class provides a cheap check of whether a file is binary, by sniffing
+ * the start of it. A file is binary if the start contains a NUL byte, for
+ * encodings where NUL is a single byte, or if more than a tenth of the bytes
+ * are not valid in the encoding. A few invalid bytes are tolerated so that
+ * text files with a stray character in another encoding are still scanned.
+ */
+public final class ScannerBinaryDetector {
+    /**
+     * The number of bytes to sniff at the start of a file.
+     */
+    private static final int SNIFF_LENGTH = 8192;
+
+    /**
+     * The reciprocal of the fraction of invalid bytes above which a file is
+     * binary.
+     */
+    private static final int INVALID_RATIO = 10;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private ScannerBinaryDetector() {
+        // prevent instantiation
+    }
+
+    /**
+     * Check whether a file is binary.
+     *
+     * @param file the file
+     * @param charset the encoding that the file should be in
+     * @return whether the file is binary
+     * @throws IOException if an error occurs
+     */
+    public static boolean isBinary(final File file, final Charset charset) throws IOException {
+        byte[] bytes;
+        try (InputStream input = new FileInputStream(file)) {
+            bytes = input.readNBytes(SNIFF_LENGTH);
+        }
+        return isBinary(bytes, charset);
+    }
+
+    /**
+     * Check whether content that has been read into memory is binary, by
+     * sniffing the start of it.
+     *
+     * @param content the content
+     * @param charset the encoding that the content should be in
+     * @return whether the content is binary
+     */
+    public static boolean isBinary(final byte[] content, final Charset charset) {
+        byte[] bytes = content.length > SNIFF_LENGTH ? Arrays.copyOf(content, SNIFF_LENGTH) : content;
+
+        if (hasSingleByteNul(charset)) {
+            for (byte b : bytes) {
+                if (b == 0) {
+                    return true;
+                }
+            }
+        }
+
+        return countInvalidBytes(bytes, charset) * INVALID_RATIO > bytes.length;
+    }
+
+    /**
+     * Get whether an encoding encodes NUL as a single byte, so that a NUL byte
+     * does not occur in text.
+     *
+     * @param charset the encoding
+     * @return whether the encoding encodes NUL as a single byte
+     */
+    private static boolean hasSingleByteNul(final Charset charset) {
+        return charset.canEncode() && "\0".getBytes(charset).length == 1;
+    }
+
+    /**
+     * Count the bytes that are not valid in an encoding. A multibyte sequence
+     * cut off at the end of the bytes is not counted.
+     *
+     * @param bytes the bytes
+     * @param charset the encoding
+     * @return the number of invalid bytes
+     */
+    private static int countInvalidBytes(final byte[] bytes, final Charset charset) {
+        CharsetDecoder decoder = charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        CharBuffer out = CharBuffer.allocate(bytes.length);
+        int invalid = 0;
+        while (in.hasRemaining()) {
+            CoderResult result = decoder.decode(in, out, false);
+            if (result.isError()) {
+                invalid += result.length();
+                in.position(in.position() + result.length());
+            } else {
+                break;
+            }
+        }
+        return invalid;
+    }
+}
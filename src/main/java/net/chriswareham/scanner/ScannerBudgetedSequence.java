@@ -0,0 +1,116 @@
+package net.chriswareham.scanner;
+
+/**
+ * This class provides a reusable character sequence that wraps another and
+ * counts the characters read from it, throwing an unchecked exception once a
+ * budget is exceeded. A regular expression that backtracks catastrophically
+ * reads the same characters over and over, so this bounds the work that
+ * {@link java.util.regex.Matcher#find()} can do on a line.
+ */
+public class ScannerBudgetedSequence implements CharSequence {
+    /**
+     * The shared exception thrown when the budget is exceeded, which has no
+     * stack trace as it is only used for control flow.
+     */
+    private static final BudgetExceededException BUDGET_EXCEEDED = new BudgetExceededException();
+
+    /**
+     * The budget of characters that may be read.
+     */
+    private final long budget;
+
+    /**
+     * The wrapped character sequence.
+     */
+    private CharSequence sequence;
+
+    /**
+     * The characters that may still be read before the budget is exceeded.
+     */
+    private long remaining;
+
+    /**
+     * Construct an instance of a budgeted character sequence.
+     *
+     * @param budget the budget of characters that may be read
+     */
+    public ScannerBudgetedSequence(final long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Wrap a character sequence, resetting the budget.
+     *
+     * @param wrapped the character sequence to wrap
+     * @return this character sequence
+     */
+    public ScannerBudgetedSequence reset(final CharSequence wrapped) {
+        this.sequence = wrapped;
+        this.remaining = budget;
+        return this;
+    }
+
+    /**
+     * Get the budget of characters that may be read.
+     *
+     * @return the budget of characters that may be read
+     */
+    public long getBudget() {
+        return budget;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int length() {
+        return sequence.length();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws BudgetExceededException if the budget is exceeded
+     */
+    @Override
+    public char charAt(final int index) {
+        if (--remaining < 0) {
+            throw BUDGET_EXCEEDED;
+        }
+        return sequence.charAt(index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+        return sequence.subSequence(start, end);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return sequence.toString();
+    }
+
+    /**
+     * This exception is thrown when the budget of a character sequence is
+     * exceeded.
+     */
+    public static final class BudgetExceededException extends RuntimeException {
+        /**
+         * The serial version UID.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Construct an instance of the exception, without a stack trace.
+         */
+        private BudgetExceededException() {
+            super("Budget exceeded", null, false, false);
+        }
+    }
+}
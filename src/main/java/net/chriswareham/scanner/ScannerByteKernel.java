@@ -0,0 +1,48 @@
+package net.chriswareham.scanner;
+
+/**
+ * This interface is implemented by byte kernels, which search ranges of
+ * bytes for the line terminators, bytes that are not ASCII and the first
+ * bytes of the literals of the prefilter. Implementations must be thread
+ * safe.
+ */
+public interface ScannerByteKernel {
+    /**
+     * Get the name of the kernel, for logging.
+     *
+     * @return the name of the kernel
+     */
+    String getName();
+
+    /**
+     * Find the first line terminator in a range of bytes, which is a line
+     * feed or a carriage return.
+     *
+     * @param bytes the bytes
+     * @param from the offset of the start of the range
+     * @param to the offset of the end of the range
+     * @return the offset of the first line terminator, or -1 if there is none
+     */
+    int indexOfLineTerminator(byte[] bytes, int from, int to);
+
+    /**
+     * Get whether a range of bytes is all ASCII.
+     *
+     * @param bytes the bytes
+     * @param from the offset of the start of the range
+     * @param to the offset of the end of the range
+     * @return whether the range is all ASCII
+     */
+    boolean isAscii(byte[] bytes, int from, int to);
+
+    /**
+     * Get whether a range of bytes contains any member of a set.
+     *
+     * @param bytes the bytes
+     * @param from the offset of the start of the range
+     * @param to the offset of the end of the range
+     * @param set the set of bytes
+     * @return whether the range contains any member of the set
+     */
+    boolean containsAny(byte[] bytes, int from, int to, ScannerByteSet set);
+}
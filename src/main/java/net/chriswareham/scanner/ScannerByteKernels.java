@@ -0,0 +1,70 @@
+package net.chriswareham.scanner;
+
+/**
+ * This class selects the byte kernel to scan with. The vector kernel is only
+ * used if the {@code jdk.incubator.vector} module has been added to the JVM,
+ * for example with {@code MAVEN_OPTS="--add-modules jdk.incubator.vector"},
+ * and the hardware has wide enough vectors. Otherwise the scalar kernel is
+ * used.
+ */
+public final class ScannerByteKernels {
+    /**
+     * The name of the module of the vector API.
+     */
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    /**
+     * The name of the class of the vector kernel, which is loaded by name so
+     * that it is never loaded without the module of the vector API.
+     */
+    private static final String VECTOR_KERNEL = "net.chriswareham.scanner.ScannerVectorByteKernel";
+
+    /**
+     * The vector kernel, or the scalar kernel if the vector kernel is not
+     * available.
+     */
+    private static final ScannerByteKernel PREFERRED = loadVectorKernel();
+
+    /**
+     * Prevent instantiation.
+     */
+    private ScannerByteKernels() {
+    }
+
+    /**
+     * Get the byte kernel to scan with.
+     *
+     * @param vectorized whether to use the vector kernel if it is available
+     * @return the vector kernel if it is requested and available, otherwise
+     * the scalar kernel
+     */
+    public static ScannerByteKernel get(final boolean vectorized) {
+        return vectorized ? PREFERRED : ScannerScalarByteKernel.INSTANCE;
+    }
+
+    /**
+     * Get whether the vector kernel is available.
+     *
+     * @return whether the vector kernel is available
+     */
+    public static boolean isVectorAvailable() {
+        return PREFERRED != ScannerScalarByteKernel.INSTANCE;
+    }
+
+    /**
+     * Load the vector kernel.
+     *
+     * @return the vector kernel, or the scalar kernel if the module of the
+     * vector API is not present or the vector kernel cannot be created
+     */
+    private static ScannerByteKernel loadVectorKernel() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return ScannerScalarByteKernel.INSTANCE;
+        }
+        try {
+            return (ScannerByteKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | UnsupportedOperationException exception) {
+            return ScannerScalarByteKernel.INSTANCE;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package net.chriswareham.scanner;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class provides a reusable character sequence view over a range of
+ * bytes in a buffer, where each byte is a character. This is only valid for
+ * text that is ASCII, or that is in the ISO-8859-1 encoding.
+ */
+public class ScannerByteSequence implements CharSequence {
+    /**
+     * The buffer.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The offset of the range in the buffer.
+     */
+    private int offset;
+
+    /**
+     * The length of the range.
+     */
+    private int length;
+
+    /**
+     * Construct an instance of a character sequence view over a buffer.
+     *
+     * @param buffer the buffer
+     */
+    public ScannerByteSequence(final ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Set the range of bytes to view.
+     *
+     * @param offset the offset of the range in the buffer
+     * @param length the length of the range
+     * @return this character sequence
+     */
+    public ScannerByteSequence reset(final int offset, final int length) {
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int length() {
+        return length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public char charAt(final int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return (char) (buffer.get(offset + index) & 0xFF);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+        if (start < 0 || start > end || end > length) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+        }
+        byte[] bytes = new byte[end - start];
+        buffer.get(offset + start, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return subSequence(0, length).toString();
+    }
+}
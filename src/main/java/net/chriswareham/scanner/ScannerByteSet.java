@@ -0,0 +1,107 @@
+package net.chriswareham.scanner;
+
+import java.util.Arrays;
+
+/**
+ * This class describes a set of byte values, for byte kernels to search for.
+ * Besides a bitmap for testing one byte at a time, the set is held as a pair
+ * of nibble tables, so that a vectorised kernel can test many bytes at once
+ * with two table lookups: the table for the low nibble of a byte has a bit
+ * set for the high nibble of each member with that low nibble, and the table
+ * for the high nibble has the bit for that high nibble. As only the eight
+ * high nibbles of ASCII have bits, the lookups are exact for sets of ASCII
+ * bytes, and bytes that are not ASCII are never members. The null byte is
+ * never a member either, so that lanes a kernel masks off as zero never
+ * match. The tables are repeated to the widest vector length, so they can be
+ * loaded as vectors of any size. This class is immutable.
+ */
+public final class ScannerByteSet {
+    /**
+     * The length of the nibble tables, which is the number of bytes in the
+     * widest vector.
+     */
+    public static final int TABLE_LENGTH = 64;
+
+    /**
+     * The bits for the members, indexed by the unsigned values of the bytes.
+     */
+    private final long[] bits = new long[4];
+
+    /**
+     * The table for the low nibbles of bytes.
+     */
+    private final byte[] lowNibbles = new byte[TABLE_LENGTH];
+
+    /**
+     * The table for the high nibbles of bytes.
+     */
+    private final byte[] highNibbles = new byte[TABLE_LENGTH];
+
+    /**
+     * Whether the set is empty.
+     */
+    private final boolean empty;
+
+    /**
+     * Construct an instance of a set of ASCII byte values.
+     *
+     * @param members the members, which must be ASCII and not null bytes
+     * @throws IllegalArgumentException if a member is not ASCII or is a null
+     * byte
+     */
+    public ScannerByteSet(final byte... members) {
+        for (byte member : members) {
+            if (member <= 0) {
+                throw new IllegalArgumentException("Invalid member " + (member & 0xFF));
+            }
+            bits[member >>> 6] |= 1L << member;
+            lowNibbles[member & 0x0F] |= (byte) (1 << (member >>> 4));
+        }
+        for (int h = 0; h < 8; ++h) {
+            highNibbles[h] = (byte) (1 << h);
+        }
+        for (int i = 16; i < TABLE_LENGTH; ++i) {
+            lowNibbles[i] = lowNibbles[i & 0x0F];
+            highNibbles[i] = highNibbles[i & 0x0F];
+        }
+        empty = Arrays.stream(bits).allMatch(word -> word == 0L);
+    }
+
+    /**
+     * Get whether a byte is a member of the set.
+     *
+     * @param b the byte
+     * @return whether the byte is a member of the set
+     */
+    public boolean contains(final byte b) {
+        return (bits[(b & 0xFF) >>> 6] & 1L << b) != 0L;
+    }
+
+    /**
+     * Get whether the set is empty.
+     *
+     * @return whether the set is empty
+     */
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * Get the table for the low nibbles of bytes, which must not be modified.
+     *
+     * @return the table for the low nibbles of bytes
+     */
+    public byte[] getLowNibbles() {
+        return lowNibbles;
+    }
+
+    /**
+     * Get the table for the high nibbles of bytes, which must not be
+     * modified.
+     *
+     * @return the table for the high nibbles of bytes
+     */
+    public byte[] getHighNibbles() {
+        return highNibbles;
+    }
+}
@@ -0,0 +1,430 @@
+package net.chriswareham.scanner;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * This class implements a persistent cache of the scanner matches and
+ * warnings for files. Each file is recorded with its size and last modified
+ * time, so that unchanged files can reuse their matches and warnings. A file
+ * whose last modified time has changed is hashed, and is still unchanged if
+ * the hash of its content is the cached one, so a file is never read a
+ * second time just to cache it. The matches for a file are held as packed
+ * triples of the pattern id, line and column of each match, rather than as
+ * match objects. The whole cache is keyed by a fingerprint of everything else
+ * that affects the matches, such as the patterns, suppressions and includes,
+ * and is discarded if the fingerprint changes. This class is thread safe.
+ */
+public class ScannerCache {
+    /**
+     * The magic number at the start of a cache file.
+     */
+    private static final int MAGIC = 0x5343414E;
+
+    /**
+     * The version of the cache file format.
+     */
+    private static final int VERSION = 3;
+
+    /**
+     * The digest algorithm for fingerprints and content hashes.
+     */
+    private static final String ALGORITHM = "SHA-256";
+
+    /**
+     * The hash of a file that has not been hashed.
+     */
+    private static final byte[] NO_HASH = new byte[0];
+
+    /**
+     * The minimum number of bytes of an entry in a cache file.
+     */
+    private static final int MIN_ENTRY_BYTES = 27;
+
+    /**
+     * The number of bytes of a match in a cache file.
+     */
+    private static final int MATCH_BYTES = 12;
+
+    /**
+     * The number of fields of a packed match.
+     */
+    private static final int MATCH_FIELDS = 3;
+
+    /**
+     * The minimum number of bytes of a warning in a cache file.
+     */
+    private static final int MIN_WARNING_BYTES = 6;
+
+    /**
+     * The cache file.
+     */
+    private final File file;
+
+    /**
+     * The fingerprint of everything that affects the matches.
+     */
+    private final byte[] fingerprint;
+
+    /**
+     * The entries loaded from the cache file, keyed by path.
+     */
+    private final Map<String, Entry> previous;
+
+    /**
+     * The entries for the files scanned in this run, keyed by path.
+     */
+    private final Map<String, Entry> current = new ConcurrentHashMap<>();
+
+    /**
+     * The hashes of files that were hashed in this run but had changed, so
+     * need not be hashed again when they are put in the cache, keyed by path.
+     */
+    private final Map<String, byte[]> hashes = new ConcurrentHashMap<>();
+
+    /**
+     * Construct an instance of a cache, loading the cache file if it exists
+     * and has the same fingerprint.
+     *
+     * @param file the cache file
+     * @param fingerprint the fingerprint of everything that affects the
+     * matches
+     */
+    public ScannerCache(final File file, final byte[] fingerprint) {
+        this.file = file;
+        this.fingerprint = fingerprint.clone();
+        this.previous = load();
+    }
+
+    /**
+     * Create a message digest for computing fingerprints.
+     *
+     * @return the message digest
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("Missing digest algorithm " + ALGORITHM, exception);
+        }
+    }
+
+    /**
+     * Load the entries from the cache file.
+     *
+     * @return the entries, which are empty if the cache file does not exist,
+     * cannot be read, is corrupt or has a different fingerprint
+     */
+    private Map<String, Entry> load() {
+        if (!file.isFile()) {
+            return Map.of();
+        }
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                return Map.of();
+            }
+            byte[] storedFingerprint = new byte[input.readUnsignedByte()];
+            input.readFully(storedFingerprint);
+            if (!Arrays.equals(fingerprint, storedFingerprint)) {
+                return Map.of();
+            }
+
+            long length = file.length();
+            int count = readCount(input, length, MIN_ENTRY_BYTES);
+            Map<String, Entry> entries = new HashMap<>(count * 2);
+            for (int i = 0; i < count; ++i) {
+                String path = input.readUTF();
+                long size = input.readLong();
+                long lastModified = input.readLong();
+                byte[] hash = new byte[input.readUnsignedByte()];
+                input.readFully(hash);
+                int matchCount = readCount(input, length, MATCH_BYTES);
+                int[] matches = new int[matchCount * MATCH_FIELDS];
+                for (int j = 0; j < matches.length; ++j) {
+                    matches[j] = input.readInt();
+                }
+                int warningCount = readCount(input, length, MIN_WARNING_BYTES);
+                List<ScannerWarning> warnings = new ArrayList<>(warningCount);
+                for (int j = 0; j < warningCount; ++j) {
+                    int line = input.readInt();
+                    String message = input.readUTF();
+                    warnings.add(new ScannerWarning(new File(path), line, message));
+                }
+                entries.put(path, new Entry(size, lastModified, hash, matches, Collections.unmodifiableList(warnings)));
+            }
+            return entries;
+        } catch (IOException exception) {
+            return Map.of();
+        }
+    }
+
+    /**
+     * Read a count from a cache file, checking that the cache file is large
+     * enough to hold that many items.
+     *
+     * @param input the input stream of the cache file
+     * @param length the length of the cache file
+     * @param itemBytes the minimum number of bytes of an item
+     * @return the count
+     * @throws IOException if an error occurs or the count is invalid
+     */
+    private static int readCount(final DataInputStream input, final long length, final int itemBytes) throws IOException {
+        int count = input.readInt();
+        if (count < 0 || (long) count * itemBytes > length) {
+            throw new IOException("Invalid count " + count);
+        }
+        return count;
+    }
+
+    /**
+     * Get the cached matches for a file, if the file is unchanged. A file is
+     * unchanged if it has the same size and last modified time, or failing
+     * that the same size and content hash.
+     *
+     * @param scannedFile the file
+     * @param size the size of the file
+     * @param lastModified the last modified time of the file
+     * @return the cached matches, or null if the file is not cached or has
+     * changed
+     * @throws IOException if an error occurs hashing the file
+     */
+    public List<ScannerMatch> get(final File scannedFile, final long size, final long lastModified) throws IOException {
+        String path = scannedFile.getPath();
+        Entry entry = previous.get(path);
+        if (entry == null || entry.size != size) {
+            return null;
+        }
+        if (entry.lastModified != lastModified) {
+            byte[] hash = hash(scannedFile);
+            if (!Arrays.equals(entry.hash, hash)) {
+                hashes.put(path, hash);
+                return null;
+            }
+            entry = new Entry(size, lastModified, hash, entry.matches, entry.warnings);
+        }
+        current.put(path, entry);
+        return unpack(entry.matches);
+    }
+
+    /**
+     * Get the cached warnings for a file, after its cached matches have been
+     * got.
+     *
+     * @param scannedFile the file
+     * @return the cached warnings, or an empty list if the file is not cached
+     */
+    public List<ScannerWarning> getWarnings(final File scannedFile) {
+        Entry entry = current.get(scannedFile.getPath());
+        return entry != null ? entry.warnings : List.of();
+    }
+
+    /**
+     * Put the matches and warnings for a scanned file in the cache. The file
+     * is not read again: it keeps the hash computed when it was got, if its
+     * last modified time had changed, and is otherwise left unhashed until
+     * its last modified time changes.
+     *
+     * @param scannedFile the file
+     * @param size the size of the file before it was scanned
+     * @param lastModified the last modified time of the file before it was
+     * scanned
+     * @param matches the matches
+     * @param warnings the warnings
+     */
+    public void put(final File scannedFile, final long size, final long lastModified, final List<ScannerMatch> matches, final List<ScannerWarning> warnings) {
+        byte[] hash = hashes.remove(scannedFile.getPath());
+        current.put(scannedFile.getPath(), new Entry(size, lastModified, hash != null ? hash : NO_HASH, pack(matches), Collections.unmodifiableList(warnings)));
+    }
+
+    /**
+     * Save the entries for the files scanned in this run to the cache file,
+     * keeping the loaded entries for files that were not scanned but are
+     * retained, such as the unchanged files that a scan of changed files
+     * would have scanned. The cache file is written to a temporary file that
+     * then replaces it, so a failed save never leaves a truncated cache file.
+     *
+     * @param retain whether to keep the loaded entry for a file that was not
+     * scanned
+     * @throws IOException if an error occurs
+     */
+    public void save(final Predicate<File> retain) throws IOException {
+        Map<String, Entry> entries = new HashMap<>(current);
+        for (Map.Entry<String, Entry> mapEntry : previous.entrySet()) {
+            if (!entries.containsKey(mapEntry.getKey()) && retain.test(new File(mapEntry.getKey()))) {
+                entries.put(mapEntry.getKey(), mapEntry.getValue());
+            }
+        }
+
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create directory " + dir);
+        }
+
+        File temp = File.createTempFile(file.getName(), ".tmp", dir);
+        try {
+            write(temp, entries);
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException exception) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    /**
+     * Write entries to a cache file.
+     *
+     * @param target the cache file
+     * @param entries the entries, keyed by path
+     * @throws IOException if an error occurs
+     */
+    private void write(final File target, final Map<String, Entry> entries) throws IOException {
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(target)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeByte(fingerprint.length);
+            output.write(fingerprint);
+            output.writeInt(entries.size());
+            for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+                Entry entry = mapEntry.getValue();
+                output.writeUTF(mapEntry.getKey());
+                output.writeLong(entry.size);
+                output.writeLong(entry.lastModified);
+                output.writeByte(entry.hash.length);
+                output.write(entry.hash);
+                output.writeInt(entry.matches.length / MATCH_FIELDS);
+                for (int field : entry.matches) {
+                    output.writeInt(field);
+                }
+                output.writeInt(entry.warnings.size());
+                for (ScannerWarning warning : entry.warnings) {
+                    output.writeInt(warning.getLine());
+                    output.writeUTF(warning.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Pack matches into triples of the pattern id, line and column of each
+     * match.
+     *
+     * @param matches the matches
+     * @return the packed matches
+     */
+    private static int[] pack(final List<ScannerMatch> matches) {
+        int[] packed = new int[matches.size() * MATCH_FIELDS];
+        int i = 0;
+        for (ScannerMatch match : matches) {
+            packed[i++] = match.getPattern();
+            packed[i++] = match.getLine();
+            packed[i++] = match.getColumn();
+        }
+        return packed;
+    }
+
+    /**
+     * Unpack matches from triples of the pattern id, line and column of each
+     * match.
+     *
+     * @param packed the packed matches
+     * @return the matches
+     */
+    private static List<ScannerMatch> unpack(final int[] packed) {
+        List<ScannerMatch> matches = new ArrayList<>(packed.length / MATCH_FIELDS);
+        for (int i = 0; i < packed.length; i += MATCH_FIELDS) {
+            matches.add(new ScannerMatch(packed[i], packed[i + 1], packed[i + 2]));
+        }
+        return matches;
+    }
+
+    /**
+     * Hash the content of a file.
+     *
+     * @param scannedFile the file
+     * @return the hash of the content of the file
+     * @throws IOException if an error occurs
+     */
+    private static byte[] hash(final File scannedFile) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream input = new DigestInputStream(new FileInputStream(scannedFile), digest)) {
+            byte[] buffer = new byte[8192];
+            while (input.read(buffer) >= 0) {
+                // the digest is updated as the stream is read
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+     * This class describes a cache entry for a file.
+     */
+    private static final class Entry {
+        /**
+         * The size of the file.
+         */
+        private final long size;
+
+        /**
+         * The last modified time of the file.
+         */
+        private final long lastModified;
+
+        /**
+         * The hash of the content of the file.
+         */
+        private final byte[] hash;
+
+        /**
+         * The matches in the file, packed as triples of the pattern id, line
+         * and column of each match.
+         */
+        private final int[] matches;
+
+        /**
+         * The warnings for the file.
+         */
+        private final List<ScannerWarning> warnings;
+
+        /**
+         * Construct an instance of a cache entry for a file.
+         *
+         * @param size the size of the file
+         * @param lastModified the last modified time of the file
+         * @param hash the hash of the content of the file
+         * @param matches the matches in the file, packed as triples
+         * @param warnings the warnings for the file
+         */
+        private Entry(final long size, final long lastModified, final byte[] hash, final int[] matches, final List<ScannerWarning> warnings) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+            this.matches = matches;
+            this.warnings = warnings;
+        }
+    }
+}
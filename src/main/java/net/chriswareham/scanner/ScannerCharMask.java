@@ -0,0 +1,91 @@
+package net.chriswareham.scanner;
+
+/**
+ * This class describes a set of characters as a mask, with a bit for each
+ * ASCII character and a single flag for all other characters. It is used to
+ * test cheaply whether some text contains any of the characters that a
+ * pattern can start with. A mask that is reset with text must only be used
+ * on the current thread.
+ */
+public final class ScannerCharMask {
+    /**
+     * The bits for the characters 0 to 63.
+     */
+    private long low;
+
+    /**
+     * The bits for the characters 64 to 127.
+     */
+    private long high;
+
+    /**
+     * Whether any character that is not ASCII is in the set.
+     */
+    private boolean other;
+
+    /**
+     * Construct an instance of an empty mask.
+     */
+    public ScannerCharMask() {
+        // empty until reset or built from a character class
+    }
+
+    /**
+     * Construct an instance of a mask of the characters of a character
+     * class.
+     *
+     * @param charClass the character class
+     */
+    public ScannerCharMask(final ScannerRegexNode.CharClass charClass) {
+        char[] ranges = charClass.getRanges();
+        for (int i = 0; i < ranges.length; i += 2) {
+            for (int c = ranges[i]; c <= Math.min(ranges[i + 1], 127); ++c) {
+                add((char) c);
+            }
+            if (ranges[i + 1] > 127) {
+                other = true;
+            }
+        }
+    }
+
+    /**
+     * Reset the mask to the characters that occur in some text.
+     *
+     * @param text the text
+     * @return the mask
+     */
+    public ScannerCharMask reset(final CharSequence text) {
+        low = 0L;
+        high = 0L;
+        other = false;
+        for (int i = 0, n = text.length(); i < n; ++i) {
+            add(text.charAt(i));
+        }
+        return this;
+    }
+
+    /**
+     * Get whether the mask has any character in common with another mask.
+     *
+     * @param mask the other mask
+     * @return whether the masks have any character in common
+     */
+    public boolean intersects(final ScannerCharMask mask) {
+        return (low & mask.low) != 0L || (high & mask.high) != 0L || other && mask.other;
+    }
+
+    /**
+     * Add a character to the mask.
+     *
+     * @param c the character
+     */
+    private void add(final char c) {
+        if (c < 64) {
+            low |= 1L << c;
+        } else if (c < 128) {
+            high |= 1L << (c - 64);
+        } else {
+            other = true;
+        }
+    }
+}
@@ -1,10 +1,16 @@
 package net.chriswareham.scanner;
 
 import java.io.File;
-import java.util.ArrayList;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 /**
  * This class describes the context for a scanner.
@@ -21,47 +27,125 @@ public class ScannerContext {
     private final ScannerOutputFormat outputFormat;
 
     /**
-     * The includes for files to scan.
+     * The matching engine.
      */
-    private final List<String> includes;
+    private final ScannerEngine engine;
 
     /**
-     * The scanner suppressions.
+     * The filter for the files to scan.
      */
-    private final Map<File, Set<String>> suppressions;
+    private final ScannerFileFilter fileFilter;
 
     /**
-     * The scanner patterns.
+     * The index of the scanner suppressions.
      */
-    private final List<ScannerPattern> patterns;
+    private final ScannerSuppressionIndex suppressions;
 
     /**
-     * The scanner matches.
+     * The compiled scanner patterns.
      */
-    private final List<ScannerMatches> matches;
+    private final ScannerPatternSet patternSet;
+
+    /**
+     * The routing table from the extensions of files to the scanner patterns
+     * that apply to them.
+     */
+    private final ScannerPatternRoutes routes;
+
+    /**
+     * The statistics for the scan, or null if they are not collected.
+     */
+    private final ScannerStatistics statistics;
+
+    /**
+     * The guard for the scanner patterns.
+     */
+    private final ScannerMatchGuard guard;
+
+    /**
+     * The modules of an aggregate scan, which are empty for a scan of a
+     * single module.
+     */
+    private final List<ScannerModule> modules;
+
+    /**
+     * The modules of an aggregate scan, keyed by their root directories.
+     */
+    private final Map<Path, ScannerModule> moduleRoots;
+
+    /**
+     * The matcher for the scanner patterns.
+     */
+    private final ScannerMatcher matcher;
+
+    /**
+     * The matcher for the scanner patterns against the whole content of
+     * files.
+     */
+    private final ScannerWholeFileMatcher wholeFileMatcher;
+
+    /**
+     * The scanner matches, which may be added to concurrently.
+     */
+    private final ScannerMatchStore matches;
+
+    /**
+     * The number of files with scanner matches, including those that were
+     * written out as they were scanned rather than kept.
+     */
+    private final AtomicInteger matchesCount;
+
+    /**
+     * The scanner warnings, which may be added to concurrently.
+     */
+    private final Queue<ScannerWarning> warnings;
 
     /**
      * Construct an instance of the context for a scanner.
      *
      * @param encoding the encoding to use when reading files
      * @param outputFormat the output format
-     * @param includes the includes for files to scan
-     * @param suppressions the scanner suppressions
-     * @param patterns the scanner patterns
+     * @param engine the matching engine
+     * @param fileFilter the filter for the files to scan
+     * @param suppressions the scanner suppressions, which are compiled into
+     * an index with the names of the suppressed patterns resolved to ids
+     * @param patternSet the compiled scanner patterns
+     * @param modules the modules of an aggregate scan, which are empty for a
+     * scan of a single module
+     * @param guard the guard for the scanner patterns
+     * @param statistics the statistics for the scan, or null if they are not
+     * collected
      */
     public ScannerContext(
         final String encoding,
         final ScannerOutputFormat outputFormat,
-        final List<String> includes,
-        final Map<File, Set<String>> suppressions,
-        final List<ScannerPattern> patterns
+        final ScannerEngine engine,
+        final ScannerFileFilter fileFilter,
+        final List<ScannerSuppression> suppressions,
+        final ScannerPatternSet patternSet,
+        final List<ScannerModule> modules,
+        final ScannerMatchGuard guard,
+        final ScannerStatistics statistics
     ) {
         this.encoding = encoding;
         this.outputFormat = outputFormat;
-        this.includes = includes;
-        this.suppressions = suppressions;
-        this.patterns = patterns;
-        this.matches = new ArrayList<>();
+        this.engine = engine;
+        this.fileFilter = fileFilter;
+        this.suppressions = new ScannerSuppressionIndex(suppressions, patternSet);
+        this.patternSet = patternSet;
+        this.routes = new ScannerPatternRoutes(patternSet.getPatterns());
+        this.modules = modules;
+        this.moduleRoots = new HashMap<>();
+        for (ScannerModule module : modules) {
+            moduleRoots.put(module.getRootDir().toPath().toAbsolutePath().normalize(), module);
+        }
+        this.guard = guard;
+        this.statistics = statistics;
+        this.matches = new ScannerMatchStore();
+        this.matchesCount = new AtomicInteger();
+        this.warnings = new ConcurrentLinkedQueue<>();
+        this.matcher = engine.createMatcher(this);
+        this.wholeFileMatcher = new ScannerWholeFileMatcher(this);
     }
 
     /**
@@ -83,21 +167,44 @@ public class ScannerContext {
     }
 
     /**
-     * Get the includes for files to scan.
+     * Get the matching engine.
+     *
+     * @return the matching engine
+     */
+    public ScannerEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Get the filter for the files to scan.
+     *
+     * @return the filter for the files to scan
+     */
+    public ScannerFileFilter getFileFilter() {
+        return fileFilter;
+    }
+
+    /**
+     * Get the scanner suppressions for a file, which are resolved once per
+     * file so that matching does not look up pattern names or paths.
      *
-     * @return the includes for files to scan
+     * @param file the file
+     * @return the scanner suppressions for the file
      */
-    public List<String> getIncludes() {
-        return includes;
+    public ScannerFileSuppressions getSuppressions(final File file) {
+        return suppressions.get(file);
     }
 
     /**
-     * Get the scanner suppressions.
+     * Get the ids of the scanner patterns that apply to a file, which are
+     * routed once per file by the extension of the file.
      *
-     * @return the scanner suppressions
+     * @param file the file
+     * @return the ids of the scanner patterns that apply to the file, which
+     * must not be modified
      */
-    public Map<File, Set<String>> getSuppressions() {
-        return suppressions;
+    public BitSet getActivePatterns(final File file) {
+        return routes.get(file);
     }
 
     /**
@@ -106,7 +213,95 @@ public class ScannerContext {
      * @return the scanner patterns
      */
     public List<ScannerPattern> getPatterns() {
-        return patterns;
+        return patternSet.getPatterns();
+    }
+
+    /**
+     * Get the compiled scanner patterns, with the structures derived from
+     * them for matching.
+     *
+     * @return the compiled scanner patterns
+     */
+    public ScannerPatternSet getPatternSet() {
+        return patternSet;
+    }
+
+    /**
+     * Get the modules of an aggregate scan.
+     *
+     * @return the modules of an aggregate scan, which are empty for a scan of
+     * a single module
+     */
+    public List<ScannerModule> getModules() {
+        return modules;
+    }
+
+    /**
+     * Get the module of an aggregate scan that a file belongs to, which is
+     * the module with the deepest root directory that contains the file.
+     *
+     * @param file the file
+     * @return the module that the file belongs to, or null if it belongs to
+     * none
+     */
+    public ScannerModule getModule(final File file) {
+        if (moduleRoots.isEmpty()) {
+            return null;
+        }
+        for (Path dir = file.toPath().toAbsolutePath().normalize().getParent(); dir != null; dir = dir.getParent()) {
+            ScannerModule module = moduleRoots.get(dir);
+            if (module != null) {
+                return module;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the guard for the scanner patterns.
+     *
+     * @return the guard for the scanner patterns
+     */
+    public ScannerMatchGuard getGuard() {
+        return guard;
+    }
+
+    /**
+     * Get the statistics for the scan.
+     *
+     * @return the statistics for the scan, or null if they are not collected
+     */
+    public ScannerStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Get the prefilter for the scanner patterns.
+     *
+     * @return the prefilter for the scanner patterns
+     */
+    public ScannerPrefilter getPrefilter() {
+        return patternSet.getPrefilter();
+    }
+
+    /**
+     * Get the matcher for the scanner patterns.
+     *
+     * @return the matcher for the scanner patterns
+     */
+    public ScannerMatcher getMatcher() {
+        return matcher;
+    }
+
+    /**
+     * Get the matcher for the scanner patterns against the whole content of
+     * files.
+     *
+     * @return the matcher for the scanner patterns against the whole content
+     * of files
+     */
+    public ScannerWholeFileMatcher getWholeFileMatcher() {
+        return wholeFileMatcher;
     }
 
     /**
@@ -115,25 +310,75 @@ public class ScannerContext {
      * @return whether the scanner matches is empty
      */
     public boolean isMatchesEmpty() {
-        return matches.isEmpty();
+        return matchesCount.get() == 0;
     }
 
     /**
-     * Get the scanner matches.
+     * Get the scanner matches, ordered by file so that the output does not
+     * depend on the order that files were scanned in. The scanner matches
+     * are views of a compact store of the matches.
      *
      * @return the scanner matches
      */
     public List<ScannerMatches> getMatches() {
-        return matches;
+        return matches.getMatches();
     }
 
     /**
-     * Add the scanner matches for a file.
+     * Add the scanner matches for a file. This method is thread safe.
      *
      * @param scannerMatches the scanner matches for a file
      */
     public void addMatches(final ScannerMatches scannerMatches) {
         matches.add(scannerMatches);
+        matchesCount.incrementAndGet();
+    }
+
+    /**
+     * Count a file whose scanner matches are written out as they are scanned,
+     * rather than kept. This method is thread safe.
+     */
+    public void countMatches() {
+        matchesCount.incrementAndGet();
+    }
+
+    /**
+     * Get whether the scanner warnings is empty.
+     *
+     * @return whether the scanner warnings is empty
+     */
+    public boolean isWarningsEmpty() {
+        return warnings.isEmpty();
+    }
+
+    /**
+     * Get whether there is no scanner output, as there are no matches or
+     * warnings and no statistics are collected.
+     *
+     * @return whether there is no scanner output
+     */
+    public boolean isOutputEmpty() {
+        return isMatchesEmpty() && isWarningsEmpty() && statistics == null;
+    }
+
+    /**
+     * Get the scanner warnings, ordered by file and line.
+     *
+     * @return the scanner warnings
+     */
+    public List<ScannerWarning> getWarnings() {
+        return warnings.stream()
+            .sorted(Comparator.comparing(ScannerWarning::getFile).thenComparingInt(ScannerWarning::getLine))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Add a scanner warning. This method is thread safe.
+     *
+     * @param warning the scanner warning
+     */
+    public void addWarning(final ScannerWarning warning) {
+        warnings.add(warning);
     }
 
     /**
@@ -143,6 +388,9 @@ public class ScannerContext {
      */
     @Override
     public String toString() {
-        return String.format("Scanned %d files with matches", matches.size());
+        if (warnings.isEmpty()) {
+            return String.format("Scanned %d files with matches", matchesCount.get());
+        }
+        return String.format("Scanned %d files with matches and %d warning%s", matchesCount.get(), warnings.size(), warnings.size() == 1 ? "" : "s");
     }
 }
@@ -0,0 +1,93 @@
+package net.chriswareham.scanner;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * This enumeration describes the valid scanner matching engines.
+ */
+public enum ScannerEngine {
+    /**
+     * The engine that runs each pattern with {@link java.util.regex.Pattern}.
+     */
+    REGEX("regex", ScannerRegexMatcher::new),
+    /**
+     * The engine that compiles the patterns into a single combined automaton.
+     */
+    AUTOMATON("automaton", ScannerAutomatonMatcher::new);
+
+    /**
+     * The map of mnemonics to enumeration values.
+     */
+    private static final Map<String, ScannerEngine> VALUES = new HashMap<>();
+
+    static {
+        for (ScannerEngine value : values()) {
+            VALUES.put(value.mnemonic, value);
+        }
+    }
+
+    /**
+     * Get whether a mnemonic is valid.
+     *
+     * @param mnemonic the mnemonic
+     * @return whether the mnemonic is valid
+     */
+    public static boolean isMnemonic(final String mnemonic) {
+        return VALUES.containsKey(mnemonic);
+    }
+
+    /**
+     * Get the enumeration value for a mnemonic.
+     *
+     * @param mnemonic the mnemonic
+     * @return the enumeration value for the mnemonic
+     */
+    public static ScannerEngine valueOfMnemonic(final String mnemonic) {
+        if (!VALUES.containsKey(mnemonic)) {
+            throw new IllegalArgumentException("Invalid mnemonic " + mnemonic);
+        }
+        return VALUES.get(mnemonic);
+    }
+
+    /**
+     * The mnemonic.
+     */
+    private final String mnemonic;
+
+    /**
+     * The factory for matchers.
+     */
+    private final Function<ScannerContext, ScannerMatcher> matcherFactory;
+
+    /**
+     * Construct an enumeration value.
+     *
+     * @param mnemonic the mnemonic
+     * @param matcherFactory the factory for matchers
+     */
+    ScannerEngine(final String mnemonic, final Function<ScannerContext, ScannerMatcher> matcherFactory) {
+        this.mnemonic = mnemonic;
+        this.matcherFactory = matcherFactory;
+    }
+
+    /**
+     * Get the mnemonic.
+     *
+     * @return the mnemonic
+     */
+    public String getMnemonic() {
+        return mnemonic;
+    }
+
+    /**
+     * Create a matcher for a scanner context.
+     *
+     * @param context the scanner context
+     * @return the matcher
+     */
+    public ScannerMatcher createMatcher(final ScannerContext context) {
+        return matcherFactory.apply(context);
+    }
+}
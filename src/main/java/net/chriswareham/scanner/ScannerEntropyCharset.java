@@ -0,0 +1,128 @@
+package net.chriswareham.scanner;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This enumeration describes the valid character sets of high entropy
+ * strings, with the default entropy threshold for each in bits per
+ * character.
+ */
+public enum ScannerEntropyCharset {
+    /**
+     * The base64 character set, without the padding character.
+     */
+    BASE64("base64", "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/", 4.5),
+    /**
+     * The hexadecimal character set, where letters match either case.
+     */
+    HEX("hex", "0123456789abcdef", 3.0);
+
+    /**
+     * The maximum number of symbols in a character set.
+     */
+    public static final int MAX_SYMBOLS = 64;
+
+    /**
+     * The map of mnemonics to enumeration values.
+     */
+    private static final Map<String, ScannerEntropyCharset> VALUES = new HashMap<>();
+
+    static {
+        for (ScannerEntropyCharset value : values()) {
+            VALUES.put(value.mnemonic, value);
+        }
+    }
+
+    /**
+     * Get whether a mnemonic is valid.
+     *
+     * @param mnemonic the mnemonic
+     * @return whether the mnemonic is valid
+     */
+    public static boolean isMnemonic(final String mnemonic) {
+        return VALUES.containsKey(mnemonic);
+    }
+
+    /**
+     * Get the enumeration value for a mnemonic.
+     *
+     * @param mnemonic the mnemonic
+     * @return the enumeration value for the mnemonic
+     */
+    public static ScannerEntropyCharset valueOfMnemonic(final String mnemonic) {
+        if (!VALUES.containsKey(mnemonic)) {
+            throw new IllegalArgumentException("Invalid mnemonic " + mnemonic);
+        }
+        return VALUES.get(mnemonic);
+    }
+
+    /**
+     * The mnemonic.
+     */
+    private final String mnemonic;
+
+    /**
+     * The symbol of each ASCII character, or -1 for characters that are not
+     * in the character set.
+     */
+    private final byte[] symbols;
+
+    /**
+     * The default entropy threshold in bits per character.
+     */
+    private final double defaultThreshold;
+
+    /**
+     * Construct an enumeration value.
+     *
+     * @param mnemonic the mnemonic
+     * @param characters the characters of the character set, in the order of
+     * their symbols
+     * @param defaultThreshold the default entropy threshold in bits per
+     * character
+     */
+    ScannerEntropyCharset(final String mnemonic, final String characters, final double defaultThreshold) {
+        this.mnemonic = mnemonic;
+        this.defaultThreshold = defaultThreshold;
+        this.symbols = new byte[128];
+        Arrays.fill(symbols, (byte) -1);
+        for (int i = 0; i < characters.length(); ++i) {
+            char c = characters.charAt(i);
+            symbols[c] = (byte) i;
+            if (Character.isLowerCase(c) && symbols[Character.toUpperCase(c)] < 0) {
+                symbols[Character.toUpperCase(c)] = (byte) i;
+            }
+        }
+    }
+
+    /**
+     * Get the mnemonic.
+     *
+     * @return the mnemonic
+     */
+    public String getMnemonic() {
+        return mnemonic;
+    }
+
+    /**
+     * Get the default entropy threshold.
+     *
+     * @return the default entropy threshold in bits per character
+     */
+    public double getDefaultThreshold() {
+        return defaultThreshold;
+    }
+
+    /**
+     * Get the symbol of a character.
+     *
+     * @param c the character
+     * @return the symbol of the character, or -1 if the character is not in
+     * the character set
+     */
+    public int symbolOf(final char c) {
+        return c < 128 ? symbols[c] : -1;
+    }
+}
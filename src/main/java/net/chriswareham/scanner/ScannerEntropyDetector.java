@@ -0,0 +1,168 @@
+package net.chriswareham.scanner;
+
+import java.util.List;
+
+/**
+ * This class implements a detector of high entropy strings, such as randomly
+ * generated keys and tokens that do not have a known format. A line is split
+ * in place into tokens, which are the longest runs of characters in a
+ * character set, and a token of at least a minimum length matches if its
+ * Shannon entropy is at least a threshold. The entropy is computed with a
+ * histogram of the symbols of the character set that is reused from token to
+ * token, so that no objects are allocated unless a token matches. This class
+ * is thread safe, as each thread passes its own histogram.
+ */
+public class ScannerEntropyDetector {
+    /**
+     * The natural logarithm of two, for converting entropy to bits.
+     */
+    private static final double LN_2 = Math.log(2.0);
+
+    /**
+     * The character set of the tokens.
+     */
+    private final ScannerEntropyCharset charset;
+
+    /**
+     * The minimum length of a token.
+     */
+    private final int minLength;
+
+    /**
+     * The entropy threshold in bits per character.
+     */
+    private final double threshold;
+
+    /**
+     * Construct an instance of a detector of high entropy strings.
+     *
+     * @param charset the character set of the tokens
+     * @param minLength the minimum length of a token
+     * @param threshold the entropy threshold in bits per character
+     */
+    public ScannerEntropyDetector(final ScannerEntropyCharset charset, final int minLength, final double threshold) {
+        this.charset = charset;
+        this.minLength = minLength;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Create a histogram for computing the entropy of tokens, which must only
+     * be used on the current thread.
+     *
+     * @return the histogram
+     */
+    public static int[] newHistogram() {
+        return new int[ScannerEntropyCharset.MAX_SYMBOLS];
+    }
+
+    /**
+     * Get the character set of the tokens.
+     *
+     * @return the character set of the tokens
+     */
+    public ScannerEntropyCharset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Get the minimum length of a token.
+     *
+     * @return the minimum length of a token
+     */
+    public int getMinLength() {
+        return minLength;
+    }
+
+    /**
+     * Get the entropy threshold.
+     *
+     * @return the entropy threshold in bits per character
+     */
+    public double getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Find the high entropy tokens in a line.
+     *
+     * @param pattern the id of the pattern
+     * @param line the line
+     * @param lineNumber the line number
+     * @param matches the list to add the matches to
+     * @param histogram the histogram, which is all zeros and is left all zeros
+     */
+    public void find(final int pattern, final CharSequence line, final int lineNumber, final List<ScannerMatch> matches, final int[] histogram) {
+        find(pattern, line, 0, line.length(), lineNumber, matches, histogram);
+    }
+
+    /**
+     * Find the high entropy tokens in a region of a line. A token that starts
+     * before the region is not found, and a token is cut off at the end of
+     * the region.
+     *
+     * @param pattern the id of the pattern
+     * @param line the line
+     * @param from the start of the region
+     * @param to the end of the region
+     * @param lineNumber the line number
+     * @param matches the list to add the matches to
+     * @param histogram the histogram, which is all zeros and is left all zeros
+     */
+    public void find(
+        final int pattern,
+        final CharSequence line,
+        final int from,
+        final int to,
+        final int lineNumber,
+        final List<ScannerMatch> matches,
+        final int[] histogram
+    ) {
+        int i = from;
+        while (i > 0 && i < to && charset.symbolOf(line.charAt(i - 1)) >= 0) {
+            ++i;
+        }
+        while (i < to) {
+            while (i < to && charset.symbolOf(line.charAt(i)) < 0) {
+                ++i;
+            }
+            int start = i;
+            while (i < to && charset.symbolOf(line.charAt(i)) >= 0) {
+                ++i;
+            }
+            if (i - start >= minLength && entropy(line, start, i, histogram) >= threshold) {
+                matches.add(new ScannerMatch(pattern, lineNumber, start));
+            }
+        }
+    }
+
+    /**
+     * Compute the Shannon entropy of a token, which is the base two logarithm
+     * of its length less the sum of each count multiplied by the base two
+     * logarithm of the count, divided by its length.
+     *
+     * @param line the line
+     * @param start the start of the token in the line
+     * @param end the end of the token in the line
+     * @param histogram the histogram, which is all zeros and is left all zeros
+     * @return the entropy of the token in bits per character
+     */
+    private double entropy(final CharSequence line, final int start, final int end, final int[] histogram) {
+        for (int i = start; i < end; ++i) {
+            ++histogram[charset.symbolOf(line.charAt(i))];
+        }
+
+        double sum = 0.0;
+        for (int i = start; i < end; ++i) {
+            int symbol = charset.symbolOf(line.charAt(i));
+            int count = histogram[symbol];
+            if (count != 0) {
+                sum += count * Math.log(count);
+                histogram[symbol] = 0;
+            }
+        }
+
+        int length = end - start;
+        return (Math.log(length) - sum / length) / LN_2;
+    }
+}
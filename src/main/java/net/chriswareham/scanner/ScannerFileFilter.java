@@ -0,0 +1,214 @@
+package net.chriswareham.scanner;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class implements a filter for the files to scan, compiled from
+ * includes and excludes. An include without glob characters, such as
+ * {@code .java}, matches file names that end with it, and is held in a
+ * suffix trie so that a file name is checked in a single pass. Any other
+ * include or exclude is a glob, which is matched against the file or
+ * directory name if it does not contain a slash, or against the path
+ * relative to the root directory if it does. This class is thread safe.
+ */
+public class ScannerFileFilter {
+    /**
+     * The characters that make an include or exclude a glob.
+     */
+    private static final String GLOB_CHARACTERS = "*?[{";
+
+    /**
+     * The suffix trie of the plain includes.
+     */
+    private final Node suffixes = new Node();
+
+    /**
+     * The glob includes matched against names.
+     */
+    private final List<PathMatcher> nameIncludes = new ArrayList<>();
+
+    /**
+     * The glob includes matched against relative paths.
+     */
+    private final List<PathMatcher> pathIncludes = new ArrayList<>();
+
+    /**
+     * The excludes matched against names.
+     */
+    private final List<PathMatcher> nameExcludes = new ArrayList<>();
+
+    /**
+     * The excludes matched against relative paths.
+     */
+    private final List<PathMatcher> pathExcludes = new ArrayList<>();
+
+    /**
+     * The suffix trie of the archive extensions.
+     */
+    private final Node archiveSuffixes = new Node();
+
+    /**
+     * Construct an instance of a filter for the files to scan.
+     *
+     * @param includes the includes for files to scan
+     * @param excludes the excludes for files and directories not to scan
+     */
+    public ScannerFileFilter(final List<String> includes, final List<String> excludes) {
+        this(includes, excludes, List.of());
+    }
+
+    /**
+     * Construct an instance of a filter for the files to scan, including the
+     * archives to scan the entries of.
+     *
+     * @param includes the includes for files to scan
+     * @param excludes the excludes for files and directories not to scan
+     * @param archives the extensions of archives to scan the entries of
+     */
+    public ScannerFileFilter(final List<String> includes, final List<String> excludes, final List<String> archives) {
+        for (String archive : archives) {
+            archiveSuffixes.add(archive);
+        }
+        for (String include : includes) {
+            if (isGlob(include)) {
+                (include.indexOf('/') < 0 ? nameIncludes : pathIncludes).add(glob(include));
+            } else {
+                suffixes.add(include);
+            }
+        }
+        for (String exclude : excludes) {
+            (exclude.indexOf('/') < 0 ? nameExcludes : pathExcludes).add(glob(exclude));
+        }
+    }
+
+    /**
+     * Get whether an include or exclude is a glob.
+     *
+     * @param pattern the include or exclude
+     * @return whether the include or exclude is a glob
+     */
+    private static boolean isGlob(final String pattern) {
+        return pattern.chars().anyMatch(c -> GLOB_CHARACTERS.indexOf(c) >= 0);
+    }
+
+    /**
+     * Compile a glob.
+     *
+     * @param pattern the glob
+     * @return the path matcher for the glob
+     */
+    private static PathMatcher glob(final String pattern) {
+        return FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+    }
+
+    /**
+     * Get whether a file is included and not excluded.
+     *
+     * @param relativePath the path of the file relative to the root directory
+     * @return whether the file should be scanned
+     */
+    public boolean isIncluded(final Path relativePath) {
+        Path name = relativePath.getFileName();
+        if (name == null) {
+            return false;
+        }
+        if (!suffixes.matches(name.toString())
+            && nameIncludes.stream().noneMatch(matcher -> matcher.matches(name))
+            && pathIncludes.stream().noneMatch(matcher -> matcher.matches(relativePath))) {
+            return false;
+        }
+        return !isExcluded(relativePath);
+    }
+
+    /**
+     * Get whether a file is an archive to scan the entries of, and is not
+     * excluded.
+     *
+     * @param relativePath the path of the file relative to the root directory
+     * @return whether the file is an archive to scan the entries of
+     */
+    public boolean isArchive(final Path relativePath) {
+        Path name = relativePath.getFileName();
+        return name != null && archiveSuffixes.matches(name.toString()) && !isExcluded(relativePath);
+    }
+
+    /**
+     * Get whether a file or directory is excluded.
+     *
+     * @param relativePath the path of the file or directory relative to the
+     * root directory
+     * @return whether the file or directory is excluded
+     */
+    public boolean isExcluded(final Path relativePath) {
+        Path name = relativePath.getFileName();
+        return name != null && nameExcludes.stream().anyMatch(matcher -> matcher.matches(name))
+            || pathExcludes.stream().anyMatch(matcher -> matcher.matches(relativePath));
+    }
+
+    /**
+     * Get whether any directory that a file is within is excluded, which
+     * would stop a walk of the root directory from reaching the file.
+     *
+     * @param relativePath the path of the file relative to the root directory
+     * @return whether any directory that the file is within is excluded
+     */
+    public boolean isWithinExcluded(final Path relativePath) {
+        for (Path dir = relativePath.getParent(); dir != null; dir = dir.getParent()) {
+            if (isExcluded(dir)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This class describes a node of a trie of reversed suffixes.
+     */
+    private static final class Node {
+        /**
+         * The child nodes, keyed by the preceding character.
+         */
+        private final Map<Character, Node> children = new HashMap<>();
+
+        /**
+         * Whether a suffix ends at this node.
+         */
+        private boolean terminal;
+
+        /**
+         * Add a suffix.
+         *
+         * @param suffix the suffix
+         */
+        private void add(final String suffix) {
+            Node node = this;
+            for (int i = suffix.length() - 1; i >= 0; --i) {
+                node = node.children.computeIfAbsent(suffix.charAt(i), c -> new Node());
+            }
+            node.terminal = true;
+        }
+
+        /**
+         * Get whether a name ends with any of the suffixes.
+         *
+         * @param name the name
+         * @return whether the name ends with any of the suffixes
+         */
+        private boolean matches(final String name) {
+            Node node = this;
+            for (int i = name.length() - 1; i >= 0 && !node.terminal; --i) {
+                node = node.children.get(name.charAt(i));
+                if (node == null) {
+                    return false;
+                }
+            }
+            return node.terminal;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package net.chriswareham.scanner;
+
+import java.util.List;
+
+/**
+ * This interface is implemented by matchers for the lines of a file.
+ * Implementations need not be thread safe.
+ */
+public interface ScannerFileMatcher {
+    /**
+     * Match the scanner patterns against a line, adding matches in pattern
+     * order and then in order of column.
+     *
+     * @param line the line
+     * @param lineNumber the line number
+     * @param matches the list to add the matches to
+     */
+    default void match(final CharSequence line, final int lineNumber, final List<ScannerMatch> matches) {
+        match(line, 0, line.length(), lineNumber, matches);
+    }
+
+    /**
+     * Match the scanner patterns against a region of a line, adding matches
+     * in pattern order and then in order of column. Matches start and end
+     * within the region, but anchors and word boundaries are evaluated
+     * against the whole line, and columns are relative to the start of the
+     * line.
+     *
+     * @param line the line
+     * @param start the start of the region
+     * @param end the end of the region
+     * @param lineNumber the line number
+     * @param matches the list to add the matches to
+     */
+    void match(CharSequence line, int start, int end, int lineNumber, List<ScannerMatch> matches);
+}
@@ -0,0 +1,217 @@
+package net.chriswareham.scanner;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * This class describes a line aligned segment of a large file, so that the
+ * segments of the file can be scanned concurrently. Each segment is memory
+ * mapped separately, so a file can be larger than a single mapping allows,
+ * and every segment but the last ends just after a line terminator, so no
+ * line, and therefore no match, is split between segments. The lines of a
+ * segment are counted before it is scanned, so that the line number of the
+ * first line of each segment can be found from the counts of the segments
+ * before it.
+ */
+public class ScannerFileSegment {
+    /**
+     * The size of the buffer to read with when finding the line terminators
+     * at the ends of segments.
+     */
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    /**
+     * The offset of the start of the segment in the file.
+     */
+    private final long start;
+
+    /**
+     * The mapped bytes of the segment.
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * Whether the segment is the last of the file.
+     */
+    private final boolean last;
+
+    /**
+     * The number of lines in the segment, or -1 if they have not been
+     * counted.
+     */
+    private int lineCount = -1;
+
+    /**
+     * The line number of the first line of the segment, or zero if the lines
+     * have not been numbered.
+     */
+    private int firstLine;
+
+    /**
+     * Construct an instance of a segment of a file.
+     *
+     * @param start the offset of the start of the segment in the file
+     * @param buffer the mapped bytes of the segment
+     * @param last whether the segment is the last of the file
+     */
+    private ScannerFileSegment(final long start, final MappedByteBuffer buffer, final boolean last) {
+        this.start = start;
+        this.buffer = buffer;
+        this.last = last;
+    }
+
+    /**
+     * Split a file into line aligned segments of about a target size, each
+     * of which ends just after the first line terminator at or beyond the
+     * target size. A line terminator is a line feed, a carriage return, or a
+     * carriage return followed by a line feed, which is never split.
+     *
+     * @param channel the channel of the file
+     * @param segmentSize the target size of a segment in bytes
+     * @return the segments of the file, or null if a segment would be too
+     * large to map, as a line of the file is too long
+     * @throws IOException if an error occurs
+     */
+    public static List<ScannerFileSegment> split(final FileChannel channel, final long segmentSize) throws IOException {
+        long size = channel.size();
+        List<ScannerFileSegment> segments = new ArrayList<>();
+        ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        long start = 0L;
+        while (start < size) {
+            long end = start + segmentSize < size ? findLineEnd(channel, start + segmentSize, size, readBuffer) : size;
+            if (end - start > Integer.MAX_VALUE) {
+                return null;
+            }
+            segments.add(new ScannerFileSegment(start, channel.map(FileChannel.MapMode.READ_ONLY, start, end - start), end == size));
+            start = end;
+        }
+        return segments;
+    }
+
+    /**
+     * Find the end of the line that contains an offset, just after its line
+     * terminator.
+     *
+     * @param channel the channel of the file
+     * @param offset the offset
+     * @param size the size of the file
+     * @param readBuffer the buffer to read with
+     * @return the offset just after the line terminator, or the size of the
+     * file if the line is not terminated
+     * @throws IOException if an error occurs
+     */
+    private static long findLineEnd(final FileChannel channel, final long offset, final long size, final ByteBuffer readBuffer) throws IOException {
+        long position = offset;
+        boolean carriageReturn = false;
+        while (position < size) {
+            readBuffer.clear();
+            int read = channel.read(readBuffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; ++i) {
+                byte b = readBuffer.get(i);
+                if (carriageReturn) {
+                    return b == '\n' ? position + i + 1 : position + i;
+                }
+                if (b == '\n') {
+                    return position + i + 1;
+                }
+                carriageReturn = b == '\r';
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Get the offset of the start of the segment in the file.
+     *
+     * @return the offset of the start of the segment in the file
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Get the mapped bytes of the segment.
+     *
+     * @return the mapped bytes of the segment
+     */
+    public MappedByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Count the lines of the segments of a file concurrently, and number the
+     * first line of each segment from the counts of the segments before it.
+     *
+     * @param segments the segments of the file, in order
+     * @return the number of lines in the file
+     */
+    public static int numberLines(final List<ScannerFileSegment> segments) {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(segments.size());
+        for (ScannerFileSegment segment : segments) {
+            tasks.add(ForkJoinTask.adapt(segment::countLines));
+        }
+        ForkJoinTask.invokeAll(tasks);
+
+        int lines = 0;
+        for (ScannerFileSegment segment : segments) {
+            segment.firstLine = lines + 1;
+            lines += segment.lineCount;
+        }
+        return lines;
+    }
+
+    /**
+     * Count the lines in the segment, as they are counted when the segment is
+     * scanned.
+     *
+     * @return the number of lines in the segment
+     */
+    public int countLines() {
+        int size = buffer.limit();
+        int n = 0;
+        for (int i = 0; i < size; ++i) {
+            byte b = buffer.get(i);
+            if (b == '\n' || b == '\r') {
+                if (b == '\r' && i + 1 < size && buffer.get(i + 1) == '\n') {
+                    ++i;
+                }
+                ++n;
+            }
+        }
+        if (last && size > 0 && buffer.get(size - 1) != '\n' && buffer.get(size - 1) != '\r') {
+            ++n;
+        }
+        lineCount = n;
+        return n;
+    }
+
+    /**
+     * Get the number of lines in the segment, once they have been counted.
+     *
+     * @return the number of lines in the segment, or -1 if they have not
+     * been counted
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Get the line number of the first line of the segment, once the lines
+     * of the segments of the file have been numbered.
+     *
+     * @return the line number of the first line of the segment, or zero if
+     * the lines have not been numbered
+     */
+    public int getFirstLine() {
+        return firstLine;
+    }
+}
@@ -0,0 +1,73 @@
+package net.chriswareham.scanner;
+
+import java.util.BitSet;
+
+/**
+ * This class describes the scanner suppressions for a file, resolved from
+ * the suppression index once per file. The patterns suppressed in the whole
+ * file are held in a bit set, and the ranges of lines that a pattern is
+ * suppressed in are held as a sorted list of disjoint intervals that is
+ * binary searched. This class is immutable.
+ */
+public class ScannerFileSuppressions {
+    /**
+     * The suppressions for a file without suppressions.
+     */
+    public static final ScannerFileSuppressions NONE = new ScannerFileSuppressions(new BitSet(), new int[0][]);
+
+    /**
+     * The ids of the patterns suppressed in the whole file.
+     */
+    private final BitSet patterns;
+
+    /**
+     * The suppressed ranges of lines, indexed by pattern id, as pairs of the
+     * first and last line of disjoint ranges in ascending order, or null for
+     * a pattern without suppressed ranges.
+     */
+    private final int[][] lines;
+
+    /**
+     * Construct an instance of the scanner suppressions for a file.
+     *
+     * @param patterns the ids of the patterns suppressed in the whole file
+     * @param lines the suppressed ranges of lines, indexed by pattern id, as
+     * pairs of the first and last line of disjoint ranges in ascending order,
+     * or null for a pattern without suppressed ranges
+     */
+    public ScannerFileSuppressions(final BitSet patterns, final int[][] lines) {
+        this.patterns = patterns;
+        this.lines = lines;
+    }
+
+    /**
+     * Get whether a pattern is suppressed on a line.
+     *
+     * @param pattern the id of the pattern
+     * @param line the line number
+     * @return whether the pattern is suppressed on the line
+     */
+    public boolean isSuppressed(final int pattern, final int line) {
+        if (patterns.get(pattern)) {
+            return true;
+        }
+        if (pattern >= lines.length || lines[pattern] == null) {
+            return false;
+        }
+
+        int[] ranges = lines[pattern];
+        int low = 0;
+        int high = ranges.length / 2 - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (line < ranges[mid * 2]) {
+                high = mid - 1;
+            } else if (line > ranges[mid * 2 + 1]) {
+                low = mid + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,73 @@
+package net.chriswareham.scanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * This class implements a walker for the files to scan under a root
+ * directory. Excluded directories are pruned before they are descended into,
+ * and the file attributes read by the walk are used rather than querying
+ * each file again.
+ */
+public class ScannerFileWalker {
+    /**
+     * The filter for the files to scan.
+     */
+    private final ScannerFileFilter filter;
+
+    /**
+     * Construct an instance of a walker for the files to scan.
+     *
+     * @param filter the filter for the files to scan
+     */
+    public ScannerFileWalker(final ScannerFileFilter filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Walk a root directory, following symbolic links.
+     *
+     * @param rootDir the root directory
+     * @return the files to scan
+     * @throws IOException if an error occurs
+     */
+    public List<File> walk(final File rootDir) throws IOException {
+        Path root = rootDir.toPath();
+        List<File> files = new ArrayList<>();
+
+        Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
+                return !dir.equals(root) && filter.isExcluded(root.relativize(dir)) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && (filter.isIncluded(root.relativize(file)) || filter.isArchive(root.relativize(file)))) {
+                    files.add(file.toFile());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(final Path file, final IOException exception) throws IOException {
+                if (exception instanceof FileSystemLoopException) {
+                    return FileVisitResult.CONTINUE;
+                }
+                throw exception;
+            }
+        });
+
+        return files;
+    }
+}
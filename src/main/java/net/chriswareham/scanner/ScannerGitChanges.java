@@ -0,0 +1,125 @@
+package net.chriswareham.scanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.eclipse.jgit.api.DiffCommand;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.StatusCommand;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+
+/**
+ * This class finds the files that have changed in a local git repository
+ * relative to a ref. Only the local repository is read, so no network access
+ * is needed.
+ */
+public final class ScannerGitChanges {
+    /**
+     * Prevent instantiation.
+     */
+    private ScannerGitChanges() {
+        // utility class
+    }
+
+    /**
+     * Find the files within some directories that have been added or modified
+     * in the working tree relative to a ref, including untracked files that
+     * are not ignored. The repository is only read once, limited to the
+     * directories, and the changed files are then partitioned by directory.
+     *
+     * @param dirs the directories, which must be within the same git working
+     * tree
+     * @param ref the ref to compare against, such as a branch, tag or commit
+     * @return the changed files that exist within each directory, keyed by
+     * the directory
+     * @throws IOException if the repository cannot be read or the ref cannot
+     * be resolved
+     */
+    public static Map<File, List<File>> list(final List<File> dirs, final String ref) throws IOException {
+        Map<File, List<File>> result = new LinkedHashMap<>();
+        if (dirs.isEmpty()) {
+            return result;
+        }
+
+        FileRepositoryBuilder builder = new FileRepositoryBuilder()
+            .readEnvironment()
+            .findGitDir(dirs.get(0).getAbsoluteFile())
+            .setMustExist(true);
+
+        if (builder.getGitDir() == null) {
+            throw new IOException("Directory " + dirs.get(0) + " is not within a git repository");
+        }
+
+        try (Repository repository = builder.build(); Git git = new Git(repository)) {
+            ObjectId treeId = repository.resolve(ref + "^{tree}");
+            if (treeId == null) {
+                throw new IOException("Cannot resolve git ref " + ref);
+            }
+
+            Path workTree = repository.getWorkTree().getAbsoluteFile().toPath().normalize();
+            List<Path> roots = new ArrayList<>();
+            List<String> filterPaths = new ArrayList<>();
+            for (File dir : dirs) {
+                Path root = dir.getAbsoluteFile().toPath().normalize();
+                if (!root.startsWith(workTree)) {
+                    throw new IOException("Directory " + dir + " is not within the git repository " + workTree);
+                }
+                roots.add(root);
+                result.put(dir, new ArrayList<>());
+                String filterPath = workTree.relativize(root).toString().replace(File.separatorChar, '/');
+                if (filterPaths != null) {
+                    if (filterPath.isEmpty()) {
+                        filterPaths = null;
+                    } else {
+                        filterPaths.add(filterPath);
+                    }
+                }
+            }
+
+            Set<String> paths = new TreeSet<>();
+            try (ObjectReader reader = repository.newObjectReader()) {
+                CanonicalTreeParser tree = new CanonicalTreeParser();
+                tree.reset(reader, treeId);
+                DiffCommand diff = git.diff().setOldTree(tree).setShowNameAndStatusOnly(true);
+                StatusCommand status = git.status();
+                if (filterPaths != null) {
+                    diff.setPathFilter(PathFilterGroup.createFromStrings(filterPaths));
+                    filterPaths.forEach(status::addPath);
+                }
+                for (DiffEntry entry : diff.call()) {
+                    if (entry.getChangeType() != DiffEntry.ChangeType.DELETE) {
+                        paths.add(entry.getNewPath());
+                    }
+                }
+                paths.addAll(status.call().getUntracked());
+            }
+
+            for (String path : paths) {
+                File file = new File(repository.getWorkTree(), path);
+                Path filePath = file.toPath().normalize();
+                for (int i = 0; i < roots.size(); ++i) {
+                    if (filePath.startsWith(roots.get(i)) && file.isFile()) {
+                        result.get(dirs.get(i)).add(file);
+                    }
+                }
+            }
+            return result;
+        } catch (GitAPIException exception) {
+            throw new IOException("Error reading git repository: " + exception.getMessage(), exception);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package net.chriswareham.scanner;
+
+import java.util.Arrays;
+
+/**
+ * This class implements an index of the lines of a text, for resolving the
+ * offsets of matches in a whole file to line and column numbers. The offsets
+ * of the starts of the lines are found in a single pass, and an offset is
+ * resolved with a binary search. Lines are terminated by a line feed, a
+ * carriage return, or a carriage return followed by a line feed, as they are
+ * when files are read line by line. This class is immutable.
+ */
+public class ScannerLineIndex {
+    /**
+     * The initial capacity of the line starts.
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * The text.
+     */
+    private final CharSequence text;
+
+    /**
+     * The offsets of the starts of the lines.
+     */
+    private final int[] starts;
+
+    /**
+     * The number of lines.
+     */
+    private final int count;
+
+    /**
+     * Construct an instance of an index of the lines of a text.
+     *
+     * @param text the text
+     */
+    public ScannerLineIndex(final CharSequence text) {
+        this.text = text;
+        int[] lineStarts = new int[INITIAL_CAPACITY];
+        int n = 0;
+        int length = text.length();
+        if (length > 0) {
+            lineStarts[n++] = 0;
+        }
+        for (int i = 0; i < length; ++i) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r') {
+                if (c == '\r' && i + 1 < length && text.charAt(i + 1) == '\n') {
+                    ++i;
+                }
+                if (i + 1 < length) {
+                    if (n == lineStarts.length) {
+                        lineStarts = Arrays.copyOf(lineStarts, n * 2);
+                    }
+                    lineStarts[n++] = i + 1;
+                }
+            }
+        }
+        this.starts = lineStarts;
+        this.count = n;
+    }
+
+    /**
+     * Count the lines of a text, without indexing them.
+     *
+     * @param text the text
+     * @return the number of lines
+     */
+    public static int countLines(final CharSequence text) {
+        int length = text.length();
+        int n = length > 0 ? 1 : 0;
+        for (int i = 0; i < length; ++i) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r') {
+                if (c == '\r' && i + 1 < length && text.charAt(i + 1) == '\n') {
+                    ++i;
+                }
+                if (i + 1 < length) {
+                    ++n;
+                }
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Get the number of lines.
+     *
+     * @return the number of lines
+     */
+    public int getLineCount() {
+        return count;
+    }
+
+    /**
+     * Get the line number of an offset.
+     *
+     * @param offset the offset
+     * @return the line number, starting from one
+     */
+    public int getLine(final int offset) {
+        int index = Arrays.binarySearch(starts, 0, count, offset);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    /**
+     * Get the offset of the start of a line.
+     *
+     * @param line the line number, starting from one
+     * @return the offset of the start of the line
+     */
+    public int getStart(final int line) {
+        return starts[line - 1];
+    }
+
+    /**
+     * Get the offset of the end of a line, before its terminator.
+     *
+     * @param line the line number, starting from one
+     * @return the offset of the end of the line
+     */
+    public int getEnd(final int line) {
+        int end = line < count ? starts[line] : text.length();
+        while (end > starts[line - 1] && (text.charAt(end - 1) == '\n' || text.charAt(end - 1) == '\r')) {
+            --end;
+        }
+        return end;
+    }
+}
@@ -0,0 +1,201 @@
+package net.chriswareham.scanner;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * This class implements a reader that passes the lines of mapped bytes in an
+ * ASCII compatible encoding to a matcher. The bytes are copied a chunk of
+ * whole lines at a time into an array, in which a byte kernel finds the line
+ * terminators and tests whether each line is ASCII. Lines of ASCII, or of any
+ * text in ISO-8859-1, are matched through a reused view over the mapped
+ * bytes, so only lines with multibyte characters are decoded. If the reader
+ * is given the first bytes of the literals and keywords of the prefilter,
+ * because every pattern that applies has some, lines without any of them
+ * are counted but not matched, as no pattern can match them, unless they are
+ * long enough to be reported as long lines. A line longer
+ * than a chunk is read directly from the mapped bytes. Lines are terminated
+ * by a line feed, a carriage return, or a carriage return followed by a line
+ * feed. A reader must only be used on the current thread.
+ */
+public class ScannerMappedLineReader {
+    /**
+     * The size of a chunk.
+     */
+    private static final int CHUNK_SIZE = 65536;
+
+    /**
+     * The mapped bytes.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The encoding of the bytes.
+     */
+    private final Charset charset;
+
+    /**
+     * The byte kernel.
+     */
+    private final ScannerByteKernel kernel;
+
+    /**
+     * The first bytes of the literals and keywords of the prefilter, or null
+     * if every line must be matched.
+     */
+    private final ScannerByteSet firstBytes;
+
+    /**
+     * The maximum length of a line that can be skipped, or zero for no
+     * maximum.
+     */
+    private final int maxSkipLength;
+
+    /**
+     * Whether each byte is a character, as the encoding is ISO-8859-1.
+     */
+    private final boolean bytesAreChars;
+
+    /**
+     * The view over the mapped bytes.
+     */
+    private final ScannerByteSequence view;
+
+    /**
+     * The chunk that the bytes are copied into.
+     */
+    private final byte[] chunk;
+
+    /**
+     * Construct an instance of a reader of the lines of mapped bytes.
+     *
+     * @param buffer the mapped bytes
+     * @param charset the encoding of the bytes, which must be ASCII
+     * compatible
+     * @param kernel the byte kernel
+     * @param firstBytes the first bytes of the literals and keywords of the
+     * prefilter, or null if every line must be matched
+     * @param maxSkipLength the maximum length of a line that can be skipped,
+     * as longer lines are reported, or zero for no maximum
+     */
+    public ScannerMappedLineReader(
+        final ByteBuffer buffer,
+        final Charset charset,
+        final ScannerByteKernel kernel,
+        final ScannerByteSet firstBytes,
+        final int maxSkipLength
+    ) {
+        this.buffer = buffer;
+        this.charset = charset;
+        this.kernel = kernel;
+        this.firstBytes = firstBytes;
+        this.maxSkipLength = maxSkipLength;
+        this.bytesAreChars = StandardCharsets.ISO_8859_1.equals(charset);
+        this.view = new ScannerByteSequence(buffer);
+        this.chunk = new byte[Math.min(CHUNK_SIZE, buffer.limit())];
+    }
+
+    /**
+     * Pass the lines to a matcher.
+     *
+     * @param firstLine the line number of the first line
+     * @param matcher the matcher for the lines
+     * @param matches the list to add the matches to
+     * @return the number of lines
+     */
+    public int read(final int firstLine, final ScannerFileMatcher matcher, final List<ScannerMatch> matches) {
+        int size = buffer.limit();
+        int lineNumber = firstLine;
+        int base = 0;
+        while (base < size) {
+            int length = Math.min(chunk.length, size - base);
+            buffer.get(base, chunk, 0, length);
+            boolean last = base + length == size;
+
+            int start = 0;
+            while (start < length) {
+                int end = kernel.indexOfLineTerminator(chunk, start, length);
+                if (end < 0 || !last && end + 1 == length && chunk[end] == '\r') {
+                    break;
+                }
+                matchChunkLine(base, start, end, lineNumber++, matcher, matches);
+                start = end + (chunk[end] == '\r' && end + 1 < length && chunk[end + 1] == '\n' ? 2 : 1);
+            }
+
+            if (last) {
+                if (start < length) {
+                    matchChunkLine(base, start, length, lineNumber++, matcher, matches);
+                }
+                break;
+            }
+            if (start == 0) {
+                base = matchLongLine(base, lineNumber++, matcher, matches);
+            } else {
+                base += start;
+            }
+        }
+        return lineNumber - firstLine;
+    }
+
+    /**
+     * Match a line that is in the chunk, unless it cannot match.
+     *
+     * @param base the offset of the chunk in the mapped bytes
+     * @param start the offset of the start of the line in the chunk
+     * @param end the offset of the end of the line in the chunk
+     * @param lineNumber the line number
+     * @param matcher the matcher for the lines
+     * @param matches the list to add the matches to
+     */
+    private void matchChunkLine(final int base, final int start, final int end, final int lineNumber, final ScannerFileMatcher matcher, final List<ScannerMatch> matches) {
+        if (firstBytes != null && (maxSkipLength == 0 || end - start <= maxSkipLength) && !kernel.containsAny(chunk, start, end, firstBytes)) {
+            return;
+        }
+        CharSequence line = bytesAreChars || kernel.isAscii(chunk, start, end)
+            ? view.reset(base + start, end - start)
+            : new String(chunk, start, end - start, charset);
+        matcher.match(line, lineNumber, matches);
+    }
+
+    /**
+     * Match a line that is longer than a chunk, reading it directly from the
+     * mapped bytes.
+     *
+     * @param start the offset of the start of the line in the mapped bytes
+     * @param lineNumber the line number
+     * @param matcher the matcher for the lines
+     * @param matches the list to add the matches to
+     * @return the offset of the start of the next line in the mapped bytes
+     */
+    private int matchLongLine(final int start, final int lineNumber, final ScannerFileMatcher matcher, final List<ScannerMatch> matches) {
+        int size = buffer.limit();
+        int end = start;
+        boolean ascii = true;
+        for (; end < size; ++end) {
+            byte b = buffer.get(end);
+            if (b == '\n' || b == '\r') {
+                break;
+            }
+            if (b < 0) {
+                ascii = false;
+            }
+        }
+
+        CharSequence line;
+        if (ascii || bytesAreChars) {
+            line = view.reset(start, end - start);
+        } else {
+            byte[] bytes = new byte[end - start];
+            buffer.get(start, bytes);
+            line = new String(bytes, charset);
+        }
+        matcher.match(line, lineNumber, matches);
+
+        if (end < size && buffer.get(end) == '\r' && end + 1 < size && buffer.get(end + 1) == '\n') {
+            return end + 2;
+        }
+        return Math.min(end + 1, size);
+    }
+}
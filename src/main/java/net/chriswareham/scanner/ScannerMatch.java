@@ -1,13 +1,15 @@
 package net.chriswareham.scanner;
 
 /**
- * This class describes a scanner match.
+ * This class describes a scanner match. The pattern that matched is referred
+ * to by its id, which is resolved to a name by the scanner patterns when the
+ * match is output.
  */
 public class ScannerMatch {
     /**
-     * The name of the pattern that matched.
+     * The id of the pattern that matched.
      */
-    private final String name;
+    private final int pattern;
 
     /**
      * The line number of the match.
@@ -22,23 +24,23 @@ public class ScannerMatch {
     /**
      * Construct an instance of a scanner match.
      *
-     * @param name the name of the pattern that matched
+     * @param pattern the id of the pattern that matched
      * @param line the line number of the match
      * @param column the column number of the match
      */
-    public ScannerMatch(final String name, final int line, final int column) {
-        this.name = name;
+    public ScannerMatch(final int pattern, final int line, final int column) {
+        this.pattern = pattern;
         this.line = line;
         this.column = column;
     }
 
     /**
-     * Get the name of the pattern that matched.
+     * Get the id of the pattern that matched.
      *
-     * @return the name of the pattern that matched
+     * @return the id of the pattern that matched
      */
-    public String getName() {
-        return name;
+    public int getPattern() {
+        return pattern;
     }
 
     /**
@@ -62,10 +64,22 @@ public class ScannerMatch {
     /**
      * Get a description of the scanner match.
      *
+     * @param patternSet the scanner patterns, to resolve the name of the
+     * pattern that matched
+     * @return a description of the scanner match
+     */
+    public String toString(final ScannerPatternSet patternSet) {
+        return String.format("Line %d column %d matches %s", line, column, patternSet.getName(pattern));
+    }
+
+    /**
+     * Get a description of the scanner match, with the id of the pattern
+     * that matched rather than its name.
+     *
      * @return a description of the scanner match
      */
     @Override
     public String toString() {
-        return String.format("Line %d column %d matches %s", line, column, name);
+        return String.format("Line %d column %d matches pattern %d", line, column, pattern);
     }
 }
@@ -0,0 +1,112 @@
+package net.chriswareham.scanner;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * This class guards the scanner patterns run with
+ * {@link java.util.regex.Pattern} against catastrophic backtracking. Each
+ * pattern has a budget of characters it may read on each line, and is aborted
+ * on that line if it exceeds it. A pattern that exceeds its budget can also be
+ * disabled for the rest of the run. This class is thread safe.
+ */
+public class ScannerMatchGuard {
+    /**
+     * The budget of characters that a pattern may read on a line, or zero for
+     * no budget.
+     */
+    private final long budget;
+
+    /**
+     * Whether to disable a pattern for the rest of the run once it has
+     * exceeded its budget.
+     */
+    private final boolean disableOnTimeout;
+
+    /**
+     * The flags for the patterns that have been disabled.
+     */
+    private final AtomicIntegerArray disabled;
+
+    /**
+     * Whether any patterns have been disabled.
+     */
+    private volatile boolean anyDisabled;
+
+    /**
+     * Construct an instance of a guard for the scanner patterns.
+     *
+     * @param patternCount the number of scanner patterns
+     * @param budget the budget of characters that a pattern may read on a
+     * line, or zero for no budget
+     * @param disableOnTimeout whether to disable a pattern for the rest of the
+     * run once it has exceeded its budget
+     */
+    public ScannerMatchGuard(final int patternCount, final long budget, final boolean disableOnTimeout) {
+        this.budget = budget;
+        this.disableOnTimeout = disableOnTimeout;
+        this.disabled = new AtomicIntegerArray(patternCount);
+    }
+
+    /**
+     * Create a budgeted character sequence for matching the lines of a file.
+     * The sequence must only be used on the current thread.
+     *
+     * @return the budgeted character sequence, or null if there is no budget
+     */
+    public ScannerBudgetedSequence newSequence() {
+        return budget > 0 ? new ScannerBudgetedSequence(budget) : null;
+    }
+
+    /**
+     * Create a budgeted character sequence for matching the whole content of
+     * a file, with the budget for a line multiplied by the number of lines in
+     * the content. The sequence must only be used on the current thread.
+     *
+     * @param content the content of the file
+     * @return the budgeted character sequence, or null if there is no budget
+     */
+    public ScannerBudgetedSequence newSequence(final CharSequence content) {
+        return budget > 0 ? new ScannerBudgetedSequence(budget * Math.max(ScannerLineIndex.countLines(content), 1)) : null;
+    }
+
+    /**
+     * Get whether a pattern has been disabled.
+     *
+     * @param index the index of the pattern
+     * @return whether the pattern has been disabled
+     */
+    public boolean isDisabled(final int index) {
+        return anyDisabled && disabled.get(index) != 0;
+    }
+
+    /**
+     * Get whether any patterns have been disabled, in which case the matches
+     * for files scanned since are incomplete.
+     *
+     * @return whether any patterns have been disabled
+     */
+    public boolean hasDisabled() {
+        return anyDisabled;
+    }
+
+    /**
+     * Record that a pattern exceeded its budget on a line, disabling it if
+     * configured to.
+     *
+     * @param pattern the pattern
+     * @param index the index of the pattern
+     * @param file the file
+     * @param lineNumber the line number
+     * @param warnings the list to add the warning to
+     */
+    public void timeout(final ScannerPattern pattern, final int index, final File file, final int lineNumber, final List<ScannerWarning> warnings) {
+        String message = String.format("pattern %s exceeded its budget of %d character reads and was aborted", pattern.getName(), budget);
+        if (disableOnTimeout && disabled.compareAndSet(index, 0, 1)) {
+            anyDisabled = true;
+            message += ", and disabled for the rest of the run";
+        }
+        warnings.add(new ScannerWarning(file, lineNumber, message));
+    }
+}
@@ -0,0 +1,199 @@
+package net.chriswareham.scanner;
+
+import java.io.File;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * This class implements a compact store for the scanner matches of a scan.
+ * Rather than keeping an object for every match, the store keeps growable
+ * primitive columns of the pattern id, line, column and file index of each
+ * match, with the files interned in a table. The matches for a file are added
+ * together, so they occupy a contiguous block of the columns. The matches are
+ * read back through views that present each block as the scanner matches for
+ * a file, creating match objects only as they are iterated. This class is
+ * thread safe.
+ */
+public class ScannerMatchStore {
+    /**
+     * The initial capacity of the columns.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * The interned files, indexed by file index.
+     */
+    private final List<File> files = new ArrayList<>();
+
+    /**
+     * The file indexes, keyed by file.
+     */
+    private final Map<File, Integer> fileIndexes = new HashMap<>();
+
+    /**
+     * The pattern id column.
+     */
+    private int[] patterns = new int[INITIAL_CAPACITY];
+
+    /**
+     * The line number column.
+     */
+    private int[] lines = new int[INITIAL_CAPACITY];
+
+    /**
+     * The column number column.
+     */
+    private int[] columns = new int[INITIAL_CAPACITY];
+
+    /**
+     * The file index column.
+     */
+    private int[] fileColumn = new int[INITIAL_CAPACITY];
+
+    /**
+     * The number of matches in the store.
+     */
+    private int size;
+
+    /**
+     * The index of the first match of each block of the matches for a
+     * file.
+     */
+    private int[] blockStarts = new int[INITIAL_CAPACITY];
+
+    /**
+     * The number of blocks in the store.
+     */
+    private int blocks;
+
+    /**
+     * Add the scanner matches for a file. Empty scanner matches are not
+     * stored.
+     *
+     * @param scannerMatches the scanner matches for a file
+     */
+    public synchronized void add(final ScannerMatches scannerMatches) {
+        List<ScannerMatch> matches = scannerMatches.getMatches();
+        if (matches.isEmpty()) {
+            return;
+        }
+        int fileIndex = intern(scannerMatches.getFile());
+
+        ensureCapacity(size + matches.size());
+        if (blocks == blockStarts.length) {
+            blockStarts = Arrays.copyOf(blockStarts, blocks * 2);
+        }
+        blockStarts[blocks++] = size;
+
+        for (ScannerMatch match : matches) {
+            patterns[size] = match.getPattern();
+            lines[size] = match.getLine();
+            columns[size] = match.getColumn();
+            fileColumn[size] = fileIndex;
+            ++size;
+        }
+    }
+
+    /**
+     * Get views of the scanner matches for each file, ordered by file so
+     * that the output does not depend on the order that files were scanned
+     * in. The views must not be used while matches are being added.
+     *
+     * @return the scanner matches for each file
+     */
+    public synchronized List<ScannerMatches> getMatches() {
+        List<ScannerMatches> result = new ArrayList<>(blocks);
+        for (int block = 0; block < blocks; ++block) {
+            int start = blockStarts[block];
+            int end = block + 1 < blocks ? blockStarts[block + 1] : size;
+            File file = files.get(fileColumn[start]);
+            result.add(new ScannerMatches(file, new BlockView(start, end)));
+        }
+        result.sort(Comparator.comparing(ScannerMatches::getFile));
+        return result;
+    }
+
+    /**
+     * Intern a file in the file table.
+     *
+     * @param file the file
+     * @return the file index
+     */
+    private int intern(final File file) {
+        Integer index = fileIndexes.get(file);
+        if (index == null) {
+            index = files.size();
+            files.add(file);
+            fileIndexes.put(file, index);
+        }
+        return index;
+    }
+
+    /**
+     * Ensure that the columns have at least the given capacity.
+     *
+     * @param capacity the capacity
+     */
+    private void ensureCapacity(final int capacity) {
+        if (capacity > patterns.length) {
+            int newCapacity = Math.max(capacity, patterns.length * 2);
+            patterns = Arrays.copyOf(patterns, newCapacity);
+            lines = Arrays.copyOf(lines, newCapacity);
+            columns = Arrays.copyOf(columns, newCapacity);
+            fileColumn = Arrays.copyOf(fileColumn, newCapacity);
+        }
+    }
+
+    /**
+     * This class provides a view of the matches in a block as a list of
+     * scanner matches.
+     */
+    private final class BlockView extends AbstractList<ScannerMatch> implements RandomAccess {
+        /**
+         * The index of the first match of the block.
+         */
+        private final int start;
+
+        /**
+         * The index after the last match of the block.
+         */
+        private final int end;
+
+        /**
+         * Construct an instance of a view of the matches in a block.
+         *
+         * @param start the index of the first match of the block
+         * @param end the index after the last match of the block
+         */
+        private BlockView(final int start, final int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public ScannerMatch get(final int index) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            int i = start + index;
+            return new ScannerMatch(patterns[i], lines[i], columns[i]);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int size() {
+            return end - start;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package net.chriswareham.scanner;
+
+import java.io.File;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * This interface is implemented by scanner matchers, which match the scanner
+ * patterns against the lines of files. Implementations must be thread safe.
+ */
+public interface ScannerMatcher {
+    /**
+     * Create a matcher for the lines of a file.
+     *
+     * @param file the file
+     * @param active the ids of the patterns that apply to the file
+     * @param warnings the list to add warnings for the file to
+     * @return the matcher for the lines of the file
+     */
+    ScannerFileMatcher forFile(File file, BitSet active, List<ScannerWarning> warnings);
+}
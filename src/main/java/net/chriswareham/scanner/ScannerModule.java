@@ -0,0 +1,102 @@
+package net.chriswareham.scanner;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class describes a module of an aggregate scan, with the number of its
+ * files that were scanned and the number of matches in them. This class is
+ * thread safe.
+ */
+public class ScannerModule {
+    /**
+     * The name of the module.
+     */
+    private final String name;
+
+    /**
+     * The root directory of the module.
+     */
+    private final File rootDir;
+
+    /**
+     * The number of files of the module that were scanned.
+     */
+    private final AtomicInteger files = new AtomicInteger();
+
+    /**
+     * The number of matches in the files of the module.
+     */
+    private final AtomicInteger matches = new AtomicInteger();
+
+    /**
+     * Construct an instance of a module of an aggregate scan.
+     *
+     * @param name the name of the module
+     * @param rootDir the root directory of the module
+     */
+    public ScannerModule(final String name, final File rootDir) {
+        this.name = name;
+        this.rootDir = rootDir;
+    }
+
+    /**
+     * Get the name of the module.
+     *
+     * @return the name of the module
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the root directory of the module.
+     *
+     * @return the root directory of the module
+     */
+    public File getRootDir() {
+        return rootDir;
+    }
+
+    /**
+     * Get the number of files of the module that were scanned.
+     *
+     * @return the number of files of the module that were scanned
+     */
+    public int getFiles() {
+        return files.get();
+    }
+
+    /**
+     * Get the number of matches in the files of the module.
+     *
+     * @return the number of matches in the files of the module
+     */
+    public int getMatches() {
+        return matches.get();
+    }
+
+    /**
+     * Record a file of the module that was scanned.
+     *
+     * @param scannerMatches the scanner matches for the file, or for the
+     * entries of an archive, which are empty if it has no matches
+     */
+    public void record(final List<ScannerMatches> scannerMatches) {
+        files.incrementAndGet();
+        for (ScannerMatches fileMatches : scannerMatches) {
+            matches.addAndGet(fileMatches.getMatches().size());
+        }
+    }
+
+    /**
+     * Get a description of the module.
+     *
+     * @return a description of the module
+     */
+    @Override
+    public String toString() {
+        return String.format("Module %s scanned %d file%s with %d match%s", name, getFiles(), getFiles() == 1 ? "" : "s", getMatches(), getMatches() == 1 ? "" : "es");
+    }
+}
@@ -0,0 +1,73 @@
+package net.chriswareham.scanner;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class passes the scanner matches for files to output listeners in the
+ * order of the files, however the files finish scanning. Files that finish
+ * out of order are held until the files before them have finished, so only
+ * those matches are kept in memory. The files held are bounded by how far
+ * ahead of the earliest unfinished file the caller lets files be scanned.
+ * This class is thread safe.
+ */
+public class ScannerOrderedOutput {
+    /**
+     * The output listeners.
+     */
+    private final List<ScannerOutputListener> listeners;
+
+    /**
+     * The scanner matches for files that finished out of order, keyed by the
+     * index of the file.
+     */
+    private final Map<Integer, List<ScannerMatches>> pending = new HashMap<>();
+
+    /**
+     * The index of the next file to pass to the output listeners.
+     */
+    private int next;
+
+    /**
+     * Construct an instance of an ordered output.
+     *
+     * @param listeners the output listeners
+     */
+    public ScannerOrderedOutput(final List<ScannerOutputListener> listeners) {
+        this.listeners = listeners;
+    }
+
+    /**
+     * Record that a file has finished scanning, and pass the scanner matches
+     * for it and any following files that have finished to the output
+     * listeners.
+     *
+     * @param index the index of the file
+     * @param matches the scanner matches for the file, or for the entries of
+     * an archive, which are empty if it has no matches
+     * @throws IOException if an error occurs
+     */
+    public synchronized void complete(final int index, final List<ScannerMatches> matches) throws IOException {
+        pending.put(index, matches);
+        while (pending.containsKey(next)) {
+            for (ScannerMatches nextMatches : pending.remove(next++)) {
+                for (ScannerOutputListener listener : listeners) {
+                    listener.onFileMatches(nextMatches);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finish the output listeners, once all the files have finished scanning.
+     *
+     * @throws IOException if an error occurs
+     */
+    public synchronized void finish() throws IOException {
+        for (ScannerOutputListener listener : listeners) {
+            listener.finish();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package net.chriswareham.scanner;
+
+import java.io.IOException;
+
+/**
+ * This interface is implemented by listeners that write scanner output
+ * incrementally, as the files are scanned.
+ */
+public interface ScannerOutputListener {
+    /**
+     * Write the scanner matches for a file.
+     *
+     * @param matches the scanner matches for a file
+     * @throws IOException if an error occurs
+     */
+    void onFileMatches(ScannerMatches matches) throws IOException;
+
+    /**
+     * Finish writing scanner output, once all the files have been scanned.
+     *
+     * @throws IOException if an error occurs
+     */
+    void finish() throws IOException;
+}
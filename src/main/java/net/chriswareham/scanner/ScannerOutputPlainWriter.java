@@ -12,19 +12,92 @@ public class ScannerOutputPlainWriter implements ScannerOutputWriter {
      */
     @Override
     public void write(final ScannerContext context, final Writer writer) throws IOException {
-        String lineSeparator = System.lineSeparator();
-
-        writer.write(context.toString());
-        writer.write(lineSeparator);
+        writeLine(context.toString(), writer);
 
         for (ScannerMatches matches : context.getMatches()) {
-            writer.write(matches.toString());
-            writer.write(lineSeparator);
+            writeMatches(context, matches, writer);
+        }
+
+        writeWarnings(context, writer);
+
+        writeModules(context, writer);
+    }
 
-            for (ScannerMatch match : matches.getMatches()) {
-                writer.write(match.toString());
-                writer.write(lineSeparator);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ScannerOutputListener start(final ScannerContext context, final Writer writer) throws IOException {
+        return new ScannerOutputListener() {
+            @Override
+            public void onFileMatches(final ScannerMatches matches) throws IOException {
+                writeMatches(context, matches, writer);
             }
+
+            @Override
+            public void finish() throws IOException {
+                writeWarnings(context, writer);
+
+                writeModules(context, writer);
+
+                writeLine(context.toString(), writer);
+
+                writer.flush();
+            }
+        };
+    }
+
+    /**
+     * Write the scanner matches for a file.
+     *
+     * @param context the scanner context
+     * @param matches the scanner matches for a file
+     * @param writer the writer
+     * @throws IOException if an error occurs
+     */
+    private static void writeMatches(final ScannerContext context, final ScannerMatches matches, final Writer writer) throws IOException {
+        writeLine(matches.toString(), writer);
+
+        for (ScannerMatch match : matches.getMatches()) {
+            writeLine(match.toString(context.getPatternSet()), writer);
+        }
+    }
+
+    /**
+     * Write the scanner warnings.
+     *
+     * @param context the scanner context
+     * @param writer the writer
+     * @throws IOException if an error occurs
+     */
+    private static void writeWarnings(final ScannerContext context, final Writer writer) throws IOException {
+        for (ScannerWarning warning : context.getWarnings()) {
+            writeLine(warning.toString(), writer);
+        }
+    }
+
+    /**
+     * Write the modules, if the scan is an aggregate scan.
+     *
+     * @param context the scanner context
+     * @param writer the writer
+     * @throws IOException if an error occurs
+     */
+    private static void writeModules(final ScannerContext context, final Writer writer) throws IOException {
+        for (ScannerModule module : context.getModules()) {
+            writeLine(module.toString(), writer);
         }
     }
+
+    /**
+     * Write a line.
+     *
+     * @param line the line
+     * @param writer the writer
+     * @throws IOException if an error occurs
+     */
+    private static void writeLine(final String line, final Writer writer) throws IOException {
+        writer.write(line);
+        writer.write(System.lineSeparator());
+    }
 }
@@ -15,4 +15,17 @@ public interface ScannerOutputWriter {
      * @throws IOException if an error occurs
      */
     void write(ScannerContext context, Writer writer) throws IOException;
+
+    /**
+     * Start writing scanner output incrementally. The scanner matches for
+     * each file are written as they are passed to the returned listener, and
+     * the summary and warnings are written when it is finished, after the
+     * files rather than before them.
+     *
+     * @param context the scanner context
+     * @param writer the writer
+     * @return the listener to pass the scanner matches for files to
+     * @throws IOException if an error occurs
+     */
+    ScannerOutputListener start(ScannerContext context, Writer writer) throws IOException;
 }
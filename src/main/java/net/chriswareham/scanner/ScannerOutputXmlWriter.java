@@ -2,6 +2,7 @@ package net.chriswareham.scanner;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Locale;
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
@@ -16,35 +17,19 @@ public class ScannerOutputXmlWriter implements ScannerOutputWriter {
     @Override
     public void write(final ScannerContext context, final Writer writer) throws IOException {
         try {
-            XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
-            XMLStreamWriter streamWriter = outputFactory.createXMLStreamWriter(writer);
+            XMLStreamWriter streamWriter = startDocument(context, writer);
 
-            streamWriter.writeStartDocument(context.getEncoding().toLowerCase(), "1.0");
-            streamWriter.writeStartElement("scanner");
-
-            streamWriter.writeStartElement("summary");
-            streamWriter.writeCharacters(context.toString());
-            streamWriter.writeEndElement();
+            writeSummary(context, streamWriter);
 
             for (ScannerMatches matches : context.getMatches()) {
-                streamWriter.writeStartElement("file");
-                streamWriter.writeAttribute("name", matches.getFile().toString());
-                streamWriter.writeAttribute("matches", Integer.toString(matches.getMatches().size()));
-
-                streamWriter.writeStartElement("matches");
-
-                for (ScannerMatch match : matches.getMatches()) {
-                    streamWriter.writeStartElement("match");
-                    streamWriter.writeAttribute("line", Integer.toString(match.getLine()));
-                    streamWriter.writeAttribute("column", Integer.toString(match.getColumn()));
-                    streamWriter.writeCharacters(match.getName());
-                    streamWriter.writeEndElement();
-                }
+                writeMatches(context, matches, streamWriter);
+            }
 
-                streamWriter.writeEndElement();
+            writeWarnings(context, streamWriter);
 
-                streamWriter.writeEndElement();
-            }
+            writeModules(context, streamWriter);
+
+            writeStatistics(context, streamWriter);
 
             streamWriter.writeEndElement();
 
@@ -53,4 +38,192 @@ public class ScannerOutputXmlWriter implements ScannerOutputWriter {
             throw new IOException(exception.getMessage());
         }
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ScannerOutputListener start(final ScannerContext context, final Writer writer) throws IOException {
+        try {
+            XMLStreamWriter streamWriter = startDocument(context, writer);
+
+            return new ScannerOutputListener() {
+                @Override
+                public void onFileMatches(final ScannerMatches matches) throws IOException {
+                    try {
+                        writeMatches(context, matches, streamWriter);
+                    } catch (XMLStreamException exception) {
+                        throw new IOException(exception.getMessage());
+                    }
+                }
+
+                @Override
+                public void finish() throws IOException {
+                    try {
+                        writeWarnings(context, streamWriter);
+
+                        writeModules(context, streamWriter);
+
+                        writeStatistics(context, streamWriter);
+
+                        writeSummary(context, streamWriter);
+
+                        streamWriter.writeEndElement();
+
+                        streamWriter.close();
+                    } catch (XMLStreamException exception) {
+                        throw new IOException(exception.getMessage());
+                    }
+                }
+            };
+        } catch (XMLStreamException exception) {
+            throw new IOException(exception.getMessage());
+        }
+    }
+
+    /**
+     * Start the document and the root element.
+     *
+     * @param context the scanner context
+     * @param writer the writer
+     * @return the XML stream writer
+     * @throws XMLStreamException if an error occurs
+     */
+    private static XMLStreamWriter startDocument(final ScannerContext context, final Writer writer) throws XMLStreamException {
+        XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+        XMLStreamWriter streamWriter = outputFactory.createXMLStreamWriter(writer);
+
+        streamWriter.writeStartDocument(context.getEncoding().toLowerCase(), "1.0");
+        streamWriter.writeStartElement("scanner");
+
+        return streamWriter;
+    }
+
+    /**
+     * Write the summary element.
+     *
+     * @param context the scanner context
+     * @param streamWriter the XML stream writer
+     * @throws XMLStreamException if an error occurs
+     */
+    private static void writeSummary(final ScannerContext context, final XMLStreamWriter streamWriter) throws XMLStreamException {
+        streamWriter.writeStartElement("summary");
+        streamWriter.writeCharacters(context.toString());
+        streamWriter.writeEndElement();
+    }
+
+    /**
+     * Write the file element for the scanner matches for a file.
+     *
+     * @param context the scanner context
+     * @param matches the scanner matches for a file
+     * @param streamWriter the XML stream writer
+     * @throws XMLStreamException if an error occurs
+     */
+    private static void writeMatches(final ScannerContext context, final ScannerMatches matches, final XMLStreamWriter streamWriter) throws XMLStreamException {
+        streamWriter.writeStartElement("file");
+        streamWriter.writeAttribute("name", matches.getFile().toString());
+        streamWriter.writeAttribute("matches", Integer.toString(matches.getMatches().size()));
+
+        streamWriter.writeStartElement("matches");
+
+        for (ScannerMatch match : matches.getMatches()) {
+            streamWriter.writeStartElement("match");
+            streamWriter.writeAttribute("line", Integer.toString(match.getLine()));
+            streamWriter.writeAttribute("column", Integer.toString(match.getColumn()));
+            streamWriter.writeCharacters(context.getPatternSet().getName(match.getPattern()));
+            streamWriter.writeEndElement();
+        }
+
+        streamWriter.writeEndElement();
+
+        streamWriter.writeEndElement();
+    }
+
+    /**
+     * Write the warning elements.
+     *
+     * @param context the scanner context
+     * @param streamWriter the XML stream writer
+     * @throws XMLStreamException if an error occurs
+     */
+    private static void writeWarnings(final ScannerContext context, final XMLStreamWriter streamWriter) throws XMLStreamException {
+        for (ScannerWarning warning : context.getWarnings()) {
+            streamWriter.writeStartElement("warning");
+            streamWriter.writeAttribute("file", warning.getFile().toString());
+            if (warning.getLine() != 0) {
+                streamWriter.writeAttribute("line", Integer.toString(warning.getLine()));
+            }
+            streamWriter.writeCharacters(warning.getMessage());
+            streamWriter.writeEndElement();
+        }
+    }
+
+    /**
+     * Write the module elements, if the scan is an aggregate scan.
+     *
+     * @param context the scanner context
+     * @param streamWriter the XML stream writer
+     * @throws XMLStreamException if an error occurs
+     */
+    private static void writeModules(final ScannerContext context, final XMLStreamWriter streamWriter) throws XMLStreamException {
+        for (ScannerModule module : context.getModules()) {
+            streamWriter.writeEmptyElement("module");
+            streamWriter.writeAttribute("name", module.getName());
+            streamWriter.writeAttribute("root", module.getRootDir().toString());
+            streamWriter.writeAttribute("files", Integer.toString(module.getFiles()));
+            streamWriter.writeAttribute("matches", Integer.toString(module.getMatches()));
+        }
+    }
+
+    /**
+     * Write the statistics element, if statistics are collected. Times are in
+     * milliseconds, and the times for patterns are estimated from samples.
+     *
+     * @param context the scanner context
+     * @param streamWriter the XML stream writer
+     * @throws XMLStreamException if an error occurs
+     */
+    private static void writeStatistics(final ScannerContext context, final XMLStreamWriter streamWriter) throws XMLStreamException {
+        ScannerStatistics statistics = context.getStatistics();
+        if (statistics == null) {
+            return;
+        }
+
+        streamWriter.writeStartElement("statistics");
+        streamWriter.writeAttribute("files", Long.toString(statistics.getFiles()));
+        streamWriter.writeAttribute("cachedFiles", Long.toString(statistics.getCachedFiles()));
+        streamWriter.writeAttribute("bytes", Long.toString(statistics.getBytes()));
+        streamWriter.writeAttribute("lines", Long.toString(statistics.getLines()));
+        streamWriter.writeAttribute("time", milliseconds(statistics.getElapsed()));
+        streamWriter.writeAttribute("throughput", String.format(Locale.ROOT, "%.2f", statistics.getThroughput()));
+
+        for (ScannerStatistics.PatternStatistics pattern : statistics.getPatterns()) {
+            streamWriter.writeEmptyElement("pattern");
+            streamWriter.writeAttribute("name", pattern.getName());
+            streamWriter.writeAttribute("invocations", Long.toString(pattern.getInvocations()));
+            streamWriter.writeAttribute("matches", Long.toString(pattern.getMatches()));
+            streamWriter.writeAttribute("time", milliseconds(pattern.getNanos()));
+        }
+
+        for (ScannerStatistics.FileStatistics file : statistics.getSlowestFiles()) {
+            streamWriter.writeEmptyElement("file");
+            streamWriter.writeAttribute("name", file.getFile().toString());
+            streamWriter.writeAttribute("bytes", Long.toString(file.getBytes()));
+            streamWriter.writeAttribute("lines", Integer.toString(file.getLines()));
+            streamWriter.writeAttribute("time", milliseconds(file.getNanos()));
+        }
+
+        streamWriter.writeEndElement();
+    }
+
+    /**
+     * Format a time in nanoseconds as milliseconds.
+     *
+     * @param nanos the time in nanoseconds
+     * @return the time in milliseconds
+     */
+    private static String milliseconds(final long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
 }
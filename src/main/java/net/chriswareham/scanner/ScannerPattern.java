@@ -1,30 +1,141 @@
 package net.chriswareham.scanner;
 
+import java.util.List;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 /**
- * This class describes a scanner pattern.
+ * This class describes a scanner pattern, which is either a regular
+ * expression or a detector of high entropy strings. Each pattern has a dense
+ * integer id, which is its index in the patterns file, so that matching can
+ * refer to patterns by id rather than by name. A pattern may be scoped to the
+ * files it applies to. A regular expression is compiled when it is loaded,
+ * so that an invalid one is reported before any file is scanned, and is only
+ * compiled with the multiline flag the first time a whole file is matched.
  */
 public class ScannerPattern {
+    /**
+     * The id, which is the index of the pattern in the patterns file.
+     */
+    private final int id;
+
     /**
      * The name.
      */
     private final String name;
 
     /**
-     * The pattern.
+     * The regular expression, or null for a detector of high entropy strings.
+     */
+    private final String regex;
+
+    /**
+     * The compiled regular expression, or null for a detector of high
+     * entropy strings.
      */
     private final Pattern pattern;
 
+    /**
+     * The regular expression compiled with the multiline flag, or null if it
+     * has not been compiled.
+     */
+    private volatile Pattern multilinePattern;
+
+    /**
+     * The extensions and file name globs of the files the pattern applies
+     * to, which are empty if it applies to all files.
+     */
+    private final List<String> files;
+
+    /**
+     * The detector of high entropy strings, or null for a regular
+     * expression.
+     */
+    private final ScannerEntropyDetector detector;
+
+    /**
+     * The literals, one of which occurs in any match of the pattern.
+     */
+    private final List<String> literals;
+
+    /**
+     * The keywords, one of which must occur in a line for the pattern to be
+     * run on it.
+     */
+    private final List<String> keywords;
+
+    /**
+     * The static analysis of the pattern.
+     */
+    private final ScannerRegexAnalysis analysis;
+
     /**
      * Construct an instance of a scanner pattern.
      *
+     * @param id the id, which is the index of the pattern in the patterns
+     * file
      * @param name the name
-     * @param pattern the pattern
+     * @param regex the regular expression
+     * @param files the extensions and file name globs of the files the
+     * pattern applies to, or an empty list if it applies to all files
+     * @param literals the lower case literals, one of which occurs in any
+     * match of the pattern, or an empty list if the pattern has none
+     * @param keywords the lower case keywords, one of which must occur in a
+     * line for the pattern to be run on it, or an empty list if the pattern
+     * is run on every line
+     * @param analysis the static analysis of the pattern
+     * @throws IllegalStateException if the regular expression is invalid
      */
-    public ScannerPattern(final String name, final Pattern pattern) {
+    public ScannerPattern(
+        final int id,
+        final String name,
+        final String regex,
+        final List<String> files,
+        final List<String> literals,
+        final List<String> keywords,
+        final ScannerRegexAnalysis analysis
+    ) {
+        this.id = id;
         this.name = name;
-        this.pattern = pattern;
+        this.regex = regex;
+        this.pattern = compile(0);
+        this.files = files;
+        this.detector = null;
+        this.literals = literals;
+        this.keywords = keywords;
+        this.analysis = analysis;
+    }
+
+    /**
+     * Construct an instance of a scanner pattern that detects high entropy
+     * strings.
+     *
+     * @param id the id, which is the index of the pattern in the patterns
+     * file
+     * @param name the name
+     * @param files the extensions and file name globs of the files the
+     * pattern applies to, or an empty list if it applies to all files
+     * @param detector the detector of high entropy strings
+     */
+    public ScannerPattern(final int id, final String name, final List<String> files, final ScannerEntropyDetector detector) {
+        this.id = id;
+        this.name = name;
+        this.regex = null;
+        this.pattern = null;
+        this.files = files;
+        this.detector = detector;
+        this.literals = List.of();
+        this.keywords = List.of();
+        this.analysis = ScannerRegexAnalysis.UNKNOWN;
+    }
+
+    /**
+     * Get the id.
+     *
+     * @return the id, which is the index of the pattern in the patterns file
+     */
+    public int getId() {
+        return id;
     }
 
     /**
@@ -37,14 +148,117 @@ public class ScannerPattern {
     }
 
     /**
-     * Get the pattern.
+     * Get the regular expression.
+     *
+     * @return the regular expression, or null for a detector of high entropy
+     * strings
+     */
+    public String getRegex() {
+        return regex;
+    }
+
+    /**
+     * Get the compiled regular expression.
      *
-     * @return the pattern
+     * @return the compiled regular expression, or null for a detector of high
+     * entropy strings
      */
     public Pattern getPattern() {
         return pattern;
     }
 
+    /**
+     * Get the regular expression compiled with the multiline flag, so that
+     * {@code ^} and {@code $} match at the lines of a whole file as they do
+     * when a file is matched line by line, compiling it if it has not been
+     * compiled.
+     *
+     * @return the regular expression compiled with the multiline flag, or
+     * null for a detector of high entropy strings
+     * @throws IllegalStateException if the regular expression is invalid
+     */
+    public Pattern getMultilinePattern() {
+        Pattern result = multilinePattern;
+        if (result == null && regex != null) {
+            synchronized (this) {
+                result = multilinePattern;
+                if (result == null) {
+                    result = compile(Pattern.MULTILINE);
+                    multilinePattern = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Compile the regular expression.
+     *
+     * @param flags the flags to compile the regular expression with
+     * @return the compiled regular expression
+     * @throws IllegalStateException if the regular expression is invalid
+     */
+    private Pattern compile(final int flags) {
+        try {
+            return Pattern.compile(regex, flags);
+        } catch (PatternSyntaxException exception) {
+            throw new IllegalStateException("Invalid pattern '" + name + "'", exception);
+        }
+    }
+
+    /**
+     * Get the extensions and file name globs of the files the pattern
+     * applies to.
+     *
+     * @return the extensions and file name globs, or an empty list if the
+     * pattern applies to all files
+     */
+    public List<String> getFiles() {
+        return files;
+    }
+
+    /**
+     * Get the detector of high entropy strings.
+     *
+     * @return the detector of high entropy strings, or null for a regular
+     * expression
+     */
+    public ScannerEntropyDetector getDetector() {
+        return detector;
+    }
+
+    /**
+     * Get the literals, one of which occurs in any match of the pattern.
+     *
+     * @return the lower case literals, or an empty list if the pattern has
+     * none
+     */
+    public List<String> getLiterals() {
+        return literals;
+    }
+
+    /**
+     * Get the keywords, one of which must occur in a line for the pattern to
+     * be run on it.
+     *
+     * @return the lower case keywords, or an empty list if the pattern is run
+     * on every line
+     */
+    public List<String> getKeywords() {
+        return keywords;
+    }
+
+    /**
+     * Get the static analysis of the pattern.
+     *
+     * @return the static analysis of the pattern, which is unknown for a
+     * detector of high entropy strings or a pattern that uses syntax that
+     * cannot be analysed
+     */
+    public ScannerRegexAnalysis getAnalysis() {
+        return analysis;
+    }
+
     /**
      * Get a description of the scanner pattern.
      *
@@ -0,0 +1,76 @@
+package net.chriswareham.scanner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.HexFormat;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * This class implements a cache of compiled scanner pattern sets that is
+ * shared by every scan in the JVM, so that the modules of a reactor build
+ * parse and compile the same patterns file only once. Sets are keyed by the
+ * location of the patterns file, the encoding it is read with and a hash of
+ * its content, so a changed file is compiled again. A set is only compiled
+ * by the first scan that needs it, with any concurrent scans waiting for it
+ * rather than compiling it too. This class is thread safe.
+ */
+public final class ScannerPatternCache {
+    /**
+     * The compiled scanner pattern sets, keyed by location, encoding and
+     * content hash.
+     */
+    private static final ConcurrentMap<String, FutureTask<ScannerPatternSet>> SETS = new ConcurrentHashMap<>();
+
+    /**
+     * Prevent instantiation.
+     */
+    private ScannerPatternCache() {
+    }
+
+    /**
+     * Get the compiled scanner pattern set for the content of a patterns
+     * file, parsing and compiling it if it is not cached.
+     *
+     * @param location the location of the patterns file
+     * @param content the content of the patterns file
+     * @param encoding the encoding of the patterns file
+     * @return the compiled scanner pattern set
+     * @throws IOException if an error occurs parsing the patterns file
+     */
+    public static ScannerPatternSet get(final String location, final byte[] content, final String encoding) throws IOException {
+        String key = location + '\n' + encoding + '\n' + HexFormat.of().formatHex(ScannerCache.newDigest().digest(content));
+
+        FutureTask<ScannerPatternSet> task = SETS.get(key);
+        if (task == null) {
+            FutureTask<ScannerPatternSet> newTask = new FutureTask<>(() -> {
+                ScannerPatternsXmlParser parser = new ScannerPatternsXmlParser();
+                return new ScannerPatternSet(parser.parse(new InputStreamReader(new ByteArrayInputStream(content), encoding)));
+            });
+            task = SETS.putIfAbsent(key, newTask);
+            if (task == null) {
+                task = newTask;
+                task.run();
+            }
+        }
+
+        try {
+            return task.get();
+        } catch (ExecutionException exception) {
+            SETS.remove(key, task);
+            if (exception.getCause() instanceof IOException) {
+                throw (IOException) exception.getCause();
+            }
+            if (exception.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) exception.getCause();
+            }
+            throw new IllegalStateException(exception.getCause());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for patterns to be compiled", exception);
+        }
+    }
+}
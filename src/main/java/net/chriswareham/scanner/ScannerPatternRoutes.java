@@ -0,0 +1,177 @@
+package net.chriswareham.scanner;
+
+import java.io.File;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class implements a routing table from the extensions of files to the
+ * scanner patterns that apply to them, so that each file is only matched
+ * against the patterns scoped to it. The active patterns for each extension
+ * that a pattern is scoped to are built up front, so a file is routed with a
+ * single lookup of its extension. Only the scopes that are not a plain
+ * extension, such as {@code application.properties} or a glob, are checked
+ * against the name of each file, and only for the files they could apply to.
+ * This class is thread safe once built.
+ */
+public class ScannerPatternRoutes {
+    /**
+     * The characters that make a scope a glob.
+     */
+    private static final String GLOB_CHARACTERS = "*?[{";
+
+    /**
+     * The patterns that apply to all files.
+     */
+    private final BitSet unscoped;
+
+    /**
+     * The active patterns, keyed by the extensions that patterns are scoped
+     * to, which include the patterns that apply to all files.
+     */
+    private final Map<String, BitSet> extensions = new HashMap<>();
+
+    /**
+     * The scopes that are checked against the names of files, keyed by the
+     * extension of the files they could apply to.
+     */
+    private final Map<String, List<Scope>> extensionScopes = new HashMap<>();
+
+    /**
+     * The scopes that are checked against the names of all files.
+     */
+    private final List<Scope> scopes = new ArrayList<>();
+
+    /**
+     * Construct an instance of a routing table for scanner patterns.
+     *
+     * @param patterns the scanner patterns
+     */
+    public ScannerPatternRoutes(final List<ScannerPattern> patterns) {
+        unscoped = new BitSet(patterns.size());
+        for (ScannerPattern pattern : patterns) {
+            if (pattern.getFiles().isEmpty()) {
+                unscoped.set(pattern.getId());
+            }
+        }
+        for (ScannerPattern pattern : patterns) {
+            for (String file : pattern.getFiles()) {
+                add(pattern.getId(), file);
+            }
+        }
+    }
+
+    /**
+     * Add a scope of a pattern.
+     *
+     * @param id the id of the pattern
+     * @param file the extension or file name glob of the scope
+     */
+    private void add(final int id, final String file) {
+        if (file.chars().anyMatch(c -> GLOB_CHARACTERS.indexOf(c) >= 0)) {
+            scopes.add(new Scope(id, FileSystems.getDefault().getPathMatcher("glob:" + file), null));
+            return;
+        }
+        String extension = getExtension(file);
+        if (extension.isEmpty()) {
+            scopes.add(new Scope(id, null, file));
+        } else if (extension.equals(file)) {
+            extensions.computeIfAbsent(extension, key -> (BitSet) unscoped.clone()).set(id);
+        } else {
+            extensionScopes.computeIfAbsent(extension, key -> new ArrayList<>()).add(new Scope(id, null, file));
+        }
+    }
+
+    /**
+     * Get the active patterns for a file.
+     *
+     * @param file the file
+     * @return the ids of the patterns that apply to the file, which must not
+     * be modified
+     */
+    public BitSet get(final File file) {
+        String name = file.getName();
+        String extension = getExtension(name);
+        BitSet active = extensions.getOrDefault(extension, unscoped);
+        List<Scope> suffixScopes = extensionScopes.getOrDefault(extension, List.of());
+        if (scopes.isEmpty() && suffixScopes.isEmpty()) {
+            return active;
+        }
+
+        BitSet result = null;
+        Path path = null;
+        for (List<Scope> candidates : List.of(suffixScopes, scopes)) {
+            for (Scope scope : candidates) {
+                if (active.get(scope.id) || result != null && result.get(scope.id)) {
+                    continue;
+                }
+                boolean matches;
+                if (scope.matcher != null) {
+                    path = path != null ? path : Path.of(name);
+                    matches = scope.matcher.matches(path);
+                } else {
+                    matches = name.endsWith(scope.suffix);
+                }
+                if (matches) {
+                    result = result != null ? result : (BitSet) active.clone();
+                    result.set(scope.id);
+                }
+            }
+        }
+        return result != null ? result : active;
+    }
+
+    /**
+     * Get the extension of a file name, from its last dot.
+     *
+     * @param name the file name
+     * @return the extension, including the dot, or an empty string if the
+     * name has no dot
+     */
+    private static String getExtension(final String name) {
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 ? name.substring(dot) : "";
+    }
+
+    /**
+     * This class describes a scope of a pattern that is checked against the
+     * names of files.
+     */
+    private static final class Scope {
+        /**
+         * The id of the pattern.
+         */
+        private final int id;
+
+        /**
+         * The matcher for the glob of the scope, or null if the scope is a
+         * suffix.
+         */
+        private final PathMatcher matcher;
+
+        /**
+         * The suffix of the scope, or null if the scope is a glob.
+         */
+        private final String suffix;
+
+        /**
+         * Construct an instance of a scope of a pattern.
+         *
+         * @param id the id of the pattern
+         * @param matcher the matcher for the glob of the scope, or null if the
+         * scope is a suffix
+         * @param suffix the suffix of the scope, or null if the scope is a glob
+         */
+        private Scope(final int id, final PathMatcher matcher, final String suffix) {
+            this.id = id;
+            this.matcher = matcher;
+            this.suffix = suffix;
+        }
+    }
+}
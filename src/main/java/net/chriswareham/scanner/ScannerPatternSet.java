@@ -0,0 +1,136 @@
+package net.chriswareham.scanner;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class describes a set of compiled scanner patterns, together with the
+ * structures derived from them for matching. The prefilter is built with the
+ * set, while the combined automaton is only built the first time it is
+ * needed. The id of each pattern is its index in the set. This class is
+ * thread safe, so a set can be shared by concurrent scans.
+ */
+public class ScannerPatternSet {
+    /**
+     * The scanner patterns.
+     */
+    private final List<ScannerPattern> patterns;
+
+    /**
+     * The ids of the scanner patterns, keyed by name.
+     */
+    private final Map<String, Integer> ids;
+
+    /**
+     * The prefilter for the scanner patterns.
+     */
+    private final ScannerPrefilter prefilter;
+
+    /**
+     * Whether any scanner pattern has characters that a match must start
+     * with, so that the characters of each line are worth masking.
+     */
+    private final boolean firstChars;
+
+    /**
+     * The combined automaton for the scanner patterns, or null if it has not
+     * been built.
+     */
+    private volatile ScannerAutomaton automaton;
+
+    /**
+     * Construct an instance of a set of compiled scanner patterns.
+     *
+     * @param patterns the scanner patterns
+     */
+    public ScannerPatternSet(final List<ScannerPattern> patterns) {
+        this.patterns = Collections.unmodifiableList(patterns);
+        this.ids = new HashMap<>();
+        for (ScannerPattern pattern : patterns) {
+            ids.put(pattern.getName(), pattern.getId());
+        }
+        this.prefilter = new ScannerPrefilter(patterns);
+        this.firstChars = patterns.stream().anyMatch(pattern -> pattern.getAnalysis().getFirstChars() != null);
+    }
+
+    /**
+     * Get the scanner patterns.
+     *
+     * @return the scanner patterns
+     */
+    public List<ScannerPattern> getPatterns() {
+        return patterns;
+    }
+
+    /**
+     * Get the name of a scanner pattern.
+     *
+     * @param id the id of the scanner pattern
+     * @return the name of the scanner pattern
+     */
+    public String getName(final int id) {
+        return patterns.get(id).getName();
+    }
+
+    /**
+     * Get the ids of the scanner patterns with the given names, ignoring
+     * any names that are not of a scanner pattern.
+     *
+     * @param names the names of the scanner patterns
+     * @return the ids of the scanner patterns
+     */
+    public BitSet getIds(final Collection<String> names) {
+        BitSet result = new BitSet(patterns.size());
+        for (String name : names) {
+            Integer id = ids.get(name);
+            if (id != null) {
+                result.set(id);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get whether any scanner pattern has characters that a match must start
+     * with.
+     *
+     * @return whether any scanner pattern has characters that a match must
+     * start with
+     */
+    public boolean hasFirstChars() {
+        return firstChars;
+    }
+
+    /**
+     * Get the prefilter for the scanner patterns.
+     *
+     * @return the prefilter for the scanner patterns
+     */
+    public ScannerPrefilter getPrefilter() {
+        return prefilter;
+    }
+
+    /**
+     * Get the combined automaton for the scanner patterns, building it if it
+     * has not been built.
+     *
+     * @return the combined automaton for the scanner patterns
+     */
+    public ScannerAutomaton getAutomaton() {
+        ScannerAutomaton result = automaton;
+        if (result == null) {
+            synchronized (this) {
+                result = automaton;
+                if (result == null) {
+                    result = new ScannerAutomaton(patterns);
+                    automaton = result;
+                }
+            }
+        }
+        return result;
+    }
+}
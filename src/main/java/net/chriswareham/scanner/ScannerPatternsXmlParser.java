@@ -2,12 +2,12 @@ package net.chriswareham.scanner;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.file.FileSystems;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.regex.Pattern;
-import java.util.regex.PatternSyntaxException;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
@@ -19,7 +19,12 @@ import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
 /**
- * This class provides an XML parser for scanner patterns.
+ * This class provides an XML parser for scanner patterns. A regular expression
+ * may declare a comma separated list of case insensitive keywords, in which
+ * case it is only run on lines that contain one of them. Any pattern may
+ * declare a comma separated list of the extensions and file name globs of the
+ * files it applies to. Each regular expression is compiled when it is
+ * parsed, so that an invalid one is reported as an error in the patterns.
  */
 public class ScannerPatternsXmlParser {
     /**
@@ -57,11 +62,56 @@ public class ScannerPatternsXmlParser {
          */
         private static final String PATTERN = "pattern";
 
+        /**
+         * The entropy element.
+         */
+        private static final String ENTROPY = "entropy";
+
         /**
          * The name attribute.
          */
         private static final String NAME = "name";
 
+        /**
+         * The keywords attribute of the pattern element.
+         */
+        private static final String KEYWORDS = "keywords";
+
+        /**
+         * The files attribute of the pattern and entropy elements.
+         */
+        private static final String FILES = "files";
+
+        /**
+         * The characters that make an entry of the files attribute a glob.
+         */
+        private static final String GLOB_CHARACTERS = "*?[{";
+
+        /**
+         * The character set attribute of the entropy element.
+         */
+        private static final String CHARSET = "charset";
+
+        /**
+         * The minimum length attribute of the entropy element.
+         */
+        private static final String MIN_LENGTH = "min-length";
+
+        /**
+         * The threshold attribute of the entropy element.
+         */
+        private static final String THRESHOLD = "threshold";
+
+        /**
+         * The default character set of the entropy element.
+         */
+        private static final String DEFAULT_CHARSET = "base64";
+
+        /**
+         * The default minimum length of the entropy element.
+         */
+        private static final int DEFAULT_MIN_LENGTH = 20;
+
         /**
          * The buffered characters.
          */
@@ -72,6 +122,17 @@ public class ScannerPatternsXmlParser {
          */
         private String name;
 
+        /**
+         * The keywords of the current pattern.
+         */
+        private List<String> keywords;
+
+        /**
+         * The extensions and file name globs of the files the current pattern
+         * applies to.
+         */
+        private List<String> files;
+
         /**
          * The parsed scanner patterns.
          */
@@ -113,15 +174,15 @@ public class ScannerPatternsXmlParser {
             case PATTERNS:
                 break;
             case PATTERN:
-                name = atts.getValue(NAME);
-                if (name == null || name.isBlank()) {
-                    throw new SAXException("Missing pattern name attribute");
-                }
-                if (patterns.containsKey(name)) {
-                    throw new SAXException("Duplicate pattern name '" + name + "'");
-                }
+                name = parseName(atts);
+                keywords = parseKeywords(atts);
+                files = parseFiles(atts);
                 startBuf();
                 break;
+            case ENTROPY:
+                name = parseName(atts);
+                patterns.put(name, new ScannerPattern(patterns.size(), name, parseFiles(atts), parseEntropy(atts)));
+                break;
             default:
                 throw new SAXException("Invalid element '" + qName + "'");
             }
@@ -141,12 +202,16 @@ public class ScannerPatternsXmlParser {
                     throw new SAXException("Missing pattern '" + name + "'");
                 }
                 try {
-                    Pattern pattern = Pattern.compile(characters);
-                    patterns.put(name, new ScannerPattern(name, pattern));
-                } catch (PatternSyntaxException exception) {
+                    ScannerRegexNode node = parseSyntaxTree(characters);
+                    List<String> literals = node != null ? ScannerRegexLiterals.extract(node) : List.of();
+                    ScannerRegexAnalysis analysis = node != null ? ScannerRegexAnalysis.analyse(node) : ScannerRegexAnalysis.UNKNOWN;
+                    patterns.put(name, new ScannerPattern(patterns.size(), name, characters, files, literals, keywords, analysis));
+                } catch (IllegalStateException exception) {
                     throw new SAXException("Invalid pattern '" + name + "'");
                 }
                 break;
+            case ENTROPY:
+                break;
             default:
                 throw new SAXException("Invalid element '" + qName + "'");
             }
@@ -162,6 +227,132 @@ public class ScannerPatternsXmlParser {
             }
         }
 
+        /**
+         * Parse the name attribute of a pattern.
+         *
+         * @param atts the attributes of the pattern
+         * @return the name of the pattern
+         * @throws SAXException if the name is missing or is a duplicate
+         */
+        private String parseName(final Attributes atts) throws SAXException {
+            String value = atts.getValue(NAME);
+            if (value == null || value.isBlank()) {
+                throw new SAXException("Missing pattern name attribute");
+            }
+            if (patterns.containsKey(value)) {
+                throw new SAXException("Duplicate pattern name '" + value + "'");
+            }
+            return value;
+        }
+
+        /**
+         * Parse the syntax tree of a pattern, for its required literals and
+         * static analysis.
+         *
+         * @param regex the pattern
+         * @return the syntax tree, or null if the pattern uses syntax that
+         * cannot be parsed
+         */
+        private static ScannerRegexNode parseSyntaxTree(final String regex) {
+            try {
+                return new ScannerRegexParser().parse(regex);
+            } catch (IllegalArgumentException exception) {
+                return null;
+            }
+        }
+
+        /**
+         * Parse the keywords attribute of a pattern. Keywords are matched
+         * without regard to case, and must be ASCII.
+         *
+         * @param atts the attributes of the pattern
+         * @return the lower case keywords, or an empty list if the pattern has
+         * none
+         * @throws SAXException if a keyword is invalid
+         */
+        private List<String> parseKeywords(final Attributes atts) throws SAXException {
+            String value = atts.getValue(KEYWORDS);
+            if (value == null) {
+                return List.of();
+            }
+            List<String> result = new ArrayList<>();
+            for (String keyword : value.split(",")) {
+                String trimmed = keyword.trim();
+                if (trimmed.isEmpty() || !trimmed.chars().allMatch(c -> c < 128)) {
+                    throw new SAXException("Invalid keywords '" + value + "' for pattern '" + name + "'");
+                }
+                result.add(trimmed.toLowerCase(Locale.ROOT));
+            }
+            return result;
+        }
+
+        /**
+         * Parse the files attribute of a pattern. An entry that contains any
+         * of the characters {@code *?[{} is a glob that is matched against
+         * file names, and any other entry is matched against the ends of file
+         * names, such as {@code .properties}.
+         *
+         * @param atts the attributes of the pattern
+         * @return the extensions and file name globs, or an empty list if the
+         * pattern applies to all files
+         * @throws SAXException if an entry is invalid
+         */
+        private List<String> parseFiles(final Attributes atts) throws SAXException {
+            String value = atts.getValue(FILES);
+            if (value == null) {
+                return List.of();
+            }
+            List<String> result = new ArrayList<>();
+            for (String entry : value.split(",")) {
+                String trimmed = entry.trim();
+                if (trimmed.isEmpty() || trimmed.indexOf('/') >= 0) {
+                    throw new SAXException("Invalid files '" + value + "' for pattern '" + name + "'");
+                }
+                if (trimmed.chars().anyMatch(c -> GLOB_CHARACTERS.indexOf(c) >= 0)) {
+                    try {
+                        FileSystems.getDefault().getPathMatcher("glob:" + trimmed);
+                    } catch (IllegalArgumentException exception) {
+                        throw new SAXException("Invalid files '" + value + "' for pattern '" + name + "'");
+                    }
+                }
+                result.add(trimmed);
+            }
+            return result;
+        }
+
+        /**
+         * Parse the attributes of an entropy pattern.
+         *
+         * @param atts the attributes of the entropy pattern
+         * @return the detector of high entropy strings
+         * @throws SAXException if an attribute is invalid
+         */
+        private ScannerEntropyDetector parseEntropy(final Attributes atts) throws SAXException {
+            String charsetValue = atts.getValue(CHARSET) != null ? atts.getValue(CHARSET) : DEFAULT_CHARSET;
+            if (!ScannerEntropyCharset.isMnemonic(charsetValue)) {
+                throw new SAXException("Invalid charset '" + charsetValue + "' for pattern '" + name + "'");
+            }
+            ScannerEntropyCharset charset = ScannerEntropyCharset.valueOfMnemonic(charsetValue);
+
+            int minLength = DEFAULT_MIN_LENGTH;
+            double threshold = charset.getDefaultThreshold();
+            try {
+                if (atts.getValue(MIN_LENGTH) != null) {
+                    minLength = Integer.parseInt(atts.getValue(MIN_LENGTH).trim());
+                }
+                if (atts.getValue(THRESHOLD) != null) {
+                    threshold = Double.parseDouble(atts.getValue(THRESHOLD).trim());
+                }
+            } catch (NumberFormatException exception) {
+                throw new SAXException("Invalid min-length or threshold for pattern '" + name + "'");
+            }
+            if (minLength < 1 || !(threshold > 0.0)) {
+                throw new SAXException("Invalid min-length or threshold for pattern '" + name + "'");
+            }
+
+            return new ScannerEntropyDetector(charset, minLength, threshold);
+        }
+
         /**
          * Start buffering characters.
          */
@@ -0,0 +1,324 @@
+package net.chriswareham.scanner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class implements a prefilter for scanner patterns. The required
+ * literals and the declared keywords of all the patterns are compiled into a
+ * single Aho-Corasick automaton, so that one pass over a line finds the
+ * patterns that could match it. A pattern is a candidate for a line if the
+ * line contains one of its literals, if it has any, and one of its keywords,
+ * if it has any. Literals and keywords are matched without regard to the case
+ * of ASCII letters. This class is thread safe.
+ */
+public class ScannerPrefilter {
+    /**
+     * The size of the alphabet of the automaton.
+     */
+    private static final int ALPHABET = 128;
+
+    /**
+     * The map of characters to character classes, where class zero is for
+     * characters that do not occur in any literal.
+     */
+    private final int[] classes;
+
+    /**
+     * The number of character classes.
+     */
+    private final int classCount;
+
+    /**
+     * The transitions, indexed by state multiplied by the number of
+     * character classes plus the character class.
+     */
+    private final int[] transitions;
+
+    /**
+     * The outputs of the literals and keywords that end at each state, or
+     * null for states where none ends. The output of a literal is the index
+     * of its pattern, and the output of a keyword is the index of its pattern
+     * plus the number of patterns.
+     */
+    private final int[][] outputs;
+
+    /**
+     * The number of patterns.
+     */
+    private final int patternCount;
+
+    /**
+     * The indexes of the patterns that have literals to filter on.
+     */
+    private final BitSet filtered;
+
+    /**
+     * The indexes of the patterns that have keywords to gate on.
+     */
+    private final BitSet gated;
+
+    /**
+     * The first bytes of the literals and keywords, in both cases, so that
+     * text without any of them can be skipped by a byte kernel, or null if
+     * any of them starts with a null byte, which a byte set cannot hold.
+     */
+    private final ScannerByteSet firstBytes;
+
+    /**
+     * Construct an instance of a prefilter for scanner patterns.
+     *
+     * @param patterns the scanner patterns
+     */
+    public ScannerPrefilter(final List<ScannerPattern> patterns) {
+        classes = new int[ALPHABET];
+        patternCount = patterns.size();
+        filtered = new BitSet(patternCount);
+        gated = new BitSet(patternCount);
+
+        int count = 1;
+        int states = 1;
+        StringBuilder first = new StringBuilder();
+        boolean firstBytesValid = true;
+        for (int i = 0; i < patternCount; ++i) {
+            ScannerPattern pattern = patterns.get(i);
+            if (!pattern.getLiterals().isEmpty()) {
+                filtered.set(i);
+            }
+            if (!pattern.getKeywords().isEmpty()) {
+                gated.set(i);
+            }
+            for (String literal : strings(pattern)) {
+                char initial = literal.charAt(0);
+                if (initial == 0 || initial >= ALPHABET) {
+                    firstBytesValid = false;
+                }
+                first.append(initial).append(Character.toUpperCase(initial));
+                states += literal.length();
+                for (int j = 0; j < literal.length(); ++j) {
+                    char c = literal.charAt(j);
+                    if (classes[c] == 0) {
+                        classes[c] = count++;
+                    }
+                }
+            }
+        }
+        for (char c = 'a'; c <= 'z'; ++c) {
+            classes[Character.toUpperCase(c)] = classes[c];
+        }
+        classCount = count;
+        firstBytes = firstBytesValid ? new ScannerByteSet(first.toString().getBytes(StandardCharsets.US_ASCII)) : null;
+
+        int[] trie = new int[states * classCount];
+        int[][] trieOutputs = new int[states][];
+        int next = 1;
+        for (int i = 0; i < patternCount; ++i) {
+            ScannerPattern pattern = patterns.get(i);
+            for (String literal : strings(pattern)) {
+                int state = 0;
+                for (int j = 0; j < literal.length(); ++j) {
+                    int index = state * classCount + classes[literal.charAt(j)];
+                    if (trie[index] == 0) {
+                        trie[index] = next++;
+                    }
+                    state = trie[index];
+                }
+                int output = pattern.getLiterals().contains(literal) ? i : patternCount + i;
+                trieOutputs[state] = append(trieOutputs[state], output);
+                if (output == i && pattern.getKeywords().contains(literal)) {
+                    trieOutputs[state] = append(trieOutputs[state], patternCount + i);
+                }
+            }
+        }
+
+        transitions = Arrays.copyOf(trie, next * classCount);
+        outputs = Arrays.copyOf(trieOutputs, next);
+        buildFailureTransitions();
+    }
+
+    /**
+     * Get the literals and keywords of a pattern, without duplicates.
+     *
+     * @param pattern the pattern
+     * @return the literals and keywords of the pattern
+     */
+    private static Set<String> strings(final ScannerPattern pattern) {
+        Set<String> result = new LinkedHashSet<>(pattern.getLiterals());
+        result.addAll(pattern.getKeywords());
+        return result;
+    }
+
+    /**
+     * Complete the transitions of the trie with the failure transitions, so
+     * that the automaton never needs to backtrack, and merge the outputs of
+     * the failure states.
+     */
+    private void buildFailureTransitions() {
+        int[] failure = new int[outputs.length];
+        Deque<Integer> queue = new ArrayDeque<>();
+
+        for (int c = 1; c < classCount; ++c) {
+            int state = transitions[c];
+            if (state != 0) {
+                queue.add(state);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            for (int c = 1; c < classCount; ++c) {
+                int index = state * classCount + c;
+                int target = transitions[index];
+                int fallback = transitions[failure[state] * classCount + c];
+                if (target == 0) {
+                    transitions[index] = fallback;
+                } else {
+                    failure[target] = fallback;
+                    int[] inherited = outputs[fallback];
+                    if (inherited != null) {
+                        for (int pattern : inherited) {
+                            outputs[target] = append(outputs[target], pattern);
+                        }
+                    }
+                    queue.add(target);
+                }
+            }
+        }
+    }
+
+    /**
+     * Append a pattern index to an array of pattern indexes, if it is not
+     * already present.
+     *
+     * @param indexes the array of pattern indexes, or null
+     * @param index the pattern index
+     * @return the array of pattern indexes
+     */
+    private static int[] append(final int[] indexes, final int index) {
+        if (indexes == null) {
+            return new int[] {index};
+        }
+        for (int i : indexes) {
+            if (i == index) {
+                return indexes;
+            }
+        }
+        int[] appended = Arrays.copyOf(indexes, indexes.length + 1);
+        appended[indexes.length] = index;
+        return appended;
+    }
+
+    /**
+     * Get whether the prefilter filters any patterns.
+     *
+     * @return whether the prefilter filters any patterns
+     */
+    public boolean isEmpty() {
+        return filtered.isEmpty() && gated.isEmpty();
+    }
+
+    /**
+     * Get whether a pattern is filtered. Patterns without literals to filter
+     * on must always be run.
+     *
+     * @param index the index of the pattern
+     * @return whether the pattern is filtered
+     */
+    public boolean isFiltered(final int index) {
+        return filtered.get(index);
+    }
+
+    /**
+     * Get whether the prefilter filters or gates all of some patterns, in
+     * which case text that contains none of the first bytes of the literals
+     * and keywords cannot match any of them.
+     *
+     * @param indexes the indexes of the patterns
+     * @return whether the prefilter filters or gates all of the patterns
+     */
+    public boolean filtersAll(final BitSet indexes) {
+        for (int i = indexes.nextSetBit(0); i >= 0; i = indexes.nextSetBit(i + 1)) {
+            if (!filtered.get(i) && !gated.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the first bytes of the literals and keywords, in both cases.
+     *
+     * @return the first bytes of the literals and keywords, or null if text
+     * cannot be skipped by them
+     */
+    public ScannerByteSet getFirstBytes() {
+        return firstBytes;
+    }
+
+    /**
+     * Get whether a pattern is gated on keywords.
+     *
+     * @param index the index of the pattern
+     * @return whether the pattern is gated on keywords
+     */
+    public boolean hasKeywords(final int index) {
+        return gated.get(index);
+    }
+
+    /**
+     * Get whether a pattern has a keyword in some text, or has no keywords.
+     *
+     * @param index the index of the pattern
+     * @param candidates the set that the prefilter matched the text into
+     * @return whether the pattern has a keyword in the text
+     */
+    public boolean hasKeyword(final int index, final BitSet candidates) {
+        return !gated.get(index) || candidates.get(patternCount + index);
+    }
+
+    /**
+     * Get whether a pattern is a candidate for some text, as it has a
+     * required literal in the text, or no literals, and has a keyword in the
+     * text, or no keywords.
+     *
+     * @param index the index of the pattern
+     * @param candidates the set that the prefilter matched the text into
+     * @return whether the pattern is a candidate for the text
+     */
+    public boolean isCandidate(final int index, final BitSet candidates) {
+        return (!filtered.get(index) || candidates.get(index)) && hasKeyword(index, candidates);
+    }
+
+    /**
+     * Find the patterns that have a required literal or a keyword in some
+     * text, to pass to {@link #isCandidate(int, BitSet)}.
+     *
+     * @param text the text to search
+     * @param candidates the set to add the indexes of the patterns with a
+     * literal in the text to, and the indexes plus the number of patterns of
+     * the patterns with a keyword in the text
+     */
+    public void match(final CharSequence text, final BitSet candidates) {
+        int state = 0;
+        for (int i = 0, n = text.length(); i < n; ++i) {
+            char c = text.charAt(i);
+            if (c >= ALPHABET) {
+                state = 0;
+                continue;
+            }
+            state = transitions[state * classCount + classes[c]];
+            int[] output = outputs[state];
+            if (output != null) {
+                for (int pattern : output) {
+                    candidates.set(pattern);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,458 @@
+package net.chriswareham.scanner;
+
+import java.util.List;
+
+/**
+ * This class describes the static analysis of a scanner pattern, computed
+ * from its syntax tree when it is loaded. The analysis gives the minimum and
+ * maximum length of a match, whether matches are anchored to the start or end
+ * of a line, and the characters that a match can start with, so that the
+ * pattern can be skipped on lines that it cannot match. It also flags
+ * constructs that are prone to catastrophic backtracking, which are an
+ * unbounded repeat of a body that can end with an unbounded repeat that
+ * consumes a character the body can start with, such as {@code (\w+\s?)+},
+ * and an unbounded repeat of alternatives that can start with the same
+ * character, such as {@code (a|ab)*}. The checks are heuristics, so they
+ * neither flag every risky pattern nor only risky patterns. This class is
+ * immutable.
+ */
+public final class ScannerRegexAnalysis {
+    /**
+     * The value of the maximum length for matches of unbounded length.
+     */
+    public static final int UNBOUNDED = -1;
+
+    /**
+     * The analysis of a pattern that could not be analysed, which allows any
+     * line to match.
+     */
+    public static final ScannerRegexAnalysis UNKNOWN = new ScannerRegexAnalysis(0, UNBOUNDED, false, false, null, null);
+
+    /**
+     * The empty character class.
+     */
+    private static final ScannerRegexNode.CharClass EMPTY = new ScannerRegexNode.CharClassBuilder().build(false);
+
+    /**
+     * The minimum length of a match.
+     */
+    private final int minLength;
+
+    /**
+     * The maximum length of a match, or {@link #UNBOUNDED}.
+     */
+    private final int maxLength;
+
+    /**
+     * Whether every match is anchored to the start of a line.
+     */
+    private final boolean anchoredStart;
+
+    /**
+     * Whether every match is anchored to the end of a line.
+     */
+    private final boolean anchoredEnd;
+
+    /**
+     * The characters that a match can start with, or null if a line need not
+     * contain any particular character to match.
+     */
+    private final ScannerCharMask firstChars;
+
+    /**
+     * The description of the construct that is prone to catastrophic
+     * backtracking, or null if there is none.
+     */
+    private final String risk;
+
+    /**
+     * Construct an instance of the analysis of a scanner pattern.
+     *
+     * @param minLength the minimum length of a match
+     * @param maxLength the maximum length of a match, or {@link #UNBOUNDED}
+     * @param anchoredStart whether every match is anchored to the start of a
+     * line
+     * @param anchoredEnd whether every match is anchored to the end of a line
+     * @param firstChars the characters that a match can start with, or null
+     * @param risk the description of the construct that is prone to
+     * catastrophic backtracking, or null if there is none
+     */
+    private ScannerRegexAnalysis(
+        final int minLength,
+        final int maxLength,
+        final boolean anchoredStart,
+        final boolean anchoredEnd,
+        final ScannerCharMask firstChars,
+        final String risk
+    ) {
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.anchoredStart = anchoredStart;
+        this.anchoredEnd = anchoredEnd;
+        this.firstChars = firstChars;
+        this.risk = risk;
+    }
+
+    /**
+     * Analyse the syntax tree of a scanner pattern.
+     *
+     * @param node the syntax tree
+     * @return the analysis of the pattern
+     */
+    public static ScannerRegexAnalysis analyse(final ScannerRegexNode node) {
+        Info info = analyseNode(node);
+        ScannerCharMask firstChars = null;
+        if (info.min > 0 && !containsPrintableAscii(info.first)) {
+            firstChars = new ScannerCharMask(info.first);
+        }
+        return new ScannerRegexAnalysis(
+            (int) info.min,
+            info.max > Integer.MAX_VALUE ? UNBOUNDED : (int) info.max,
+            info.anchoredStart,
+            info.anchoredEnd,
+            firstChars,
+            info.risk
+        );
+    }
+
+    /**
+     * Get the minimum length of a match.
+     *
+     * @return the minimum length of a match
+     */
+    public int getMinLength() {
+        return minLength;
+    }
+
+    /**
+     * Get the maximum length of a match.
+     *
+     * @return the maximum length of a match, or {@link #UNBOUNDED}
+     */
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    /**
+     * Get whether every match is anchored to the start of a line.
+     *
+     * @return whether every match is anchored to the start of a line
+     */
+    public boolean isAnchoredStart() {
+        return anchoredStart;
+    }
+
+    /**
+     * Get whether every match is anchored to the end of a line.
+     *
+     * @return whether every match is anchored to the end of a line
+     */
+    public boolean isAnchoredEnd() {
+        return anchoredEnd;
+    }
+
+    /**
+     * Get the characters that a match can start with.
+     *
+     * @return the characters that a match can start with, or null if a line
+     * need not contain any particular character to match
+     */
+    public ScannerCharMask getFirstChars() {
+        return firstChars;
+    }
+
+    /**
+     * Get the description of the construct that is prone to catastrophic
+     * backtracking.
+     *
+     * @return the description of the construct, or null if there is none
+     */
+    public String getRisk() {
+        return risk;
+    }
+
+    /**
+     * Get whether a line could match the pattern, as it is at least the
+     * minimum length and contains a character that a match can start with.
+     *
+     * @param line the line
+     * @param lineChars the mask of the characters of the line, which is only
+     * used if the pattern has characters that a match can start with
+     * @return whether the line could match the pattern
+     */
+    public boolean isPossible(final CharSequence line, final ScannerCharMask lineChars) {
+        return line.length() >= minLength && (firstChars == null || lineChars.intersects(firstChars));
+    }
+
+    /**
+     * Get a description of the analysis.
+     *
+     * @return a description of the analysis
+     */
+    @Override
+    public String toString() {
+        return String.format("match length %d to %s%s%s%s",
+            minLength,
+            maxLength == UNBOUNDED ? "unbounded" : Integer.toString(maxLength),
+            anchoredStart ? ", anchored at start" : "",
+            anchoredEnd ? ", anchored at end" : "",
+            risk != null ? ", at risk of catastrophic backtracking from " + risk : "");
+    }
+
+    /**
+     * Analyse a node.
+     *
+     * @param node the node
+     * @return the analysis of the node
+     */
+    private static Info analyseNode(final ScannerRegexNode node) {
+        if (node instanceof ScannerRegexNode.Literal) {
+            ScannerRegexNode.Literal literal = (ScannerRegexNode.Literal) node;
+            ScannerRegexNode.CharClassBuilder builder = new ScannerRegexNode.CharClassBuilder().add(literal.getCharacter());
+            if (literal.isCaseInsensitive()) {
+                builder.foldCase();
+            }
+            return new Info(1, 1, builder.build(false));
+        }
+        if (node instanceof ScannerRegexNode.CharClass) {
+            return new Info(1, 1, (ScannerRegexNode.CharClass) node);
+        }
+        if (node instanceof ScannerRegexNode.Assertion) {
+            Info info = new Info(0, 0, EMPTY);
+            ScannerRegexNode.Assertion.Kind kind = ((ScannerRegexNode.Assertion) node).getKind();
+            info.anchoredStart = kind == ScannerRegexNode.Assertion.Kind.BEGIN_INPUT || kind == ScannerRegexNode.Assertion.Kind.BEGIN_LINE;
+            info.anchoredEnd = kind == ScannerRegexNode.Assertion.Kind.END_INPUT
+                || kind == ScannerRegexNode.Assertion.Kind.END_INPUT_OR_TERMINATOR
+                || kind == ScannerRegexNode.Assertion.Kind.END_LINE;
+            return info;
+        }
+        if (node instanceof ScannerRegexNode.Concat) {
+            return analyseConcat(((ScannerRegexNode.Concat) node).getNodes());
+        }
+        if (node instanceof ScannerRegexNode.Alternation) {
+            return analyseAlternation(((ScannerRegexNode.Alternation) node).getAlternatives());
+        }
+        return analyseRepeat((ScannerRegexNode.Repeat) node);
+    }
+
+    /**
+     * Analyse a sequence, whose first characters are those of its nodes up
+     * to the first node that cannot match the empty string, and whose
+     * trailing loops are those of its nodes from the last node that cannot
+     * match the empty string.
+     *
+     * @param nodes the nodes of the sequence
+     * @return the analysis of the sequence
+     */
+    private static Info analyseConcat(final List<ScannerRegexNode> nodes) {
+        Info result = new Info(0, 0, EMPTY);
+        boolean leading = true;
+        boolean consumed = false;
+        for (ScannerRegexNode node : nodes) {
+            Info info = analyseNode(node);
+            if (leading) {
+                result.first = union(result.first, info.first);
+                leading = info.min == 0;
+            }
+            if (!consumed && info.anchoredStart) {
+                result.anchoredStart = true;
+            }
+            consumed |= info.max != 0;
+            result.anchoredEnd = info.anchoredEnd || result.anchoredEnd && info.max == 0;
+            result.trailing = info.min > 0 ? info.trailing : union(result.trailing, info.trailing);
+            result.chars = union(result.chars, info.chars);
+            result.min = Math.min(result.min + info.min, Integer.MAX_VALUE);
+            result.max = result.max < 0 || info.max < 0 ? -1 : result.max + info.max;
+            result.risk = result.risk != null ? result.risk : info.risk;
+        }
+        return result;
+    }
+
+    /**
+     * Analyse alternatives, whose first characters are those of any
+     * alternative.
+     *
+     * @param alternatives the alternatives
+     * @return the analysis of the alternatives
+     */
+    private static Info analyseAlternation(final List<ScannerRegexNode> alternatives) {
+        Info result = null;
+        for (ScannerRegexNode node : alternatives) {
+            Info info = analyseNode(node);
+            if (result == null) {
+                result = info;
+                continue;
+            }
+            result.overlapping |= intersects(result.first, info.first);
+            result.min = Math.min(result.min, info.min);
+            result.max = result.max < 0 || info.max < 0 ? -1 : Math.max(result.max, info.max);
+            result.first = union(result.first, info.first);
+            result.chars = union(result.chars, info.chars);
+            result.trailing = union(result.trailing, info.trailing);
+            result.anchoredStart &= info.anchoredStart;
+            result.anchoredEnd &= info.anchoredEnd;
+            result.risk = result.risk != null ? result.risk : info.risk;
+        }
+        return result;
+    }
+
+    /**
+     * Analyse a repeat, checking an unbounded repeat for a body that is
+     * prone to catastrophic backtracking.
+     *
+     * @param repeat the repeat
+     * @return the analysis of the repeat
+     */
+    private static Info analyseRepeat(final ScannerRegexNode.Repeat repeat) {
+        Info info = analyseNode(repeat.getNode());
+        boolean unbounded = repeat.getMax() == ScannerRegexNode.Repeat.UNBOUNDED;
+
+        Info result = new Info(
+            Math.min(info.min * repeat.getMin(), Integer.MAX_VALUE),
+            info.max == 0 ? 0 : unbounded || info.max < 0 ? -1 : info.max * repeat.getMax(),
+            info.chars
+        );
+        result.first = info.first;
+        result.trailing = info.trailing;
+        result.anchoredStart = info.anchoredStart && repeat.getMin() > 0;
+        result.anchoredEnd = info.anchoredEnd && repeat.getMin() > 0;
+        result.risk = info.risk;
+
+        if (unbounded && info.max != 0) {
+            if (result.risk == null && intersects(info.first, info.trailing)) {
+                result.risk = "a nested unbounded repeat";
+            } else if (result.risk == null && info.overlapping) {
+                result.risk = "a repeat of overlapping alternatives";
+            }
+            result.trailing = union(info.trailing, info.chars);
+        }
+        return result;
+    }
+
+    /**
+     * Get the union of two character classes.
+     *
+     * @param a the first character class
+     * @param b the second character class
+     * @return the union of the character classes
+     */
+    private static ScannerRegexNode.CharClass union(final ScannerRegexNode.CharClass a, final ScannerRegexNode.CharClass b) {
+        if (b.getRanges().length == 0) {
+            return a;
+        }
+        if (a.getRanges().length == 0) {
+            return b;
+        }
+        return new ScannerRegexNode.CharClassBuilder().add(a).add(b).build(false);
+    }
+
+    /**
+     * Get whether two character classes have any character in common.
+     *
+     * @param a the first character class
+     * @param b the second character class
+     * @return whether the character classes have any character in common
+     */
+    private static boolean intersects(final ScannerRegexNode.CharClass a, final ScannerRegexNode.CharClass b) {
+        char[] x = a.getRanges();
+        char[] y = b.getRanges();
+        int i = 0;
+        int j = 0;
+        while (i < x.length && j < y.length) {
+            if (x[i + 1] < y[j]) {
+                i += 2;
+            } else if (y[j + 1] < x[i]) {
+                j += 2;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get whether a character class contains all the printable ASCII
+     * characters, in which case almost any line contains one of them.
+     *
+     * @param charClass the character class
+     * @return whether the character class contains all the printable ASCII
+     * characters
+     */
+    private static boolean containsPrintableAscii(final ScannerRegexNode.CharClass charClass) {
+        for (char c = ' '; c <= '~'; ++c) {
+            if (!charClass.contains(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * This class describes the analysis of a node.
+     */
+    private static final class Info {
+        /**
+         * The minimum length of a match.
+         */
+        private long min;
+
+        /**
+         * The maximum length of a match, or -1 if it is unbounded.
+         */
+        private long max;
+
+        /**
+         * The characters that a non empty match can start with.
+         */
+        private ScannerRegexNode.CharClass first;
+
+        /**
+         * The characters that the node can consume.
+         */
+        private ScannerRegexNode.CharClass chars;
+
+        /**
+         * The characters consumed by the unbounded repeats that can end a
+         * match of the node.
+         */
+        private ScannerRegexNode.CharClass trailing = EMPTY;
+
+        /**
+         * Whether every match is anchored to the start of a line.
+         */
+        private boolean anchoredStart;
+
+        /**
+         * Whether every match is anchored to the end of a line.
+         */
+        private boolean anchoredEnd;
+
+        /**
+         * Whether the node is alternatives of which two can start with the
+         * same character.
+         */
+        private boolean overlapping;
+
+        /**
+         * The description of the construct that is prone to catastrophic
+         * backtracking, or null if there is none.
+         */
+        private String risk;
+
+        /**
+         * Construct an instance of the analysis of a node.
+         *
+         * @param min the minimum length of a match
+         * @param max the maximum length of a match, or -1 if it is unbounded
+         * @param chars the characters that the node can consume, which are
+         * also the characters that a match can start with until they are
+         * narrowed
+         */
+        private Info(final long min, final long max, final ScannerRegexNode.CharClass chars) {
+            this.min = min;
+            this.max = max;
+            this.first = chars;
+            this.chars = chars;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package net.chriswareham.scanner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class extracts the literals that a scanner pattern requires. Any text
+ * matched by the pattern contains at least one of the literals, compared
+ * without regard to the case of ASCII letters. Only ASCII literals are
+ * extracted.
+ */
+public final class ScannerRegexLiterals {
+    /**
+     * The minimum length of a literal worth filtering on.
+     */
+    private static final int MIN_LENGTH = 3;
+
+    /**
+     * The maximum length of a literal built from a repeated literal.
+     */
+    private static final int MAX_REPEAT_LENGTH = 32;
+
+    /**
+     * Prevent instantiation.
+     */
+    private ScannerRegexLiterals() {
+        // utility class
+    }
+
+    /**
+     * Extract the required literals from a scanner pattern.
+     *
+     * @param regex the pattern
+     * @return the lower case literals, at least one of which occurs in any
+     * match of the pattern, or an empty list if no useful literals could be
+     * extracted
+     */
+    public static List<String> extract(final String regex) {
+        ScannerRegexNode node;
+        try {
+            node = new ScannerRegexParser().parse(regex);
+        } catch (IllegalArgumentException exception) {
+            return List.of();
+        }
+        return extract(node);
+    }
+
+    /**
+     * Extract the required literals from the syntax tree of a scanner pattern.
+     *
+     * @param node the syntax tree
+     * @return the lower case literals, at least one of which occurs in any
+     * match of the pattern, or an empty list if no useful literals could be
+     * extracted
+     */
+    public static List<String> extract(final ScannerRegexNode node) {
+        Set<String> literals = analyse(node).best();
+        if (literals == null || score(literals) < MIN_LENGTH) {
+            return List.of();
+        }
+        return Collections.unmodifiableList(new ArrayList<>(literals));
+    }
+
+    /**
+     * Analyse a node.
+     *
+     * @param node the node
+     * @return the analysis of the node
+     */
+    private static Info analyse(final ScannerRegexNode node) {
+        if (node instanceof ScannerRegexNode.Literal) {
+            char c = ((ScannerRegexNode.Literal) node).getCharacter();
+            return new Info(c < 128 ? String.valueOf(Character.toLowerCase(c)) : null, null);
+        }
+        if (node instanceof ScannerRegexNode.CharClass) {
+            int c = ((ScannerRegexNode.CharClass) node).getSingleCharacter();
+            return new Info(c >= 0 && c < 128 ? String.valueOf(Character.toLowerCase((char) c)) : null, null);
+        }
+        if (node instanceof ScannerRegexNode.Assertion) {
+            return new Info("", null);
+        }
+        if (node instanceof ScannerRegexNode.Concat) {
+            return analyseConcat((ScannerRegexNode.Concat) node);
+        }
+        if (node instanceof ScannerRegexNode.Alternation) {
+            return analyseAlternation((ScannerRegexNode.Alternation) node);
+        }
+        return analyseRepeat((ScannerRegexNode.Repeat) node);
+    }
+
+    /**
+     * Analyse a sequence, where the literal runs formed by adjacent exact
+     * nodes and the requirements of each node are all candidates.
+     *
+     * @param concat the sequence
+     * @return the analysis of the sequence
+     */
+    private static Info analyseConcat(final ScannerRegexNode.Concat concat) {
+        StringBuilder run = new StringBuilder();
+        boolean exact = true;
+        Set<String> required = null;
+
+        for (ScannerRegexNode node : concat.getNodes()) {
+            Info info = analyse(node);
+            if (info.exact != null) {
+                run.append(info.exact);
+                continue;
+            }
+            exact = false;
+            required = better(required, run.length() > 0 ? Set.of(run.toString()) : null);
+            required = better(required, info.required);
+            run.setLength(0);
+        }
+
+        if (exact) {
+            return new Info(run.toString(), null);
+        }
+        return new Info(null, better(required, run.length() > 0 ? Set.of(run.toString()) : null));
+    }
+
+    /**
+     * Analyse alternatives, which require one of the requirements of each
+     * alternative.
+     *
+     * @param alternation the alternatives
+     * @return the analysis of the alternatives
+     */
+    private static Info analyseAlternation(final ScannerRegexNode.Alternation alternation) {
+        Set<String> required = new LinkedHashSet<>();
+        for (ScannerRegexNode node : alternation.getAlternatives()) {
+            Set<String> literals = analyse(node).best();
+            if (literals == null) {
+                return new Info(null, null);
+            }
+            required.addAll(literals);
+        }
+        return new Info(null, required);
+    }
+
+    /**
+     * Analyse a repeat, which has the requirements of the repeated node if it
+     * must occur at least once.
+     *
+     * @param repeat the repeat
+     * @return the analysis of the repeat
+     */
+    private static Info analyseRepeat(final ScannerRegexNode.Repeat repeat) {
+        if (repeat.getMin() == 0) {
+            return new Info(null, null);
+        }
+        Info info = analyse(repeat.getNode());
+        if (info.exact != null && repeat.getMin() == repeat.getMax()
+            && (long) info.exact.length() * repeat.getMin() <= MAX_REPEAT_LENGTH) {
+            return new Info(info.exact.repeat(repeat.getMin()), null);
+        }
+        return new Info(null, info.best());
+    }
+
+    /**
+     * Choose the better of two sets of literals.
+     *
+     * @param a the first set, or null
+     * @param b the second set, or null
+     * @return the set with the longest shortest literal, or null if both are
+     * null
+     */
+    private static Set<String> better(final Set<String> a, final Set<String> b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        int scoreA = score(a);
+        int scoreB = score(b);
+        if (scoreA != scoreB) {
+            return scoreA > scoreB ? a : b;
+        }
+        return a.size() <= b.size() ? a : b;
+    }
+
+    /**
+     * Score a set of literals by the length of the shortest literal.
+     *
+     * @param literals the literals
+     * @return the score
+     */
+    private static int score(final Set<String> literals) {
+        return literals.stream().mapToInt(String::length).min().orElse(0);
+    }
+
+    /**
+     * This class describes the analysis of a node.
+     */
+    private static final class Info {
+        /**
+         * The exact lower case text matched by the node, or null if the node
+         * can match different text.
+         */
+        private final String exact;
+
+        /**
+         * The literals, one of which occurs in any match of the node, or null
+         * if there are none.
+         */
+        private final Set<String> required;
+
+        /**
+         * Construct an instance of the analysis of a node.
+         *
+         * @param exact the exact text matched by the node, or null
+         * @param required the required literals, or null
+         */
+        private Info(final String exact, final Set<String> required) {
+            this.exact = exact;
+            this.required = required;
+        }
+
+        /**
+         * Get the best requirement of the node.
+         *
+         * @return the best requirement of the node, or null if there is none
+         */
+        private Set<String> best() {
+            return exact != null && !exact.isEmpty() ? better(Set.of(exact), required) : required;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package net.chriswareham.scanner;
+
+import java.io.File;
+import java.nio.CharBuffer;
+import java.util.BitSet;
+import java.util.List;
+import java.util.regex.Matcher;
+
+/**
+ * This class implements a scanner matcher that runs each pattern with
+ * {@link java.util.regex.Pattern}, skipping the patterns that the prefilter
+ * or their static analysis rule out and guarding against catastrophic
+ * backtracking. Detectors of high entropy strings are run directly.
+ */
+public class ScannerRegexMatcher implements ScannerMatcher {
+    /**
+     * The scanner context.
+     */
+    private final ScannerContext context;
+
+    /**
+     * Construct an instance of a scanner matcher.
+     *
+     * @param context the scanner context
+     */
+    public ScannerRegexMatcher(final ScannerContext context) {
+        this.context = context;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ScannerFileMatcher forFile(final File file, final BitSet active, final List<ScannerWarning> warnings) {
+        ScannerFileSuppressions suppressions = context.getSuppressions(file);
+        List<ScannerPattern> patterns = context.getPatterns();
+        ScannerPrefilter prefilter = context.getPrefilter();
+        BitSet candidates = new BitSet(patterns.size() * 2);
+        boolean masked = context.getPatternSet().hasFirstChars();
+        ScannerCharMask lineChars = new ScannerCharMask();
+        ScannerMatchGuard guard = context.getGuard();
+        ScannerBudgetedSequence budgeted = guard.newSequence();
+        int[] histogram = ScannerEntropyDetector.newHistogram();
+        ScannerStatistics.Recorder recorder = context.getStatistics() != null ? context.getStatistics().recorder() : null;
+
+        return (line, start, end, lineNumber, matches) -> {
+            if (recorder != null) {
+                recorder.line();
+            }
+
+            CharSequence region = start == 0 && end == line.length() ? line : CharBuffer.wrap(line, start, end).slice();
+
+            if (!prefilter.isEmpty()) {
+                candidates.clear();
+                prefilter.match(region, candidates);
+            }
+
+            if (masked) {
+                lineChars.reset(region);
+            }
+
+            for (int i = 0; i < patterns.size(); ++i) {
+                ScannerPattern pattern = patterns.get(i);
+
+                if (!active.get(i) || suppressions.isSuppressed(i, lineNumber)) {
+                    continue;
+                }
+
+                if (!prefilter.isCandidate(i, candidates) || !pattern.getAnalysis().isPossible(region, lineChars) || guard.isDisabled(i)) {
+                    continue;
+                }
+
+                long time = recorder != null ? recorder.start() : 0L;
+                int count = matches.size();
+
+                if (pattern.getDetector() != null) {
+                    pattern.getDetector().find(i, line, start, end, lineNumber, matches, histogram);
+                } else if (!find(pattern, line, start, end, lineNumber, matches, budgeted)) {
+                    guard.timeout(pattern, i, file, lineNumber, warnings);
+                }
+
+                if (recorder != null) {
+                    recorder.stop(i, time, matches.size() - count);
+                }
+            }
+        };
+    }
+
+    /**
+     * Find the matches of a pattern in a region of a line, within the budget
+     * of a budgeted character sequence. The matches found before the budget
+     * is exceeded are kept.
+     *
+     * @param pattern the pattern
+     * @param line the line
+     * @param start the start of the region
+     * @param end the end of the region
+     * @param lineNumber the line number
+     * @param matches the list to add the matches to
+     * @param budgeted the budgeted character sequence to wrap the line in, or
+     * null if there is no budget
+     * @return whether the pattern finished within the budget
+     */
+    static boolean find(
+        final ScannerPattern pattern,
+        final CharSequence line,
+        final int start,
+        final int end,
+        final int lineNumber,
+        final List<ScannerMatch> matches,
+        final ScannerBudgetedSequence budgeted
+    ) {
+        if (budgeted == null) {
+            find(pattern, line, start, end, lineNumber, matches);
+            return true;
+        }
+
+        try {
+            find(pattern, budgeted.reset(line), start, end, lineNumber, matches);
+            return true;
+        } catch (ScannerBudgetedSequence.BudgetExceededException exception) {
+            return false;
+        }
+    }
+
+    /**
+     * Find the matches of a pattern in a region of a line. The region has
+     * transparent, non-anchoring bounds, so anchors and word boundaries are
+     * evaluated against the whole line.
+     *
+     * @param pattern the pattern
+     * @param line the line
+     * @param start the start of the region
+     * @param end the end of the region
+     * @param lineNumber the line number
+     * @param matches the list to add the matches to
+     */
+    static void find(
+        final ScannerPattern pattern,
+        final CharSequence line,
+        final int start,
+        final int end,
+        final int lineNumber,
+        final List<ScannerMatch> matches
+    ) {
+        Matcher matcher = pattern.getPattern().matcher(line);
+        if (start != 0 || end != line.length()) {
+            matcher.region(start, end).useTransparentBounds(true).useAnchoringBounds(false);
+        }
+
+        while (matcher.find()) {
+            matches.add(new ScannerMatch(pattern.getId(), lineNumber, matcher.start()));
+        }
+    }
+}
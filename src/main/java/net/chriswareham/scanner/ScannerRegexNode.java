@@ -0,0 +1,480 @@
+package net.chriswareham.scanner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class describes a node in the syntax tree of a scanner pattern.
+ */
+public abstract class ScannerRegexNode {
+    /**
+     * Construct an instance of a node.
+     */
+    ScannerRegexNode() {
+        // package private to restrict the node types to those declared here
+    }
+
+    /**
+     * This class describes a literal character.
+     */
+    public static final class Literal extends ScannerRegexNode {
+        /**
+         * The character.
+         */
+        private final char character;
+
+        /**
+         * Whether the character is matched without regard to case.
+         */
+        private final boolean caseInsensitive;
+
+        /**
+         * Construct an instance of a literal character.
+         *
+         * @param character the character
+         * @param caseInsensitive whether the character is matched without
+         * regard to case
+         */
+        public Literal(final char character, final boolean caseInsensitive) {
+            this.character = character;
+            this.caseInsensitive = caseInsensitive && isAsciiLetter(character);
+        }
+
+        /**
+         * Get the character.
+         *
+         * @return the character
+         */
+        public char getCharacter() {
+            return character;
+        }
+
+        /**
+         * Get whether the character is matched without regard to case.
+         *
+         * @return whether the character is matched without regard to case
+         */
+        public boolean isCaseInsensitive() {
+            return caseInsensitive;
+        }
+    }
+
+    /**
+     * This class describes a character class, held as sorted and merged
+     * inclusive ranges.
+     */
+    public static final class CharClass extends ScannerRegexNode {
+        /**
+         * The sorted and merged ranges, as pairs of inclusive bounds.
+         */
+        private final char[] ranges;
+
+        /**
+         * Construct an instance of a character class.
+         *
+         * @param ranges the sorted and merged ranges, as pairs of inclusive
+         * bounds
+         */
+        CharClass(final char[] ranges) {
+            this.ranges = ranges;
+        }
+
+        /**
+         * Get the sorted and merged ranges, as pairs of inclusive bounds.
+         *
+         * @return the ranges
+         */
+        public char[] getRanges() {
+            return ranges.clone();
+        }
+
+        /**
+         * Get whether the class contains a character.
+         *
+         * @param c the character
+         * @return whether the class contains the character
+         */
+        public boolean contains(final char c) {
+            int low = 0;
+            int high = ranges.length / 2 - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (c < ranges[mid * 2]) {
+                    high = mid - 1;
+                } else if (c > ranges[mid * 2 + 1]) {
+                    low = mid + 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Get the single character matched by the class, without regard to
+         * the case of ASCII letters.
+         *
+         * @return the lower case character, or -1 if the class matches more
+         * than one character
+         */
+        public int getSingleCharacter() {
+            if (ranges.length == 2 && ranges[0] == ranges[1]) {
+                return ranges[0];
+            }
+            if (ranges.length == 4 && ranges[0] == ranges[1] && ranges[2] == ranges[3]
+                && isAsciiLetter(ranges[0]) && Character.toLowerCase(ranges[0]) == ranges[2]) {
+                return ranges[2];
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * This class describes a sequence of nodes.
+     */
+    public static final class Concat extends ScannerRegexNode {
+        /**
+         * The nodes.
+         */
+        private final List<ScannerRegexNode> nodes;
+
+        /**
+         * Construct an instance of a sequence of nodes.
+         *
+         * @param nodes the nodes
+         */
+        public Concat(final List<ScannerRegexNode> nodes) {
+            this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+        }
+
+        /**
+         * Get the nodes.
+         *
+         * @return the nodes
+         */
+        public List<ScannerRegexNode> getNodes() {
+            return nodes;
+        }
+    }
+
+    /**
+     * This class describes alternative nodes, in order of preference.
+     */
+    public static final class Alternation extends ScannerRegexNode {
+        /**
+         * The alternatives.
+         */
+        private final List<ScannerRegexNode> alternatives;
+
+        /**
+         * Construct an instance of alternative nodes.
+         *
+         * @param alternatives the alternatives, in order of preference
+         */
+        public Alternation(final List<ScannerRegexNode> alternatives) {
+            this.alternatives = Collections.unmodifiableList(new ArrayList<>(alternatives));
+        }
+
+        /**
+         * Get the alternatives.
+         *
+         * @return the alternatives, in order of preference
+         */
+        public List<ScannerRegexNode> getAlternatives() {
+            return alternatives;
+        }
+    }
+
+    /**
+     * This class describes a repeated node.
+     */
+    public static final class Repeat extends ScannerRegexNode {
+        /**
+         * The value of the maximum for an unbounded repeat.
+         */
+        public static final int UNBOUNDED = -1;
+
+        /**
+         * The repeated node.
+         */
+        private final ScannerRegexNode node;
+
+        /**
+         * The minimum number of repetitions.
+         */
+        private final int min;
+
+        /**
+         * The maximum number of repetitions, or {@link #UNBOUNDED}.
+         */
+        private final int max;
+
+        /**
+         * Whether the repeat is greedy rather than reluctant.
+         */
+        private final boolean greedy;
+
+        /**
+         * Construct an instance of a repeated node.
+         *
+         * @param node the repeated node
+         * @param min the minimum number of repetitions
+         * @param max the maximum number of repetitions, or {@link #UNBOUNDED}
+         * @param greedy whether the repeat is greedy rather than reluctant
+         */
+        public Repeat(final ScannerRegexNode node, final int min, final int max, final boolean greedy) {
+            this.node = node;
+            this.min = min;
+            this.max = max;
+            this.greedy = greedy;
+        }
+
+        /**
+         * Get the repeated node.
+         *
+         * @return the repeated node
+         */
+        public ScannerRegexNode getNode() {
+            return node;
+        }
+
+        /**
+         * Get the minimum number of repetitions.
+         *
+         * @return the minimum number of repetitions
+         */
+        public int getMin() {
+            return min;
+        }
+
+        /**
+         * Get the maximum number of repetitions.
+         *
+         * @return the maximum number of repetitions, or {@link #UNBOUNDED}
+         */
+        public int getMax() {
+            return max;
+        }
+
+        /**
+         * Get whether the repeat is greedy rather than reluctant.
+         *
+         * @return whether the repeat is greedy rather than reluctant
+         */
+        public boolean isGreedy() {
+            return greedy;
+        }
+    }
+
+    /**
+     * This class describes a zero width assertion.
+     */
+    public static final class Assertion extends ScannerRegexNode {
+        /**
+         * The kind of assertion.
+         */
+        private final Kind kind;
+
+        /**
+         * Construct an instance of a zero width assertion.
+         *
+         * @param kind the kind of assertion
+         */
+        public Assertion(final Kind kind) {
+            this.kind = kind;
+        }
+
+        /**
+         * Get the kind of assertion.
+         *
+         * @return the kind of assertion
+         */
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * This enumeration describes the kinds of zero width assertion.
+         */
+        public enum Kind {
+            /**
+             * The beginning of the input, as matched by {@code \A} or by
+             * {@code ^} without the multiline flag.
+             */
+            BEGIN_INPUT,
+            /**
+             * The beginning of a line, as matched by {@code ^} with the
+             * multiline flag.
+             */
+            BEGIN_LINE,
+            /**
+             * The end of the input, as matched by {@code \z}.
+             */
+            END_INPUT,
+            /**
+             * The end of the input or before a final line terminator, as
+             * matched by {@code \Z} or by {@code $} without the multiline
+             * flag.
+             */
+            END_INPUT_OR_TERMINATOR,
+            /**
+             * The end of a line, as matched by {@code $} with the multiline
+             * flag.
+             */
+            END_LINE,
+            /**
+             * A word boundary, as matched by {@code \b}.
+             */
+            WORD_BOUNDARY,
+            /**
+             * A non word boundary, as matched by {@code \B}.
+             */
+            NON_WORD_BOUNDARY
+        }
+    }
+
+    /**
+     * Get whether a character is an ASCII letter.
+     *
+     * @param c the character
+     * @return whether the character is an ASCII letter
+     */
+    static boolean isAsciiLetter(final char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+    }
+
+    /**
+     * This class provides a builder for character classes.
+     */
+    static final class CharClassBuilder {
+        /**
+         * The unsorted ranges, as pairs of inclusive bounds.
+         */
+        private char[] ranges = new char[16];
+
+        /**
+         * The number of bounds in the ranges.
+         */
+        private int size;
+
+        /**
+         * Add a range of characters.
+         *
+         * @param low the inclusive low bound
+         * @param high the inclusive high bound
+         * @return the builder
+         */
+        CharClassBuilder add(final char low, final char high) {
+            if (size == ranges.length) {
+                ranges = Arrays.copyOf(ranges, size * 2);
+            }
+            ranges[size++] = low;
+            ranges[size++] = high;
+            return this;
+        }
+
+        /**
+         * Add a single character.
+         *
+         * @param c the character
+         * @return the builder
+         */
+        CharClassBuilder add(final char c) {
+            return add(c, c);
+        }
+
+        /**
+         * Add the ranges of another character class.
+         *
+         * @param other the other character class
+         * @return the builder
+         */
+        CharClassBuilder add(final CharClass other) {
+            for (int i = 0; i < other.ranges.length; i += 2) {
+                add(other.ranges[i], other.ranges[i + 1]);
+            }
+            return this;
+        }
+
+        /**
+         * Add the other case of any ASCII letters in the ranges.
+         *
+         * @return the builder
+         */
+        CharClassBuilder foldCase() {
+            int n = size;
+            for (int i = 0; i < n; i += 2) {
+                foldCase(ranges[i], ranges[i + 1], 'a', 'z', 'A' - 'a');
+                foldCase(ranges[i], ranges[i + 1], 'A', 'Z', 'a' - 'A');
+            }
+            return this;
+        }
+
+        /**
+         * Add the other case of the intersection of a range with a range of
+         * ASCII letters.
+         *
+         * @param low the inclusive low bound of the range
+         * @param high the inclusive high bound of the range
+         * @param first the first letter
+         * @param last the last letter
+         * @param offset the offset to the other case
+         */
+        private void foldCase(final char low, final char high, final char first, final char last, final int offset) {
+            char from = (char) Math.max(low, first);
+            char to = (char) Math.min(high, last);
+            if (from <= to) {
+                add((char) (from + offset), (char) (to + offset));
+            }
+        }
+
+        /**
+         * Build the character class.
+         *
+         * @param negate whether to negate the class
+         * @return the character class
+         */
+        CharClass build(final boolean negate) {
+            long[] packed = new long[size / 2];
+            for (int i = 0; i < packed.length; ++i) {
+                packed[i] = (long) ranges[i * 2] << 16 | ranges[i * 2 + 1];
+            }
+            Arrays.sort(packed);
+
+            char[] merged = new char[size];
+            int n = 0;
+            for (long range : packed) {
+                char low = (char) (range >>> 16);
+                char high = (char) range;
+                if (n > 0 && low <= merged[n - 1] + 1) {
+                    merged[n - 1] = (char) Math.max(merged[n - 1], high);
+                } else {
+                    merged[n++] = low;
+                    merged[n++] = high;
+                }
+            }
+
+            if (!negate) {
+                return new CharClass(Arrays.copyOf(merged, n));
+            }
+
+            char[] complement = new char[n + 2];
+            int m = 0;
+            int next = 0;
+            for (int i = 0; i < n; i += 2) {
+                if (merged[i] > next) {
+                    complement[m++] = (char) next;
+                    complement[m++] = (char) (merged[i] - 1);
+                }
+                next = merged[i + 1] + 1;
+            }
+            if (next <= Character.MAX_VALUE) {
+                complement[m++] = (char) next;
+                complement[m++] = Character.MAX_VALUE;
+            }
+            return new CharClass(Arrays.copyOf(complement, m));
+        }
+    }
+}
@@ -0,0 +1,603 @@
+package net.chriswareham.scanner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class provides a parser for the syntax of scanner patterns. It accepts
+ * the subset of the {@link java.util.regex.Pattern} syntax that can be
+ * matched without backtracking: constructs such as backreferences, lookaround,
+ * possessive quantifiers and Unicode properties are rejected. Patterns are
+ * expected to have been compiled by {@link java.util.regex.Pattern} first, so
+ * syntax errors are not reported in detail.
+ */
+public class ScannerRegexParser {
+    /**
+     * The digits character class.
+     */
+    private static final ScannerRegexNode.CharClass DIGITS = new ScannerRegexNode.CharClassBuilder()
+        .add('0', '9')
+        .build(false);
+
+    /**
+     * The whitespace character class.
+     */
+    private static final ScannerRegexNode.CharClass WHITESPACE = new ScannerRegexNode.CharClassBuilder()
+        .add(' ')
+        .add('\t', '\r')
+        .build(false);
+
+    /**
+     * The word character class.
+     */
+    private static final ScannerRegexNode.CharClass WORD = new ScannerRegexNode.CharClassBuilder()
+        .add('a', 'z')
+        .add('A', 'Z')
+        .add('_')
+        .add('0', '9')
+        .build(false);
+
+    /**
+     * The line terminators.
+     */
+    private static final ScannerRegexNode.CharClass LINE_TERMINATORS = new ScannerRegexNode.CharClassBuilder()
+        .add('\n')
+        .add('\r')
+        .add('\u0085')
+        .add('\u2028', '\u2029')
+        .build(false);
+
+    /**
+     * The pattern being parsed.
+     */
+    private String regex;
+
+    /**
+     * The position in the pattern being parsed.
+     */
+    private int pos;
+
+    /**
+     * Whether the case insensitive flag is set.
+     */
+    private boolean caseInsensitive;
+
+    /**
+     * Whether the multiline flag is set.
+     */
+    private boolean multiline;
+
+    /**
+     * Whether the dot all flag is set.
+     */
+    private boolean dotAll;
+
+    /**
+     * Parse the syntax tree of a scanner pattern. This method is not thread
+     * safe.
+     *
+     * @param pattern the pattern to parse
+     * @return the syntax tree of the pattern
+     * @throws IllegalArgumentException if the pattern uses unsupported syntax
+     */
+    public ScannerRegexNode parse(final String pattern) {
+        regex = removeQuoting(pattern);
+        pos = 0;
+        caseInsensitive = false;
+        multiline = false;
+        dotAll = false;
+
+        ScannerRegexNode node = parseAlternation();
+        if (pos < regex.length()) {
+            throw unsupported("unmatched ')'");
+        }
+        return node;
+    }
+
+    /**
+     * Replace the quoted sequences of a pattern with escaped characters. As
+     * with {@link java.util.regex.Pattern}, this is done before the pattern
+     * is parsed, so that a quantifier following a quoted sequence applies to
+     * its last character rather than to the whole sequence, and an empty
+     * quoted sequence has no effect. Digits are replaced with hexadecimal
+     * escapes so that they cannot extend a preceding octal or hexadecimal
+     * escape.
+     *
+     * @param pattern the pattern
+     * @return the pattern without quoted sequences
+     */
+    private static String removeQuoting(final String pattern) {
+        if (!pattern.contains("\\Q")) {
+            return pattern;
+        }
+        StringBuilder builder = new StringBuilder(pattern.length() * 2);
+        boolean quoted = false;
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i++);
+            if (quoted) {
+                if (c == '\\' && pattern.startsWith("E", i)) {
+                    quoted = false;
+                    ++i;
+                } else if (c >= '0' && c <= '9') {
+                    builder.append("\\x3").append(c);
+                } else if (c < 0x80 && !Character.isLetter(c)) {
+                    builder.append('\\').append(c);
+                } else {
+                    builder.append(c);
+                }
+            } else if (c == '\\' && i < pattern.length()) {
+                char next = pattern.charAt(i++);
+                if (next == 'Q') {
+                    quoted = true;
+                } else {
+                    builder.append(c).append(next);
+                }
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Parse alternatives, up to the end of the pattern or of a group.
+     *
+     * @return the node
+     */
+    private ScannerRegexNode parseAlternation() {
+        List<ScannerRegexNode> alternatives = new ArrayList<>();
+        alternatives.add(parseConcat());
+        while (pos < regex.length() && regex.charAt(pos) == '|') {
+            ++pos;
+            alternatives.add(parseConcat());
+        }
+        return alternatives.size() == 1 ? alternatives.get(0) : new ScannerRegexNode.Alternation(alternatives);
+    }
+
+    /**
+     * Parse a sequence, up to an alternative or the end of the pattern or of
+     * a group.
+     *
+     * @return the node
+     */
+    private ScannerRegexNode parseConcat() {
+        List<ScannerRegexNode> nodes = new ArrayList<>();
+        while (pos < regex.length()) {
+            char c = regex.charAt(pos);
+            if (c == '|' || c == ')') {
+                break;
+            }
+            ScannerRegexNode node = parseAtom();
+            if (node != null) {
+                nodes.add(parseQuantifier(node));
+            }
+        }
+        return nodes.size() == 1 ? nodes.get(0) : new ScannerRegexNode.Concat(nodes);
+    }
+
+    /**
+     * Parse any quantifier following a node.
+     *
+     * @param node the node
+     * @return the node, or the quantified node
+     */
+    private ScannerRegexNode parseQuantifier(final ScannerRegexNode node) {
+        if (pos == regex.length()) {
+            return node;
+        }
+
+        int min;
+        int max;
+        switch (regex.charAt(pos)) {
+        case '*':
+            min = 0;
+            max = ScannerRegexNode.Repeat.UNBOUNDED;
+            ++pos;
+            break;
+        case '+':
+            min = 1;
+            max = ScannerRegexNode.Repeat.UNBOUNDED;
+            ++pos;
+            break;
+        case '?':
+            min = 0;
+            max = 1;
+            ++pos;
+            break;
+        case '{':
+            int close = regex.indexOf('}', pos);
+            if (close < 0) {
+                throw unsupported("unclosed repetition");
+            }
+            String bounds = regex.substring(pos + 1, close);
+            int comma = bounds.indexOf(',');
+            if (!bounds.chars().allMatch(b -> b == ',' || b >= '0' && b <= '9') || comma != bounds.lastIndexOf(',')) {
+                throw unsupported("invalid repetition");
+            }
+            try {
+                if (comma < 0) {
+                    min = max = Integer.parseInt(bounds);
+                } else {
+                    min = Integer.parseInt(bounds.substring(0, comma));
+                    max = comma == bounds.length() - 1 ? ScannerRegexNode.Repeat.UNBOUNDED : Integer.parseInt(bounds.substring(comma + 1));
+                }
+            } catch (NumberFormatException exception) {
+                throw unsupported("invalid repetition");
+            }
+            if (max != ScannerRegexNode.Repeat.UNBOUNDED && max < min) {
+                throw unsupported("invalid repetition");
+            }
+            pos = close + 1;
+            break;
+        default:
+            return node;
+        }
+
+        boolean greedy = true;
+        if (pos < regex.length()) {
+            if (regex.charAt(pos) == '?') {
+                greedy = false;
+                ++pos;
+            } else if (regex.charAt(pos) == '+') {
+                throw unsupported("possessive quantifier");
+            }
+        }
+
+        return new ScannerRegexNode.Repeat(node, min, max, greedy);
+    }
+
+    /**
+     * Parse an atom.
+     *
+     * @return the node, or null if the atom only changed flags
+     */
+    private ScannerRegexNode parseAtom() {
+        char c = regex.charAt(pos++);
+        switch (c) {
+        case '(':
+            return parseGroup();
+        case '[':
+            return parseClass();
+        case '.':
+            return dotAll ? new ScannerRegexNode.CharClassBuilder().add(Character.MIN_VALUE, Character.MAX_VALUE).build(false)
+                : new ScannerRegexNode.CharClassBuilder().add(LINE_TERMINATORS).build(true);
+        case '^':
+            return new ScannerRegexNode.Assertion(multiline ? ScannerRegexNode.Assertion.Kind.BEGIN_LINE : ScannerRegexNode.Assertion.Kind.BEGIN_INPUT);
+        case '$':
+            return new ScannerRegexNode.Assertion(multiline ? ScannerRegexNode.Assertion.Kind.END_LINE : ScannerRegexNode.Assertion.Kind.END_INPUT_OR_TERMINATOR);
+        case '\\':
+            return parseEscape();
+        case '*':
+        case '+':
+        case '?':
+        case '{':
+            throw unsupported("dangling quantifier");
+        default:
+            return new ScannerRegexNode.Literal(c, caseInsensitive);
+        }
+    }
+
+    /**
+     * Parse a group, after the opening parenthesis.
+     *
+     * @return the node, or null if the group only changed flags
+     */
+    private ScannerRegexNode parseGroup() {
+        boolean savedCaseInsensitive = caseInsensitive;
+        boolean savedMultiline = multiline;
+        boolean savedDotAll = dotAll;
+
+        if (regex.startsWith("?", pos)) {
+            ++pos;
+            if (regex.startsWith(":", pos)) {
+                ++pos;
+            } else if (regex.startsWith("<", pos) && pos + 1 < regex.length() && Character.isLetter(regex.charAt(pos + 1))) {
+                int close = regex.indexOf('>', pos);
+                if (close < 0) {
+                    throw unsupported("unclosed group name");
+                }
+                pos = close + 1;
+            } else if (parseFlags()) {
+                // an inline flags group applies the flags to the enclosing group
+                return null;
+            }
+        }
+
+        ScannerRegexNode node = parseAlternation();
+        if (pos == regex.length() || regex.charAt(pos) != ')') {
+            throw unsupported("unclosed group");
+        }
+        ++pos;
+
+        caseInsensitive = savedCaseInsensitive;
+        multiline = savedMultiline;
+        dotAll = savedDotAll;
+
+        return node;
+    }
+
+    /**
+     * Parse inline flags, after the opening parenthesis and question mark.
+     *
+     * @return true if the flags apply to the enclosing group, or false if
+     * they apply to the group being parsed
+     */
+    private boolean parseFlags() {
+        boolean on = true;
+        while (pos < regex.length()) {
+            char c = regex.charAt(pos++);
+            switch (c) {
+            case '-':
+                on = false;
+                break;
+            case 'i':
+                caseInsensitive = on;
+                break;
+            case 'm':
+                multiline = on;
+                break;
+            case 's':
+                dotAll = on;
+                break;
+            case ')':
+                return true;
+            case ':':
+                return false;
+            default:
+                throw unsupported("group construct or flag '" + c + "'");
+            }
+        }
+        throw unsupported("unclosed group");
+    }
+
+    /**
+     * Parse an escape outside of a character class, after the backslash.
+     *
+     * @return the node
+     */
+    private ScannerRegexNode parseEscape() {
+        if (pos == regex.length()) {
+            throw unsupported("trailing backslash");
+        }
+
+        char c = regex.charAt(pos);
+        switch (c) {
+        case 'b':
+            ++pos;
+            return new ScannerRegexNode.Assertion(ScannerRegexNode.Assertion.Kind.WORD_BOUNDARY);
+        case 'B':
+            ++pos;
+            return new ScannerRegexNode.Assertion(ScannerRegexNode.Assertion.Kind.NON_WORD_BOUNDARY);
+        case 'A':
+            ++pos;
+            return new ScannerRegexNode.Assertion(ScannerRegexNode.Assertion.Kind.BEGIN_INPUT);
+        case 'z':
+            ++pos;
+            return new ScannerRegexNode.Assertion(ScannerRegexNode.Assertion.Kind.END_INPUT);
+        case 'Z':
+            ++pos;
+            return new ScannerRegexNode.Assertion(ScannerRegexNode.Assertion.Kind.END_INPUT_OR_TERMINATOR);
+        default:
+            ScannerRegexNode.CharClass charClass = parsePredefinedClass();
+            if (charClass != null) {
+                return charClass;
+            }
+            return new ScannerRegexNode.Literal(parseEscapedCharacter(), caseInsensitive);
+        }
+    }
+
+    /**
+     * Parse a predefined character class escape, after the backslash.
+     *
+     * @return the character class, or null if the escape is not a
+     * predefined character class
+     */
+    private ScannerRegexNode.CharClass parsePredefinedClass() {
+        ScannerRegexNode.CharClass charClass;
+        boolean negate;
+        switch (regex.charAt(pos)) {
+        case 'd':
+            charClass = DIGITS;
+            negate = false;
+            break;
+        case 'D':
+            charClass = DIGITS;
+            negate = true;
+            break;
+        case 's':
+            charClass = WHITESPACE;
+            negate = false;
+            break;
+        case 'S':
+            charClass = WHITESPACE;
+            negate = true;
+            break;
+        case 'w':
+            charClass = WORD;
+            negate = false;
+            break;
+        case 'W':
+            charClass = WORD;
+            negate = true;
+            break;
+        default:
+            return null;
+        }
+        ++pos;
+        return negate ? new ScannerRegexNode.CharClassBuilder().add(charClass).build(true) : charClass;
+    }
+
+    /**
+     * Parse an escaped character, after the backslash.
+     *
+     * @return the character
+     */
+    private char parseEscapedCharacter() {
+        char c = regex.charAt(pos++);
+        switch (c) {
+        case 't':
+            return '\t';
+        case 'n':
+            return '\n';
+        case 'r':
+            return '\r';
+        case 'f':
+            return '\f';
+        case 'a':
+            return '\u0007';
+        case 'e':
+            return '\u001B';
+        case 'c':
+            if (pos == regex.length()) {
+                throw unsupported("missing control character");
+            }
+            return (char) (regex.charAt(pos++) ^ 64);
+        case '0':
+            int octal = 0;
+            int digits = 0;
+            while (digits < 3 && pos < regex.length() && regex.charAt(pos) >= '0' && regex.charAt(pos) <= '7'
+                && (digits < 2 || octal <= 037)) {
+                octal = octal * 8 + regex.charAt(pos++) - '0';
+                ++digits;
+            }
+            if (digits == 0) {
+                throw unsupported("invalid octal escape");
+            }
+            return (char) octal;
+        case 'x':
+            if (regex.startsWith("{", pos)) {
+                int close = regex.indexOf('}', pos);
+                if (close < 0) {
+                    throw unsupported("unclosed hexadecimal escape");
+                }
+                int codePoint = parseHex(pos + 1, close);
+                pos = close + 1;
+                if (codePoint > Character.MAX_VALUE) {
+                    throw unsupported("supplementary character");
+                }
+                return (char) codePoint;
+            }
+            pos += 2;
+            return (char) parseHex(pos - 2, pos);
+        case 'u':
+            pos += 4;
+            return (char) parseHex(pos - 4, pos);
+        default:
+            if (Character.isLetterOrDigit(c)) {
+                throw unsupported("escape '\\" + c + "'");
+            }
+            return c;
+        }
+    }
+
+    /**
+     * Parse hexadecimal digits.
+     *
+     * @param from the index of the first digit
+     * @param to the index after the last digit
+     * @return the value of the digits
+     */
+    private int parseHex(final int from, final int to) {
+        try {
+            return Integer.parseInt(regex.substring(from, to), 16);
+        } catch (NumberFormatException | IndexOutOfBoundsException exception) {
+            throw unsupported("invalid hexadecimal escape");
+        }
+    }
+
+    /**
+     * Parse a character class, after the opening bracket.
+     *
+     * @return the character class
+     */
+    private ScannerRegexNode.CharClass parseClass() {
+        ScannerRegexNode.CharClassBuilder builder = new ScannerRegexNode.CharClassBuilder();
+
+        boolean negate = regex.startsWith("^", pos);
+        if (negate) {
+            ++pos;
+        }
+
+        boolean first = true;
+        while (true) {
+            if (pos == regex.length()) {
+                throw unsupported("unclosed character class");
+            }
+            char c = regex.charAt(pos);
+            if (c == ']' && !first) {
+                ++pos;
+                break;
+            }
+            first = false;
+            if (c == '[') {
+                if (negate) {
+                    throw unsupported("nested class in negated character class");
+                }
+                ++pos;
+                builder.add(parseClass());
+                continue;
+            }
+            if (c == '&' && regex.startsWith("&&", pos)) {
+                throw unsupported("character class intersection");
+            }
+
+            char low;
+            if (c == '\\') {
+                ++pos;
+                if (pos == regex.length()) {
+                    throw unsupported("trailing backslash");
+                }
+                ScannerRegexNode.CharClass charClass = parsePredefinedClass();
+                if (charClass != null) {
+                    builder.add(charClass);
+                    continue;
+                }
+                low = parseEscapedCharacter();
+            } else {
+                low = c;
+                ++pos;
+            }
+
+            if (pos + 1 < regex.length() && regex.charAt(pos) == '-' && regex.charAt(pos + 1) != ']') {
+                ++pos;
+                char high = regex.charAt(pos);
+                if (high == '[') {
+                    throw unsupported("invalid range");
+                }
+                if (high == '\\') {
+                    ++pos;
+                    if (pos == regex.length() || parsePredefinedClass() != null) {
+                        throw unsupported("invalid range");
+                    }
+                    high = parseEscapedCharacter();
+                } else {
+                    ++pos;
+                }
+                if (high < low) {
+                    throw unsupported("invalid range");
+                }
+                builder.add(low, high);
+            } else {
+                builder.add(low);
+            }
+        }
+
+        if (caseInsensitive) {
+            builder.foldCase();
+        }
+
+        return builder.build(negate);
+    }
+
+    /**
+     * Create an exception for an unsupported construct at the current
+     * position.
+     *
+     * @param construct a description of the construct
+     * @return the exception
+     */
+    private IllegalArgumentException unsupported(final String construct) {
+        return new IllegalArgumentException("Unsupported " + construct + " at index " + pos + " in pattern '" + regex + "'");
+    }
+}
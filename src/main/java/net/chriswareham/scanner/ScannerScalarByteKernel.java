@@ -0,0 +1,66 @@
+package net.chriswareham.scanner;
+
+/**
+ * This class implements a byte kernel that tests one byte at a time. It is
+ * used when the vector API is not available. This class is thread safe.
+ */
+public final class ScannerScalarByteKernel implements ScannerByteKernel {
+    /**
+     * The shared instance of the kernel.
+     */
+    public static final ScannerScalarByteKernel INSTANCE = new ScannerScalarByteKernel();
+
+    /**
+     * Construct an instance of a scalar byte kernel.
+     */
+    private ScannerScalarByteKernel() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int indexOfLineTerminator(final byte[] bytes, final int from, final int to) {
+        for (int i = from; i < to; ++i) {
+            byte b = bytes[i];
+            if (b == '\n' || b == '\r') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isAscii(final byte[] bytes, final int from, final int to) {
+        for (int i = from; i < to; ++i) {
+            if (bytes[i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsAny(final byte[] bytes, final int from, final int to, final ScannerByteSet set) {
+        for (int i = from; i < to; ++i) {
+            if (set.contains(bytes[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
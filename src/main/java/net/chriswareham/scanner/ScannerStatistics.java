@@ -0,0 +1,551 @@
+package net.chriswareham.scanner;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * This class collects timing statistics for a scan. Counts are exact, but to
+ * keep the cost low only one line in {@value #SAMPLE_RATE} is timed, and the
+ * time for each pattern is estimated from its sampled invocations. Each
+ * thread records into its own accumulator, and the accumulators are only
+ * merged once the scan has finished. Files are always timed, but only the
+ * slowest are kept.
+ */
+public class ScannerStatistics {
+    /**
+     * The rate at which lines are sampled, which must be a power of two.
+     */
+    public static final int SAMPLE_RATE = 16;
+
+    /**
+     * The scanner patterns.
+     */
+    private final List<ScannerPattern> patterns;
+
+    /**
+     * The number of slowest patterns and files to report.
+     */
+    private final int top;
+
+    /**
+     * The accumulators of all the threads.
+     */
+    private final Queue<Accumulator> accumulators = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The accumulator for each thread.
+     */
+    private final ThreadLocal<Accumulator> accumulator = ThreadLocal.withInitial(this::newAccumulator);
+
+    /**
+     * The elapsed time of the scan in nanoseconds.
+     */
+    private volatile long elapsed;
+
+    /**
+     * Construct an instance of the statistics for a scan.
+     *
+     * @param patterns the scanner patterns
+     * @param top the number of slowest patterns and files to report
+     */
+    public ScannerStatistics(final List<ScannerPattern> patterns, final int top) {
+        this.patterns = patterns;
+        this.top = top;
+    }
+
+    /**
+     * Create and register an accumulator for the current thread.
+     *
+     * @return the accumulator
+     */
+    private Accumulator newAccumulator() {
+        Accumulator newAccumulator = new Accumulator(patterns.size(), top);
+        accumulators.add(newAccumulator);
+        return newAccumulator;
+    }
+
+    /**
+     * Get the recorder for the pattern invocations on the current thread. The
+     * recorder must only be used on the current thread.
+     *
+     * @return the recorder
+     */
+    public Recorder recorder() {
+        return accumulator.get().recorder;
+    }
+
+    /**
+     * Record a file that was scanned on the current thread.
+     *
+     * @param file the file
+     * @param bytes the size of the file in bytes
+     * @param lines the number of lines in the file
+     * @param nanos the time taken to scan the file in nanoseconds
+     */
+    public void recordFile(final File file, final long bytes, final int lines, final long nanos) {
+        accumulator.get().recordFile(new FileStatistics(file, bytes, lines, nanos));
+    }
+
+    /**
+     * Record a file whose matches were reused from the cache on the current
+     * thread.
+     */
+    public void recordCachedFile() {
+        ++accumulator.get().cachedFiles;
+    }
+
+    /**
+     * Set the elapsed time of the scan.
+     *
+     * @param nanos the elapsed time of the scan in nanoseconds
+     */
+    public void setElapsed(final long nanos) {
+        elapsed = nanos;
+    }
+
+    /**
+     * Get the elapsed time of the scan.
+     *
+     * @return the elapsed time of the scan in nanoseconds
+     */
+    public long getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * Get the number of files scanned.
+     *
+     * @return the number of files scanned
+     */
+    public long getFiles() {
+        return accumulators.stream().mapToLong(a -> a.files).sum();
+    }
+
+    /**
+     * Get the number of files whose matches were reused from the cache.
+     *
+     * @return the number of files whose matches were reused from the cache
+     */
+    public long getCachedFiles() {
+        return accumulators.stream().mapToLong(a -> a.cachedFiles).sum();
+    }
+
+    /**
+     * Get the number of bytes scanned.
+     *
+     * @return the number of bytes scanned
+     */
+    public long getBytes() {
+        return accumulators.stream().mapToLong(a -> a.bytes).sum();
+    }
+
+    /**
+     * Get the number of lines scanned.
+     *
+     * @return the number of lines scanned
+     */
+    public long getLines() {
+        return accumulators.stream().mapToLong(a -> a.lines).sum();
+    }
+
+    /**
+     * Get the throughput of the scan.
+     *
+     * @return the throughput of the scan in megabytes per second
+     */
+    public double getThroughput() {
+        return elapsed > 0 ? getBytes() * 1000.0 / elapsed : 0.0;
+    }
+
+    /**
+     * Get the statistics for all the patterns, slowest first.
+     *
+     * @return the statistics for the patterns
+     */
+    public List<PatternStatistics> getPatterns() {
+        List<PatternStatistics> statistics = new ArrayList<>(patterns.size());
+        for (int i = 0; i < patterns.size(); ++i) {
+            long invocations = 0;
+            long matches = 0;
+            long sampledInvocations = 0;
+            long sampledNanos = 0;
+            for (Accumulator a : accumulators) {
+                invocations += a.recorder.invocations[i];
+                matches += a.recorder.matches[i];
+                sampledInvocations += a.recorder.sampledInvocations[i];
+                sampledNanos += a.recorder.sampledNanos[i];
+            }
+            long nanos = sampledInvocations > 0 ? sampledNanos * invocations / sampledInvocations : 0;
+            statistics.add(new PatternStatistics(patterns.get(i).getName(), invocations, matches, nanos));
+        }
+        statistics.sort(Comparator.comparingLong(PatternStatistics::getNanos).reversed());
+        return statistics;
+    }
+
+    /**
+     * Get the statistics for the slowest files, slowest first.
+     *
+     * @return the statistics for the slowest files
+     */
+    public List<FileStatistics> getSlowestFiles() {
+        List<FileStatistics> statistics = new ArrayList<>();
+        for (Accumulator a : accumulators) {
+            statistics.addAll(a.slowestFiles);
+        }
+        statistics.sort(Comparator.comparingLong(FileStatistics::getNanos).reversed());
+        return statistics.subList(0, Math.min(top, statistics.size()));
+    }
+
+    /**
+     * Get the number of slowest patterns and files to report.
+     *
+     * @return the number of slowest patterns and files to report
+     */
+    public int getTop() {
+        return top;
+    }
+
+    /**
+     * Get a description of the statistics for a scan.
+     *
+     * @return a description of the statistics for a scan
+     */
+    @Override
+    public String toString() {
+        return String.format("Scanned %d bytes in %d lines of %d files, reusing %d more from the cache, in %.3f s at %.2f MB/s",
+            getBytes(), getLines(), getFiles(), getCachedFiles(), elapsed / 1e9, getThroughput());
+    }
+
+    /**
+     * This class records the pattern invocations on a single thread.
+     */
+    public static final class Recorder {
+        /**
+         * The number of invocations of each pattern.
+         */
+        private final long[] invocations;
+
+        /**
+         * The number of matches of each pattern.
+         */
+        private final long[] matches;
+
+        /**
+         * The number of timed invocations of each pattern.
+         */
+        private final long[] sampledInvocations;
+
+        /**
+         * The time of the timed invocations of each pattern in nanoseconds.
+         */
+        private final long[] sampledNanos;
+
+        /**
+         * The number of lines seen, used to choose the lines to time.
+         */
+        private int lineCount;
+
+        /**
+         * Whether the current line is timed.
+         */
+        private boolean sampled;
+
+        /**
+         * Construct an instance of a recorder.
+         *
+         * @param size the number of patterns
+         */
+        private Recorder(final int size) {
+            invocations = new long[size];
+            matches = new long[size];
+            sampledInvocations = new long[size];
+            sampledNanos = new long[size];
+        }
+
+        /**
+         * Start a line, deciding whether it is timed.
+         */
+        public void line() {
+            sampled = (++lineCount & (SAMPLE_RATE - 1)) == 0;
+        }
+
+        /**
+         * Start a whole file, which is always timed, as the time of an
+         * invocation over a whole file outweighs the cost of timing it.
+         */
+        public void file() {
+            sampled = true;
+        }
+
+        /**
+         * Start an invocation of a pattern.
+         *
+         * @return the start time if the line is timed, otherwise zero
+         */
+        public long start() {
+            return sampled ? System.nanoTime() : 0L;
+        }
+
+        /**
+         * Stop an invocation of a pattern.
+         *
+         * @param index the index of the pattern
+         * @param start the start time returned by {@link #start()}
+         * @param matchCount the number of matches found
+         */
+        public void stop(final int index, final long start, final int matchCount) {
+            ++invocations[index];
+            matches[index] += matchCount;
+            if (sampled) {
+                ++sampledInvocations[index];
+                sampledNanos[index] += System.nanoTime() - start;
+            }
+        }
+    }
+
+    /**
+     * This class accumulates the statistics of a single thread.
+     */
+    private static final class Accumulator {
+        /**
+         * The recorder for the pattern invocations.
+         */
+        private final Recorder recorder;
+
+        /**
+         * The number of slowest files to keep.
+         */
+        private final int top;
+
+        /**
+         * The slowest files, with the fastest of them at the head.
+         */
+        private final PriorityQueue<FileStatistics> slowestFiles = new PriorityQueue<>(Comparator.comparingLong(FileStatistics::getNanos));
+
+        /**
+         * The number of files scanned.
+         */
+        private long files;
+
+        /**
+         * The number of files whose matches were reused from the cache.
+         */
+        private long cachedFiles;
+
+        /**
+         * The number of bytes scanned.
+         */
+        private long bytes;
+
+        /**
+         * The number of lines scanned.
+         */
+        private long lines;
+
+        /**
+         * Construct an instance of an accumulator.
+         *
+         * @param size the number of patterns
+         * @param top the number of slowest files to keep
+         */
+        private Accumulator(final int size, final int top) {
+            this.recorder = new Recorder(size);
+            this.top = top;
+        }
+
+        /**
+         * Record a file that was scanned.
+         *
+         * @param statistics the statistics for the file
+         */
+        private void recordFile(final FileStatistics statistics) {
+            ++files;
+            bytes += statistics.getBytes();
+            lines += statistics.getLines();
+            if (top > 0) {
+                slowestFiles.add(statistics);
+                if (slowestFiles.size() > top) {
+                    slowestFiles.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * This class describes the statistics for a pattern.
+     */
+    public static final class PatternStatistics {
+        /**
+         * The name of the pattern.
+         */
+        private final String name;
+
+        /**
+         * The number of invocations of the pattern.
+         */
+        private final long invocations;
+
+        /**
+         * The number of matches of the pattern.
+         */
+        private final long matches;
+
+        /**
+         * The estimated time of the invocations in nanoseconds.
+         */
+        private final long nanos;
+
+        /**
+         * Construct an instance of the statistics for a pattern.
+         *
+         * @param name the name of the pattern
+         * @param invocations the number of invocations of the pattern
+         * @param matches the number of matches of the pattern
+         * @param nanos the estimated time of the invocations in nanoseconds
+         */
+        private PatternStatistics(final String name, final long invocations, final long matches, final long nanos) {
+            this.name = name;
+            this.invocations = invocations;
+            this.matches = matches;
+            this.nanos = nanos;
+        }
+
+        /**
+         * Get the name of the pattern.
+         *
+         * @return the name of the pattern
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Get the number of invocations of the pattern.
+         *
+         * @return the number of invocations of the pattern
+         */
+        public long getInvocations() {
+            return invocations;
+        }
+
+        /**
+         * Get the number of matches of the pattern.
+         *
+         * @return the number of matches of the pattern
+         */
+        public long getMatches() {
+            return matches;
+        }
+
+        /**
+         * Get the estimated time of the invocations.
+         *
+         * @return the estimated time of the invocations in nanoseconds
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Get a description of the statistics for a pattern.
+         *
+         * @return a description of the statistics for a pattern
+         */
+        @Override
+        public String toString() {
+            return String.format("Pattern %s took %.3f ms for %d invocations with %d matches", name, nanos / 1e6, invocations, matches);
+        }
+    }
+
+    /**
+     * This class describes the statistics for a file.
+     */
+    public static final class FileStatistics {
+        /**
+         * The file.
+         */
+        private final File file;
+
+        /**
+         * The size of the file in bytes.
+         */
+        private final long bytes;
+
+        /**
+         * The number of lines in the file.
+         */
+        private final int lines;
+
+        /**
+         * The time taken to scan the file in nanoseconds.
+         */
+        private final long nanos;
+
+        /**
+         * Construct an instance of the statistics for a file.
+         *
+         * @param file the file
+         * @param bytes the size of the file in bytes
+         * @param lines the number of lines in the file
+         * @param nanos the time taken to scan the file in nanoseconds
+         */
+        private FileStatistics(final File file, final long bytes, final int lines, final long nanos) {
+            this.file = file;
+            this.bytes = bytes;
+            this.lines = lines;
+            this.nanos = nanos;
+        }
+
+        /**
+         * Get the file.
+         *
+         * @return the file
+         */
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * Get the size of the file.
+         *
+         * @return the size of the file in bytes
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Get the number of lines in the file.
+         *
+         * @return the number of lines in the file
+         */
+        public int getLines() {
+            return lines;
+        }
+
+        /**
+         * Get the time taken to scan the file.
+         *
+         * @return the time taken to scan the file in nanoseconds
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Get a description of the statistics for a file.
+         *
+         * @return a description of the statistics for a file
+         */
+        @Override
+        public String toString() {
+            return String.format("File %s took %.3f ms for %d bytes in %d lines", file, nanos / 1e6, bytes, lines);
+        }
+    }
+
+}
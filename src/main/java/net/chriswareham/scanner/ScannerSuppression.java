@@ -0,0 +1,138 @@
+package net.chriswareham.scanner;
+
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * This class describes a scanner suppression, of the matches of one or more
+ * patterns in a file, in the files beneath a directory or in the files that
+ * match a glob, optionally limited to ranges of lines.
+ */
+public class ScannerSuppression {
+    /**
+     * This enumeration describes the kinds of the target of a suppression.
+     */
+    public enum Kind {
+        /**
+         * A single file.
+         */
+        FILE,
+        /**
+         * The files beneath a directory.
+         */
+        DIRECTORY,
+        /**
+         * The files whose paths relative to a directory match a glob.
+         */
+        PATH_GLOB,
+        /**
+         * The files beneath a directory whose names match a glob.
+         */
+        NAME_GLOB
+    }
+
+    /**
+     * The kind of the target of the suppression.
+     */
+    private final Kind kind;
+
+    /**
+     * The absolute and normalized path of the file or directory that is the
+     * target of the suppression, or that its glob is relative to.
+     */
+    private final Path path;
+
+    /**
+     * The glob, or null if the target is not a glob.
+     */
+    private final String glob;
+
+    /**
+     * The names of the suppressed patterns.
+     */
+    private final Set<String> names;
+
+    /**
+     * The suppressed ranges of lines, as pairs of the first and last line of
+     * each range, which are empty if the whole file is suppressed.
+     */
+    private final int[] lines;
+
+    /**
+     * Construct an instance of a scanner suppression.
+     *
+     * @param kind the kind of the target of the suppression
+     * @param path the absolute and normalized path of the file or directory
+     * that is the target of the suppression, or that its glob is relative to
+     * @param glob the glob, or null if the target is not a glob
+     * @param names the names of the suppressed patterns
+     * @param lines the suppressed ranges of lines, as pairs of the first and
+     * last line of each range, which are empty if the whole file is
+     * suppressed
+     */
+    public ScannerSuppression(final Kind kind, final Path path, final String glob, final Set<String> names, final int[] lines) {
+        this.kind = kind;
+        this.path = path;
+        this.glob = glob;
+        this.names = names;
+        this.lines = lines;
+    }
+
+    /**
+     * Get the kind of the target of the suppression.
+     *
+     * @return the kind of the target of the suppression
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Get the path of the file or directory that is the target of the
+     * suppression, or that its glob is relative to.
+     *
+     * @return the absolute and normalized path of the file or directory
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Get the glob.
+     *
+     * @return the glob, or null if the target is not a glob
+     */
+    public String getGlob() {
+        return glob;
+    }
+
+    /**
+     * Get the names of the suppressed patterns.
+     *
+     * @return the names of the suppressed patterns
+     */
+    public Set<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Get the suppressed ranges of lines.
+     *
+     * @return the suppressed ranges of lines, as pairs of the first and last
+     * line of each range, which are empty if the whole file is suppressed
+     */
+    public int[] getLines() {
+        return lines;
+    }
+
+    /**
+     * Get a description of the scanner suppression.
+     *
+     * @return a description of the scanner suppression
+     */
+    @Override
+    public String toString() {
+        String target = glob != null ? path + "/" + glob : path.toString();
+        return String.format("Suppression of %s in %s %s", names, kind.name().toLowerCase().replace('_', ' '), target);
+    }
+}
@@ -0,0 +1,315 @@
+package net.chriswareham.scanner;
+
+import java.io.File;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class implements an index of scanner suppressions, compiled from the
+ * suppressions with their pattern names resolved to pattern ids. The
+ * suppressions are held in a trie of path segments, with each suppression at
+ * the node for its file or directory, and each glob at the node for the
+ * directory it is relative to. Looking up a file walks the trie along the
+ * path of the file, so only the suppressions on that path are considered,
+ * however many there are elsewhere. This class is thread safe once built.
+ */
+public class ScannerSuppressionIndex {
+    /**
+     * The root node of the trie, whose children are keyed by the roots of
+     * the paths.
+     */
+    private final Node root = new Node();
+
+    /**
+     * The number of scanner patterns.
+     */
+    private final int patternCount;
+
+    /**
+     * Construct an instance of an index of scanner suppressions.
+     *
+     * @param suppressions the scanner suppressions
+     * @param patternSet the compiled scanner patterns, to resolve the names of
+     * the suppressed patterns to ids, ignoring any names that are not of a
+     * scanner pattern
+     */
+    public ScannerSuppressionIndex(final List<ScannerSuppression> suppressions, final ScannerPatternSet patternSet) {
+        this.patternCount = patternSet.getPatterns().size();
+        for (ScannerSuppression suppression : suppressions) {
+            Rule rule = new Rule(patternSet.getIds(suppression.getNames()), suppression.getLines());
+            if (rule.patterns.isEmpty()) {
+                continue;
+            }
+            Node node = root.add(suppression.getPath());
+            switch (suppression.getKind()) {
+            case FILE:
+                node.fileRules.add(rule);
+                break;
+            case DIRECTORY:
+                node.dirRules.add(rule);
+                break;
+            case PATH_GLOB:
+                node.globRules.add(new GlobRule(rule, glob(suppression.getGlob()), false));
+                break;
+            case NAME_GLOB:
+                node.globRules.add(new GlobRule(rule, glob(suppression.getGlob()), true));
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid suppression kind " + suppression.getKind());
+            }
+        }
+    }
+
+    /**
+     * Get the scanner suppressions for a file.
+     *
+     * @param file the file
+     * @return the scanner suppressions for the file
+     */
+    public ScannerFileSuppressions get(final File file) {
+        Path path = file.toPath().toAbsolutePath().normalize();
+        Path name = path.getFileName();
+        Path pathRoot = path.getRoot();
+        if (name == null || pathRoot == null) {
+            return ScannerFileSuppressions.NONE;
+        }
+
+        Builder builder = null;
+        Node node = root.children.get(pathRoot.toString());
+        int count = path.getNameCount();
+        for (int i = 0; i < count && node != null; ++i) {
+            for (Rule rule : node.dirRules) {
+                builder = add(builder, rule);
+            }
+            if (!node.globRules.isEmpty()) {
+                Path relativePath = path.subpath(i, count);
+                for (GlobRule globRule : node.globRules) {
+                    if (globRule.matcher.matches(globRule.name ? name : relativePath)) {
+                        builder = add(builder, globRule.rule);
+                    }
+                }
+            }
+            node = node.children.get(path.getName(i).toString());
+        }
+        if (node != null) {
+            for (Rule rule : node.fileRules) {
+                builder = add(builder, rule);
+            }
+        }
+
+        return builder != null ? builder.build() : ScannerFileSuppressions.NONE;
+    }
+
+    /**
+     * Add a rule to the builder of the suppressions for a file, creating the
+     * builder if there is none.
+     *
+     * @param builder the builder, or null if there is none
+     * @param rule the rule
+     * @return the builder
+     */
+    private Builder add(final Builder builder, final Rule rule) {
+        Builder result = builder != null ? builder : new Builder(patternCount);
+        result.add(rule);
+        return result;
+    }
+
+    /**
+     * Compile a glob.
+     *
+     * @param pattern the glob
+     * @return the path matcher for the glob
+     */
+    private static PathMatcher glob(final String pattern) {
+        return FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+    }
+
+    /**
+     * This class describes a rule of a suppression, with the ids of the
+     * suppressed patterns and the suppressed ranges of lines.
+     */
+    private static final class Rule {
+        /**
+         * The ids of the suppressed patterns.
+         */
+        private final BitSet patterns;
+
+        /**
+         * The suppressed ranges of lines, as pairs of the first and last line
+         * of each range, which are empty if the whole file is suppressed.
+         */
+        private final int[] lines;
+
+        /**
+         * Construct an instance of a rule of a suppression.
+         *
+         * @param patterns the ids of the suppressed patterns
+         * @param lines the suppressed ranges of lines
+         */
+        private Rule(final BitSet patterns, final int[] lines) {
+            this.patterns = patterns;
+            this.lines = lines;
+        }
+    }
+
+    /**
+     * This class describes a rule of a suppression whose target is a glob.
+     */
+    private static final class GlobRule {
+        /**
+         * The rule.
+         */
+        private final Rule rule;
+
+        /**
+         * The matcher for the glob.
+         */
+        private final PathMatcher matcher;
+
+        /**
+         * Whether the glob is matched against file names rather than
+         * relative paths.
+         */
+        private final boolean name;
+
+        /**
+         * Construct an instance of a rule of a suppression whose target is a
+         * glob.
+         *
+         * @param rule the rule
+         * @param matcher the matcher for the glob
+         * @param name whether the glob is matched against file names rather
+         * than relative paths
+         */
+        private GlobRule(final Rule rule, final PathMatcher matcher, final boolean name) {
+            this.rule = rule;
+            this.matcher = matcher;
+            this.name = name;
+        }
+    }
+
+    /**
+     * This class describes a node of the trie of path segments.
+     */
+    private static final class Node {
+        /**
+         * The child nodes, keyed by path segment.
+         */
+        private final Map<String, Node> children = new HashMap<>();
+
+        /**
+         * The rules for the file at this node.
+         */
+        private final List<Rule> fileRules = new ArrayList<>();
+
+        /**
+         * The rules for the files beneath the directory at this node.
+         */
+        private final List<Rule> dirRules = new ArrayList<>();
+
+        /**
+         * The rules for the files beneath the directory at this node that
+         * match a glob.
+         */
+        private final List<GlobRule> globRules = new ArrayList<>();
+
+        /**
+         * Add the nodes for an absolute path.
+         *
+         * @param path the absolute path
+         * @return the node for the path
+         */
+        private Node add(final Path path) {
+            Node node = children.computeIfAbsent(path.getRoot().toString(), key -> new Node());
+            for (Path segment : path) {
+                node = node.children.computeIfAbsent(segment.toString(), key -> new Node());
+            }
+            return node;
+        }
+    }
+
+    /**
+     * This class builds the scanner suppressions for a file from the rules
+     * that apply to it, merging the ranges of lines of each pattern.
+     */
+    private static final class Builder {
+        /**
+         * The ids of the patterns suppressed in the whole file.
+         */
+        private final BitSet patterns = new BitSet();
+
+        /**
+         * The suppressed ranges of lines, indexed by pattern id.
+         */
+        private final List<List<int[]>> ranges;
+
+        /**
+         * Construct an instance of a builder of the suppressions for a file.
+         *
+         * @param patternCount the number of scanner patterns
+         */
+        private Builder(final int patternCount) {
+            ranges = new ArrayList<>(patternCount);
+            for (int i = 0; i < patternCount; ++i) {
+                ranges.add(null);
+            }
+        }
+
+        /**
+         * Add a rule.
+         *
+         * @param rule the rule
+         */
+        private void add(final Rule rule) {
+            if (rule.lines.length == 0) {
+                patterns.or(rule.patterns);
+                return;
+            }
+            for (int id = rule.patterns.nextSetBit(0); id >= 0; id = rule.patterns.nextSetBit(id + 1)) {
+                if (ranges.get(id) == null) {
+                    ranges.set(id, new ArrayList<>());
+                }
+                for (int i = 0; i < rule.lines.length; i += 2) {
+                    ranges.get(id).add(new int[] {rule.lines[i], rule.lines[i + 1]});
+                }
+            }
+        }
+
+        /**
+         * Build the suppressions for the file, merging the overlapping and
+         * adjacent ranges of lines of each pattern.
+         *
+         * @return the suppressions for the file
+         */
+        private ScannerFileSuppressions build() {
+            int[][] lines = new int[ranges.size()][];
+            for (int id = 0; id < ranges.size(); ++id) {
+                List<int[]> patternRanges = ranges.get(id);
+                if (patternRanges == null || patterns.get(id)) {
+                    continue;
+                }
+                patternRanges.sort(Comparator.comparingInt(range -> range[0]));
+                int[] merged = new int[patternRanges.size() * 2];
+                int n = 0;
+                for (int[] range : patternRanges) {
+                    if (n > 0 && range[0] <= (long) merged[n - 1] + 1) {
+                        merged[n - 1] = Math.max(merged[n - 1], range[1]);
+                    } else {
+                        merged[n++] = range[0];
+                        merged[n++] = range[1];
+                    }
+                }
+                lines[id] = Arrays.copyOf(merged, n);
+            }
+            return new ScannerFileSuppressions(patterns, lines);
+        }
+    }
+}
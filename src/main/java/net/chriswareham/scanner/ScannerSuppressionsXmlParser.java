@@ -3,9 +3,11 @@ package net.chriswareham.scanner;
 import java.io.File;
 import java.io.IOException;
 import java.io.Reader;
-import java.util.HashMap;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.List;
 import java.util.Set;
 
 import javax.xml.parsers.ParserConfigurationException;
@@ -18,7 +20,15 @@ import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
 /**
- * This class provides an XML parser for scanner suppressions.
+ * This class provides an XML parser for scanner suppressions. A suppression
+ * has either a {@code file} attribute, which is a path or a glob, or a
+ * {@code directory} attribute, which suppresses the matches in all the files
+ * beneath a directory. A file containing any of the characters {@code *?[{}
+ * is a glob, which is matched against file names if it does not contain a
+ * slash, or against the path relative to the base directory if it does. A
+ * suppression may have a {@code lines} attribute, which is a comma separated
+ * list of line numbers and ranges of line numbers such as {@code 10-20}, to
+ * only suppress the matches on those lines.
  */
 public class ScannerSuppressionsXmlParser {
     /**
@@ -28,9 +38,23 @@ public class ScannerSuppressionsXmlParser {
      * @return the scanner suppressions parsed from the XML input stream
      * @throws IOException if an error occurs
      */
-    public Map<File, Set<String>> parse(final Reader xml) throws IOException {
+    public List<ScannerSuppression> parse(final Reader xml) throws IOException {
+        return parse(xml, null);
+    }
+
+    /**
+     * Parse scanner suppressions from an XML input stream, resolving the
+     * relative paths of the suppressed files against a base directory.
+     *
+     * @param xml the XML input stream to parse the scanner suppressions from
+     * @param baseDir the directory to resolve relative paths against, or null
+     * to resolve them against the working directory
+     * @return the scanner suppressions parsed from the XML input stream
+     * @throws IOException if an error occurs
+     */
+    public List<ScannerSuppression> parse(final Reader xml, final File baseDir) throws IOException {
         try {
-            ScannerSuppressionsHandler handler = new ScannerSuppressionsHandler();
+            ScannerSuppressionsHandler handler = new ScannerSuppressionsHandler(baseDir);
 
             SAXParserFactory parserFactory = SAXParserFactory.newInstance();
             SAXParser parser = parserFactory.newSAXParser();
@@ -61,6 +85,21 @@ public class ScannerSuppressionsXmlParser {
          */
         private static final String FILE = "file";
 
+        /**
+         * The directory attribute.
+         */
+        private static final String DIRECTORY = "directory";
+
+        /**
+         * The lines attribute.
+         */
+        private static final String LINES = "lines";
+
+        /**
+         * The characters that make a file a glob.
+         */
+        private static final String GLOB_CHARACTERS = "*?[{";
+
         /**
          * The pattern element.
          */
@@ -72,26 +111,49 @@ public class ScannerSuppressionsXmlParser {
         private static final String NAME = "name";
 
         /**
-         * The current file.
+         * The directory to resolve relative paths against, or null to resolve
+         * them against the working directory.
          */
-        private File file;
+        private final File baseDir;
 
         /**
-         * The current pattern names.
+         * The current file, directory or glob, as it is described in error
+         * messages.
          */
-        private Set<String> names;
+        private String target;
+
+        /**
+         * The current suppression.
+         */
+        private ScannerSuppression suppression;
+
+        /**
+         * The current suppressions, as their targets and lines attributes,
+         * to detect duplicates.
+         */
+        private Set<String> targets;
 
         /**
          * The parsed scanner suppressions.
          */
-        private Map<File, Set<String>> suppressions;
+        private List<ScannerSuppression> suppressions;
+
+        /**
+         * Construct an instance of a handler for parsing suppression patterns.
+         *
+         * @param baseDir the directory to resolve relative paths against, or
+         * null to resolve them against the working directory
+         */
+        ScannerSuppressionsHandler(final File baseDir) {
+            this.baseDir = baseDir;
+        }
 
         /**
          * Get the parsed scanner suppressions.
          *
-         * @return the parsed scanner patterns
+         * @return the parsed scanner suppressions
          */
-        public Map<File, Set<String>> getSuppressions() {
+        public List<ScannerSuppression> getSuppressions() {
             return suppressions;
         }
 
@@ -100,7 +162,8 @@ public class ScannerSuppressionsXmlParser {
          */
         @Override
         public void startDocument() throws SAXException {
-            suppressions = new HashMap<>();
+            suppressions = new ArrayList<>();
+            targets = new HashSet<>();
         }
 
         /**
@@ -122,25 +185,16 @@ public class ScannerSuppressionsXmlParser {
             case SUPPRESSIONS:
                 break;
             case SUPPRESSION:
-                String fileName = atts.getValue(FILE);
-                if (fileName == null || fileName.isBlank()) {
-                    throw new SAXException("Missing file attribute");
-                }
-                file = new File(fileName).getAbsoluteFile();
-                if (suppressions.containsKey(file)) {
-                    throw new SAXException("Duplicate file '" + file + "'");
-                }
-                suppressions.put(file, names = new HashSet<>());
+                suppression = parseSuppression(atts);
                 break;
             case PATTERN:
                 String name = atts.getValue(NAME);
                 if (name == null || name.isBlank()) {
-                    throw new SAXException("Missing pattern name attribute for file '" + file + "'");
+                    throw new SAXException("Missing pattern name attribute for " + target);
                 }
-                if (names.contains(name)) {
-                    throw new SAXException("Duplicate pattern name '" + name + "' for file '" + file + "'");
+                if (!suppression.getNames().add(name)) {
+                    throw new SAXException("Duplicate pattern name '" + name + "' for " + target);
                 }
-                names.add(name);
                 break;
             default:
                 throw new SAXException("Invalid element '" + qName + "'");
@@ -156,9 +210,10 @@ public class ScannerSuppressionsXmlParser {
             case SUPPRESSIONS:
                 break;
             case SUPPRESSION:
-                if (names.isEmpty()) {
-                    throw new SAXException("No suppressions for file '" + file + "'");
+                if (suppression.getNames().isEmpty()) {
+                    throw new SAXException("No suppressions for " + target);
                 }
+                suppressions.add(suppression);
                 break;
             case PATTERN:
                 break;
@@ -166,5 +221,136 @@ public class ScannerSuppressionsXmlParser {
                 throw new SAXException("Invalid element '" + qName + "'");
             }
         }
+
+        /**
+         * Parse the attributes of a suppression.
+         *
+         * @param atts the attributes of the suppression
+         * @return the suppression, without any pattern names
+         * @throws SAXException if the attributes are invalid
+         */
+        private ScannerSuppression parseSuppression(final Attributes atts) throws SAXException {
+            String fileName = atts.getValue(FILE);
+            String dirName = atts.getValue(DIRECTORY);
+            boolean hasFile = fileName != null && !fileName.isBlank();
+            boolean hasDir = dirName != null && !dirName.isBlank();
+            if (hasFile == hasDir) {
+                throw new SAXException(hasFile ? "Both file and directory attributes" : "Missing file attribute");
+            }
+
+            String lines = atts.getValue(LINES);
+            int[] ranges = lines != null ? parseLines(lines) : new int[0];
+
+            ScannerSuppression result;
+            if (hasDir) {
+                target = "directory '" + resolve(dirName) + "'";
+                result = new ScannerSuppression(ScannerSuppression.Kind.DIRECTORY, resolve(dirName), null, new HashSet<>(), ranges);
+            } else if (!isGlob(fileName)) {
+                target = "file '" + resolve(fileName) + "'";
+                result = new ScannerSuppression(ScannerSuppression.Kind.FILE, resolve(fileName), null, new HashSet<>(), ranges);
+            } else {
+                target = "file '" + fileName + "'";
+                result = parseGlob(fileName, ranges);
+            }
+
+            if (!targets.add(target + (lines != null ? " lines '" + lines + "'" : ""))) {
+                throw new SAXException("Duplicate suppression for " + target);
+            }
+            return result;
+        }
+
+        /**
+         * Parse a glob suppression, splitting the leading segments of the
+         * glob without glob characters from it, so that they can be looked up
+         * as a directory.
+         *
+         * @param glob the glob
+         * @param ranges the suppressed ranges of lines
+         * @return the suppression, without any pattern names
+         * @throws SAXException if the glob is invalid
+         */
+        private ScannerSuppression parseGlob(final String glob, final int[] ranges) throws SAXException {
+            int slash = glob.lastIndexOf('/');
+            if (slash < 0) {
+                checkGlob(glob, glob);
+                return new ScannerSuppression(ScannerSuppression.Kind.NAME_GLOB, resolve(""), glob, new HashSet<>(), ranges);
+            }
+
+            int end = 0;
+            for (int next = glob.indexOf('/', 1); next >= 0 && !isGlob(glob.substring(end, next)); next = glob.indexOf('/', next + 1)) {
+                end = next;
+            }
+            String dirName = end > 0 ? glob.substring(0, end) : glob.startsWith("/") ? "/" : "";
+            String rest = glob.substring(end).replaceFirst("^/+", "");
+            checkGlob(glob, rest);
+            return new ScannerSuppression(ScannerSuppression.Kind.PATH_GLOB, resolve(dirName), rest, new HashSet<>(), ranges);
+        }
+
+        /**
+         * Check that a glob is valid.
+         *
+         * @param glob the glob of the suppression
+         * @param pattern the part of the glob that is matched
+         * @throws SAXException if the glob is invalid
+         */
+        private void checkGlob(final String glob, final String pattern) throws SAXException {
+            try {
+                FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+            } catch (IllegalArgumentException exception) {
+                throw new SAXException("Invalid glob '" + glob + "'");
+            }
+        }
+
+        /**
+         * Resolve a path against the base directory.
+         *
+         * @param name the path
+         * @return the absolute and normalized path
+         */
+        private Path resolve(final String name) {
+            File file = new File(name);
+            if (baseDir != null && !file.isAbsolute()) {
+                file = new File(baseDir, name);
+            }
+            return file.getAbsoluteFile().toPath().normalize();
+        }
+
+        /**
+         * Parse the suppressed ranges of lines.
+         *
+         * @param lines the comma separated line numbers and ranges of line
+         * numbers
+         * @return the suppressed ranges of lines, as pairs of the first and
+         * last line of each range
+         * @throws SAXException if the lines are invalid
+         */
+        private static int[] parseLines(final String lines) throws SAXException {
+            String[] parts = lines.split(",");
+            int[] ranges = new int[parts.length * 2];
+            try {
+                for (int i = 0; i < parts.length; ++i) {
+                    String part = parts[i].trim();
+                    int dash = part.indexOf('-');
+                    ranges[i * 2] = Integer.parseInt(dash < 0 ? part : part.substring(0, dash).trim());
+                    ranges[i * 2 + 1] = dash < 0 ? ranges[i * 2] : Integer.parseInt(part.substring(dash + 1).trim());
+                    if (ranges[i * 2] < 1 || ranges[i * 2 + 1] < ranges[i * 2]) {
+                        throw new SAXException("Invalid lines attribute '" + lines + "'");
+                    }
+                }
+            } catch (NumberFormatException exception) {
+                throw new SAXException("Invalid lines attribute '" + lines + "'");
+            }
+            return ranges;
+        }
+
+        /**
+         * Get whether a file is a glob.
+         *
+         * @param name the file
+         * @return whether the file is a glob
+         */
+        private static boolean isGlob(final String name) {
+            return name.chars().anyMatch(c -> GLOB_CHARACTERS.indexOf(c) >= 0);
+        }
     }
 }
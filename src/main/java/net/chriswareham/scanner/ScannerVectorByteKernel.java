@@ -0,0 +1,120 @@
+package net.chriswareham.scanner;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * This class implements a byte kernel with the incubating vector API, which
+ * tests as many bytes at once as the widest vector the hardware supports,
+ * such as 32 bytes with AVX2 or 64 bytes with AVX-512. Membership of a set is
+ * tested with the nibble tables of the set, and any bytes left over at the
+ * end of a range are loaded with a mask, so short lines are tested at once.
+ * This class must only be loaded once the {@code jdk.incubator.vector} module
+ * is known to be present, which {@link ScannerByteKernels} checks. This class
+ * is thread safe.
+ */
+final class ScannerVectorByteKernel implements ScannerByteKernel {
+    /**
+     * The species of the vectors, which is the widest the hardware supports.
+     */
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    /**
+     * The minimum number of lanes for the nibble table lookups, which index
+     * sixteen lanes.
+     */
+    private static final int MIN_LANES = 16;
+
+    /**
+     * Construct an instance of a vector byte kernel.
+     *
+     * @throws UnsupportedOperationException if the vectors are too narrow
+     */
+    ScannerVectorByteKernel() {
+        if (SPECIES.length() < MIN_LANES) {
+            throw new UnsupportedOperationException("Vectors of " + SPECIES.length() + " bytes are too narrow");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return "vector (" + SPECIES.vectorBitSize() + " bit)";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int indexOfLineTerminator(final byte[] bytes, final int from, final int to) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            ByteVector vector = ByteVector.fromArray(SPECIES, bytes, i);
+            VectorMask<Byte> terminators = vector.eq((byte) '\n').or(vector.eq((byte) '\r'));
+            if (terminators.anyTrue()) {
+                return i + terminators.firstTrue();
+            }
+        }
+        if (i < to) {
+            VectorMask<Byte> range = SPECIES.indexInRange(i, to);
+            ByteVector vector = ByteVector.fromArray(SPECIES, bytes, i, range);
+            VectorMask<Byte> terminators = vector.eq((byte) '\n').or(vector.eq((byte) '\r')).and(range);
+            if (terminators.anyTrue()) {
+                return i + terminators.firstTrue();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isAscii(final byte[] bytes, final int from, final int to) {
+        int i = from;
+        ByteVector bits = ByteVector.zero(SPECIES);
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            bits = bits.or(ByteVector.fromArray(SPECIES, bytes, i));
+        }
+        if (i < to) {
+            bits = bits.or(ByteVector.fromArray(SPECIES, bytes, i, SPECIES.indexInRange(i, to)));
+        }
+        return !bits.compare(VectorOperators.LT, (byte) 0).anyTrue();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsAny(final byte[] bytes, final int from, final int to, final ScannerByteSet set) {
+        ByteVector lowNibbles = ByteVector.fromArray(SPECIES, set.getLowNibbles(), 0);
+        ByteVector highNibbles = ByteVector.fromArray(SPECIES, set.getHighNibbles(), 0);
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            if (containsAny(ByteVector.fromArray(SPECIES, bytes, i), lowNibbles, highNibbles)) {
+                return true;
+            }
+        }
+        return i < to && containsAny(ByteVector.fromArray(SPECIES, bytes, i, SPECIES.indexInRange(i, to)), lowNibbles, highNibbles);
+    }
+
+    /**
+     * Get whether a vector contains any member of a set. The lanes of a
+     * vector loaded with a mask are zero where the mask is not set, and zero
+     * is never a member of a set.
+     *
+     * @param vector the vector
+     * @param lowNibbles the vector of the low nibble table of the set
+     * @param highNibbles the vector of the high nibble table of the set
+     * @return whether the vector contains any member of the set
+     */
+    private static boolean containsAny(final ByteVector vector, final ByteVector lowNibbles, final ByteVector highNibbles) {
+        ByteVector low = vector.and((byte) 0x0F).selectFrom(lowNibbles);
+        ByteVector high = vector.lanewise(VectorOperators.LSHR, 4).and((byte) 0x0F).selectFrom(highNibbles);
+        return low.and(high).compare(VectorOperators.NE, (byte) 0).anyTrue();
+    }
+}
@@ -0,0 +1,80 @@
+package net.chriswareham.scanner;
+
+import java.io.File;
+
+/**
+ * This class describes a scanner warning, for a file that was skipped or was
+ * not scanned in full.
+ */
+public class ScannerWarning {
+    /**
+     * The file that the warning is for.
+     */
+    private final File file;
+
+    /**
+     * The line number that the warning is for, or zero if the warning is for
+     * the whole file.
+     */
+    private final int line;
+
+    /**
+     * The warning message.
+     */
+    private final String message;
+
+    /**
+     * Construct an instance of a scanner warning.
+     *
+     * @param file the file that the warning is for
+     * @param line the line number that the warning is for, or zero if the
+     * warning is for the whole file
+     * @param message the warning message
+     */
+    public ScannerWarning(final File file, final int line, final String message) {
+        this.file = file;
+        this.line = line;
+        this.message = message;
+    }
+
+    /**
+     * Get the file that the warning is for.
+     *
+     * @return the file that the warning is for
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Get the line number that the warning is for.
+     *
+     * @return the line number that the warning is for, or zero if the warning
+     * is for the whole file
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Get the warning message.
+     *
+     * @return the warning message
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Get a description of the scanner warning.
+     *
+     * @return a description of the scanner warning
+     */
+    @Override
+    public String toString() {
+        if (line == 0) {
+            return String.format("File %s %s", file, message);
+        }
+        return String.format("File %s line %d %s", file, line, message);
+    }
+}
@@ -0,0 +1,288 @@
+package net.chriswareham.scanner;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class implements a matcher that runs each pattern once over the whole
+ * content of a file, rather than once per line, so that patterns can match
+ * across lines, such as the blocks of PEM private keys. The patterns are
+ * compiled with the multiline flag, so {@code ^} and {@code $} still match at
+ * the lines of the file. Each thread reuses a {@link Matcher} for each
+ * pattern, resetting it for each file. The offsets of matches are only
+ * resolved to line and column numbers when a file has a match, with an index
+ * of its lines that is built then. The prefilter, static analysis and
+ * keywords are applied to the whole file, with the keywords and suppressions
+ * then checked against the line of each match. This class is thread safe.
+ */
+public class ScannerWholeFileMatcher {
+    /**
+     * The order of matches within a file, which is by line, then by pattern
+     * and then by column, as it is when a file is matched line by line.
+     */
+    private static final Comparator<ScannerMatch> MATCH_ORDER = Comparator.comparingInt(ScannerMatch::getLine)
+        .thenComparingInt(ScannerMatch::getPattern)
+        .thenComparingInt(ScannerMatch::getColumn);
+
+    /**
+     * The scanner context.
+     */
+    private final ScannerContext context;
+
+    /**
+     * The state of the matcher for each thread.
+     */
+    private final ThreadLocal<State> states;
+
+    /**
+     * Construct an instance of a whole file matcher.
+     *
+     * @param context the scanner context
+     */
+    public ScannerWholeFileMatcher(final ScannerContext context) {
+        this.context = context;
+        this.states = ThreadLocal.withInitial(() -> new State(context.getPatterns().size()));
+    }
+
+    /**
+     * Match the scanner patterns against the whole content of a file, adding
+     * the matches in order of line, then of pattern and then of column.
+     *
+     * @param file the file
+     * @param active the ids of the patterns that apply to the file
+     * @param content the content of the file
+     * @param matches the list to add the matches to
+     * @param warnings the list to add warnings for the file to
+     */
+    public void match(final File file, final BitSet active, final CharSequence content, final List<ScannerMatch> matches, final List<ScannerWarning> warnings) {
+        ScannerPatternSet patternSet = context.getPatternSet();
+        List<ScannerPattern> patterns = patternSet.getPatterns();
+        ScannerPrefilter prefilter = patternSet.getPrefilter();
+        ScannerMatchGuard guard = context.getGuard();
+        ScannerStatistics.Recorder recorder = context.getStatistics() != null ? context.getStatistics().recorder() : null;
+        State state = states.get();
+
+        if (!prefilter.isEmpty()) {
+            state.candidates.clear();
+            prefilter.match(content, state.candidates);
+        }
+        if (patternSet.hasFirstChars()) {
+            state.contentChars.reset(content);
+        }
+        ScannerBudgetedSequence budgeted = guard.newSequence(content);
+        if (recorder != null) {
+            recorder.file();
+        }
+
+        Resolver resolver = new Resolver(context.getSuppressions(file), prefilter, content, state);
+        int first = matches.size();
+
+        for (int i = 0; i < patterns.size(); ++i) {
+            ScannerPattern pattern = patterns.get(i);
+
+            if (!active.get(i) || !prefilter.isCandidate(i, state.candidates) || !pattern.getAnalysis().isPossible(content, state.contentChars) || guard.isDisabled(i)) {
+                continue;
+            }
+
+            long start = recorder != null ? recorder.start() : 0L;
+            int count = matches.size();
+
+            if (pattern.getDetector() != null) {
+                state.offsets.clear();
+                pattern.getDetector().find(i, content, 0, state.offsets, state.histogram);
+                for (ScannerMatch offset : state.offsets) {
+                    resolver.add(i, offset.getColumn(), matches);
+                }
+            } else if (!find(i, pattern.getMultilinePattern(), content, budgeted, resolver, state, matches)) {
+                guard.timeout(pattern, i, file, 0, warnings);
+            }
+
+            if (recorder != null) {
+                recorder.stop(i, start, matches.size() - count);
+            }
+        }
+
+        matches.subList(first, matches.size()).sort(MATCH_ORDER);
+    }
+
+    /**
+     * Find the matches of a pattern in the content of a file, within the
+     * budget of a budgeted character sequence. The matches found before the
+     * budget is exceeded are kept.
+     *
+     * @param id the id of the pattern
+     * @param pattern the pattern, compiled with the multiline flag
+     * @param content the content of the file
+     * @param budgeted the budgeted character sequence to wrap the content in,
+     * or null if there is no budget
+     * @param resolver the resolver of the offsets of matches
+     * @param state the state of the matcher for the current thread
+     * @param matches the list to add the matches to
+     * @return whether the pattern finished within the budget
+     */
+    private static boolean find(
+        final int id,
+        final Pattern pattern,
+        final CharSequence content,
+        final ScannerBudgetedSequence budgeted,
+        final Resolver resolver,
+        final State state,
+        final List<ScannerMatch> matches
+    ) {
+        CharSequence input = budgeted != null ? budgeted.reset(content) : content;
+        Matcher matcher = state.matchers[id];
+        if (matcher == null) {
+            matcher = pattern.matcher(input);
+            state.matchers[id] = matcher;
+        } else {
+            matcher.reset(input);
+        }
+
+        try {
+            while (matcher.find()) {
+                resolver.add(id, matcher.start(), matches);
+            }
+            return true;
+        } catch (ScannerBudgetedSequence.BudgetExceededException exception) {
+            return false;
+        } finally {
+            matcher.reset("");
+        }
+    }
+
+    /**
+     * This class resolves the offsets of matches in the content of a file to
+     * line and column numbers, indexing the lines of the file the first time
+     * a match is found, and drops the matches that are suppressed or are on a
+     * line without a keyword of their pattern.
+     */
+    private static final class Resolver {
+        /**
+         * The scanner suppressions for the file.
+         */
+        private final ScannerFileSuppressions suppressions;
+
+        /**
+         * The prefilter, for the keywords of the patterns.
+         */
+        private final ScannerPrefilter prefilter;
+
+        /**
+         * The content of the file.
+         */
+        private final CharSequence content;
+
+        /**
+         * The state of the matcher for the current thread.
+         */
+        private final State state;
+
+        /**
+         * The index of the lines of the file, or null if it has not been
+         * built.
+         */
+        private ScannerLineIndex index;
+
+        /**
+         * The line that the prefilter last matched, or zero if none.
+         */
+        private int keywordLine;
+
+        /**
+         * Construct an instance of a resolver.
+         *
+         * @param suppressions the scanner suppressions for the file
+         * @param prefilter the prefilter, for the keywords of the patterns
+         * @param content the content of the file
+         * @param state the state of the matcher for the current thread
+         */
+        private Resolver(final ScannerFileSuppressions suppressions, final ScannerPrefilter prefilter, final CharSequence content, final State state) {
+            this.suppressions = suppressions;
+            this.prefilter = prefilter;
+            this.content = content;
+            this.state = state;
+        }
+
+        /**
+         * Resolve the offset of a match and add it, unless it is suppressed
+         * or is on a line without a keyword of its pattern.
+         *
+         * @param id the id of the pattern
+         * @param offset the offset of the match in the content of the file
+         * @param matches the list to add the match to
+         */
+        private void add(final int id, final int offset, final List<ScannerMatch> matches) {
+            if (index == null) {
+                index = new ScannerLineIndex(content);
+            }
+            int line = index.getLine(offset);
+            if (suppressions.isSuppressed(id, line)) {
+                return;
+            }
+            if (prefilter.hasKeywords(id)) {
+                if (keywordLine != line) {
+                    state.lineCandidates.clear();
+                    prefilter.match(content.subSequence(index.getStart(line), index.getEnd(line)), state.lineCandidates);
+                    keywordLine = line;
+                }
+                if (!prefilter.hasKeyword(id, state.lineCandidates)) {
+                    return;
+                }
+            }
+            matches.add(new ScannerMatch(id, line, offset - index.getStart(line)));
+        }
+    }
+
+    /**
+     * This class describes the state of the matcher for a thread.
+     */
+    private static final class State {
+        /**
+         * The matchers for the patterns, indexed by pattern id, which are
+         * created the first time they are needed.
+         */
+        private final Matcher[] matchers;
+
+        /**
+         * The patterns that the prefilter matched the content of a file into.
+         */
+        private final BitSet candidates;
+
+        /**
+         * The patterns that the prefilter matched a line into.
+         */
+        private final BitSet lineCandidates;
+
+        /**
+         * The mask of the characters of the content of a file.
+         */
+        private final ScannerCharMask contentChars = new ScannerCharMask();
+
+        /**
+         * The histogram for the detectors of high entropy strings.
+         */
+        private final int[] histogram = ScannerEntropyDetector.newHistogram();
+
+        /**
+         * The matches of a detector of high entropy strings, with offsets as
+         * their columns.
+         */
+        private final List<ScannerMatch> offsets = new ArrayList<>();
+
+        /**
+         * Construct an instance of the state of the matcher for a thread.
+         *
+         * @param patternCount the number of patterns
+         */
+        private State(final int patternCount) {
+            matchers = new Matcher[patternCount];
+            candidates = new BitSet(patternCount * 2);
+            lineCandidates = new BitSet(patternCount * 2);
+        }
+    }
+}
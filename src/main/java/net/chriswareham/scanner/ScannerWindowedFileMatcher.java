@@ -0,0 +1,111 @@
+package net.chriswareham.scanner;
+
+import java.util.List;
+
+/**
+ * This class implements a file matcher that bounds the length of the text
+ * that the patterns are run against. A line longer than the maximum is
+ * matched in overlapping windows, each of which owns the matches that start
+ * in it before the overlap, so that a match no longer than the overlap is
+ * found exactly once. Each window is matched as a region of the whole line,
+ * so anchors and word boundaries see the characters around the window rather
+ * than a start or end of input at its edges. Longer matches that cross a
+ * window boundary may be missed, so the lines matched in windows are counted
+ * for reporting.
+ */
+public class ScannerWindowedFileMatcher implements ScannerFileMatcher {
+    /**
+     * The maximum overlap between windows.
+     */
+    private static final int MAX_OVERLAP = 1024;
+
+    /**
+     * The file matcher to delegate to.
+     */
+    private final ScannerFileMatcher delegate;
+
+    /**
+     * The length of a window.
+     */
+    private final int window;
+
+    /**
+     * The distance between the starts of consecutive windows.
+     */
+    private final int step;
+
+    /**
+     * The number of lines matched in windows.
+     */
+    private int longLines;
+
+    /**
+     * The line number of the first line matched in windows.
+     */
+    private int firstLongLine;
+
+    /**
+     * Construct an instance of a file matcher that bounds the length of the
+     * text that the patterns are run against.
+     *
+     * @param delegate the file matcher to delegate to
+     * @param maxLineLength the maximum length of a line to match at once
+     */
+    public ScannerWindowedFileMatcher(final ScannerFileMatcher delegate, final int maxLineLength) {
+        this.delegate = delegate;
+        this.window = maxLineLength;
+        this.step = maxLineLength - Math.min(MAX_OVERLAP, maxLineLength / 2);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void match(final CharSequence line, final int start, final int end, final int lineNumber, final List<ScannerMatch> matches) {
+        if (end - start <= window) {
+            delegate.match(line, start, end, lineNumber, matches);
+            return;
+        }
+
+        if (longLines++ == 0) {
+            firstLongLine = lineNumber;
+        }
+
+        for (int from = start; from < end; from += step) {
+            int to = Math.min(from + window, end);
+            int owned = to == end ? to - from : step;
+            int first = matches.size();
+            delegate.match(line, from, to, lineNumber, matches);
+            int kept = first;
+            for (int i = first; i < matches.size(); ++i) {
+                ScannerMatch match = matches.get(i);
+                if (match.getColumn() - from < owned) {
+                    matches.set(kept++, match);
+                }
+            }
+            matches.subList(kept, matches.size()).clear();
+            if (to == end) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Get the number of lines matched in windows.
+     *
+     * @return the number of lines matched in windows
+     */
+    public int getLongLines() {
+        return longLines;
+    }
+
+    /**
+     * Get the line number of the first line matched in windows.
+     *
+     * @return the line number of the first line matched in windows, or zero
+     * if no lines were matched in windows
+     */
+    public int getFirstLongLine() {
+        return firstLongLine;
+    }
+}
@@ -0,0 +1,166 @@
+package net.chriswareham.scanner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests the combined automaton and the prefilter against
+ * {@link java.util.regex.Pattern}, by matching random text with a set of
+ * patterns that covers the syntax the automaton supports.
+ */
+public class ScannerAutomatonTest {
+    /**
+     * The patterns to test.
+     */
+    private static final String[] REGEXES = {
+        "abc",
+        "a|b|ab",
+        "ab|a",
+        "a*",
+        "a+b",
+        "a*?b",
+        "a+?",
+        "(ab)+",
+        "(?:a|b)*c",
+        "a{2}",
+        "a{1,3}",
+        "a{2,}",
+        "a{0,2}?b",
+        "[a-c]+",
+        "[^ab]+",
+        "\\d+",
+        "\\w+",
+        "\\s+",
+        "\\S+=\\S+",
+        "[\\w.]+",
+        ".b.",
+        "^a",
+        "b$",
+        "^$",
+        "\\bab\\b",
+        "\\Bb",
+        "(?i)AB",
+        "(?i)[a-c]x",
+        "a(?i:B)c",
+        "\\x41|\\u0062",
+        "\\Qa.b\\E",
+        "\\Qab\\E{2}",
+        "\\Qxa\\E*b",
+        "\\Qa.\\E?b",
+        "a\\Q\\E+",
+        "\\0101|\\0141",
+        "\\0141\\Q1\\E",
+        "\\t|\\.",
+        "key\\s*[:=]\\s*\\S{3,}",
+        "(a|ab)(c|bcd)",
+        "((a)|b)*?c",
+        "x*",
+        "(?m)^b",
+        "(?m)a$",
+        "secret=[0-9a-f]{4}",
+    };
+
+    /**
+     * The characters of the random text.
+     */
+    private static final String ALPHABET = "aabbccxAB01 .=:\t_-k\u00e9\n";
+
+    /**
+     * The number of random texts.
+     */
+    private static final int TEXTS = 2000;
+
+    /**
+     * Test that the automaton finds the same matches as the Java regular
+     * expression engine, and that neither the automaton, the prefilter nor
+     * the static analysis rules out a pattern that matches.
+     */
+    @Test
+    public void testMatchesJavaRegex() {
+        List<ScannerPattern> patterns = new ArrayList<>();
+        List<Pattern> javaPatterns = new ArrayList<>();
+        for (String regex : REGEXES) {
+            patterns.add(pattern(patterns.size(), regex));
+            javaPatterns.add(Pattern.compile(regex));
+        }
+
+        ScannerAutomaton automaton = new ScannerAutomaton(patterns);
+        ScannerPrefilter prefilter = new ScannerPrefilter(patterns);
+        Random random = new Random(0x5CA77E4L);
+        BitSet detected = new BitSet();
+        BitSet candidates = new BitSet();
+        ScannerCharMask textChars = new ScannerCharMask();
+        int[] match = new int[2];
+
+        for (int t = 0; t < TEXTS; ++t) {
+            String text = randomText(random);
+            detected.clear();
+            automaton.detect(text, detected);
+            candidates.clear();
+            prefilter.match(text, candidates);
+            textChars.reset(text);
+
+            for (int i = 0; i < REGEXES.length; ++i) {
+                assertTrue(automaton.isCompiled(i), "Pattern " + REGEXES[i] + " is not compiled");
+
+                List<String> expected = new ArrayList<>();
+                Matcher matcher = javaPatterns.get(i).matcher(text);
+                while (matcher.find()) {
+                    expected.add(matcher.start() + "-" + matcher.end());
+                }
+
+                List<String> actual = new ArrayList<>();
+                int from = 0;
+                while (from <= text.length() && automaton.find(i, text, from, match)) {
+                    actual.add(match[0] + "-" + match[1]);
+                    from = match[1] == match[0] ? match[1] + 1 : match[1];
+                }
+
+                String message = "Pattern " + REGEXES[i] + " on '" + text + "'";
+                assertEquals(expected, actual, message);
+                if (!expected.isEmpty()) {
+                    assertTrue(detected.get(i), message + " is not detected");
+                    assertTrue(prefilter.isCandidate(i, candidates), message + " is filtered out");
+                    assertTrue(patterns.get(i).getAnalysis().isPossible(text, textChars), message + " is ruled out by analysis");
+                }
+            }
+        }
+    }
+
+    /**
+     * Create a scanner pattern for a regular expression, with its literals
+     * and static analysis.
+     *
+     * @param id the id of the pattern
+     * @param regex the regular expression
+     * @return the scanner pattern
+     */
+    private static ScannerPattern pattern(final int id, final String regex) {
+        ScannerRegexNode node = new ScannerRegexParser().parse(regex);
+        return new ScannerPattern(id, "pattern" + id, regex, List.of(), ScannerRegexLiterals.extract(node), List.of(), ScannerRegexAnalysis.analyse(node));
+    }
+
+    /**
+     * Generate random text from the alphabet.
+     *
+     * @param random the source of randomness
+     * @return the text
+     */
+    private static String randomText(final Random random) {
+        StringBuilder text = new StringBuilder();
+        int length = random.nextInt(24);
+        for (int i = 0; i < length; ++i) {
+            text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return text.toString();
+    }
+}
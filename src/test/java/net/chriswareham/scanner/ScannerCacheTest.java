@@ -0,0 +1,248 @@
+package net.chriswareham.scanner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * This class tests that the scanner cache round trips the matches and
+ * warnings for files, recognises unchanged files by their last modified time
+ * or content hash, and is discarded when its fingerprint changes or its file
+ * is truncated or corrupt.
+ */
+public class ScannerCacheTest {
+    /**
+     * The last modified time of the scanned files when they are first
+     * cached.
+     */
+    private static final long LAST_MODIFIED = 1_000_000L;
+
+    /**
+     * The temporary directory for the cache file and the scanned files.
+     */
+    @TempDir
+    Path dir;
+
+    /**
+     * Test that the matches and warnings for files round trip through the
+     * cache file.
+     *
+     * @throws IOException if an error occurs
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        File cacheFile = dir.resolve("cache.dat").toFile();
+        File a = write("a.properties", "password=secret\n");
+        File b = write("b.properties", "name=value\n");
+
+        ScannerCache cache = new ScannerCache(cacheFile, fingerprint("patterns"));
+        assertNull(cache.get(a, a.length(), LAST_MODIFIED), "Uncached file");
+        cache.put(a, a.length(), LAST_MODIFIED, List.of(new ScannerMatch(0, 1, 9), new ScannerMatch(2, 1, 0)), List.of(new ScannerWarning(a, 3, "warning")));
+        cache.put(b, b.length(), LAST_MODIFIED, List.of(), List.of());
+        cache.save(file -> false);
+
+        ScannerCache loaded = new ScannerCache(cacheFile, fingerprint("patterns"));
+        assertEquals("[0:1:9, 2:1:0]", describe(loaded.get(a, a.length(), LAST_MODIFIED)), "Matches of a");
+        List<ScannerWarning> warnings = loaded.getWarnings(a);
+        assertEquals(1, warnings.size(), "Warnings of a");
+        assertEquals(a, warnings.get(0).getFile(), "File of warning");
+        assertEquals(3, warnings.get(0).getLine(), "Line of warning");
+        assertEquals("warning", warnings.get(0).getMessage(), "Message of warning");
+        assertEquals("[]", describe(loaded.get(b, b.length(), LAST_MODIFIED)), "Matches of b");
+        assertEquals(List.of(), loaded.getWarnings(b), "Warnings of b");
+    }
+
+    /**
+     * Test that a file whose size changes is not cached, and that a file
+     * whose last modified time changes is only cached once its content hash
+     * is known and unchanged.
+     *
+     * @throws IOException if an error occurs
+     */
+    @Test
+    public void testChangedFiles() throws IOException {
+        File cacheFile = dir.resolve("cache.dat").toFile();
+        File a = write("a.properties", "password=secret\n");
+        byte[] fingerprint = fingerprint("patterns");
+
+        ScannerCache cache = new ScannerCache(cacheFile, fingerprint);
+        cache.put(a, a.length(), LAST_MODIFIED, List.of(new ScannerMatch(0, 1, 9)), List.of());
+        cache.save(file -> false);
+
+        cache = new ScannerCache(cacheFile, fingerprint);
+        assertNull(cache.get(a, a.length() + 1, LAST_MODIFIED), "File with a different size");
+        assertNull(cache.get(a, a.length(), LAST_MODIFIED + 1), "Touched file that was not hashed");
+        cache.put(a, a.length(), LAST_MODIFIED + 1, List.of(new ScannerMatch(0, 1, 9)), List.of());
+        cache.save(file -> false);
+
+        cache = new ScannerCache(cacheFile, fingerprint);
+        assertEquals("[0:1:9]", describe(cache.get(a, a.length(), LAST_MODIFIED + 2)), "Touched file with the same hash");
+        cache.save(file -> false);
+
+        write("a.properties", "password=changed\n");
+        cache = new ScannerCache(cacheFile, fingerprint);
+        assertNull(cache.get(a, a.length(), LAST_MODIFIED + 3), "Changed file with the same size");
+    }
+
+    /**
+     * Test that the entries for files that were not scanned are only kept
+     * if they are retained.
+     *
+     * @throws IOException if an error occurs
+     */
+    @Test
+    public void testRetain() throws IOException {
+        File cacheFile = dir.resolve("cache.dat").toFile();
+        File a = write("a.properties", "a=1\n");
+        File b = write("b.properties", "b=2\n");
+        byte[] fingerprint = fingerprint("patterns");
+
+        ScannerCache cache = new ScannerCache(cacheFile, fingerprint);
+        cache.put(a, a.length(), LAST_MODIFIED, List.of(new ScannerMatch(0, 1, 0)), List.of());
+        cache.put(b, b.length(), LAST_MODIFIED, List.of(new ScannerMatch(1, 1, 0)), List.of());
+        cache.save(file -> false);
+
+        new ScannerCache(cacheFile, fingerprint).save(file -> file.equals(a));
+
+        cache = new ScannerCache(cacheFile, fingerprint);
+        assertNotNull(cache.get(a, a.length(), LAST_MODIFIED), "Retained file");
+        assertNull(cache.get(b, b.length(), LAST_MODIFIED), "File that was not retained");
+    }
+
+    /**
+     * Test that the cache is discarded when the fingerprint changes.
+     *
+     * @throws IOException if an error occurs
+     */
+    @Test
+    public void testFingerprint() throws IOException {
+        File cacheFile = dir.resolve("cache.dat").toFile();
+        File a = write("a.properties", "password=secret\n");
+
+        ScannerCache cache = new ScannerCache(cacheFile, fingerprint("patterns"));
+        cache.put(a, a.length(), LAST_MODIFIED, List.of(new ScannerMatch(0, 1, 9)), List.of());
+        cache.save(file -> false);
+
+        assertNull(new ScannerCache(cacheFile, fingerprint("other patterns")).get(a, a.length(), LAST_MODIFIED), "Different patterns");
+        assertNull(new ScannerCache(cacheFile, fingerprint("patterns\nconfig")).get(a, a.length(), LAST_MODIFIED), "Different configuration");
+        assertNotNull(new ScannerCache(cacheFile, fingerprint("patterns")).get(a, a.length(), LAST_MODIFIED), "Same fingerprint");
+    }
+
+    /**
+     * Test that a truncated cache file is ignored, whatever its length.
+     *
+     * @throws IOException if an error occurs
+     */
+    @Test
+    public void testTruncated() throws IOException {
+        File cacheFile = dir.resolve("cache.dat").toFile();
+        File a = write("a.properties", "password=secret\n");
+        byte[] fingerprint = fingerprint("patterns");
+
+        ScannerCache cache = new ScannerCache(cacheFile, fingerprint);
+        cache.put(a, a.length(), LAST_MODIFIED, List.of(new ScannerMatch(0, 1, 9)), List.of(new ScannerWarning(a, 1, "warning")));
+        cache.save(file -> false);
+
+        byte[] content = Files.readAllBytes(cacheFile.toPath());
+        for (int length = 0; length < content.length; ++length) {
+            Files.write(cacheFile.toPath(), Arrays.copyOf(content, length));
+            assertNull(new ScannerCache(cacheFile, fingerprint).get(a, a.length(), LAST_MODIFIED), "Cache file truncated to " + length + " bytes");
+        }
+    }
+
+    /**
+     * Test that a corrupt cache file is ignored, including one with counts
+     * that are larger than the file could hold, and that it is replaced when
+     * the cache is saved.
+     *
+     * @throws IOException if an error occurs
+     */
+    @Test
+    public void testCorrupt() throws IOException {
+        File cacheFile = dir.resolve("cache.dat").toFile();
+        File a = write("a.properties", "password=secret\n");
+        byte[] fingerprint = fingerprint("patterns");
+
+        Files.write(cacheFile.toPath(), "not a cache file".getBytes(StandardCharsets.UTF_8));
+        assertNull(new ScannerCache(cacheFile, fingerprint).get(a, a.length(), LAST_MODIFIED), "Cache file that is not a cache file");
+
+        ScannerCache cache = new ScannerCache(cacheFile, fingerprint);
+        cache.put(a, a.length(), LAST_MODIFIED, List.of(new ScannerMatch(0, 1, 9)), List.of());
+        cache.save(file -> false);
+        byte[] content = Files.readAllBytes(cacheFile.toPath());
+
+        // the count of entries follows the magic number, version and fingerprint
+        int countOffset = 4 + 4 + 1 + fingerprint.length;
+        try (RandomAccessFile random = new RandomAccessFile(cacheFile, "rw")) {
+            random.seek(countOffset);
+            random.writeInt(Integer.MAX_VALUE);
+        }
+        assertNull(new ScannerCache(cacheFile, fingerprint).get(a, a.length(), LAST_MODIFIED), "Cache file with an invalid count of entries");
+
+        // the count of matches follows the path, size, last modified time and hash of the entry
+        int matchCountOffset = countOffset + 4 + 2 + a.getPath().getBytes(StandardCharsets.UTF_8).length + 8 + 8 + 1;
+        Files.write(cacheFile.toPath(), content);
+        try (RandomAccessFile random = new RandomAccessFile(cacheFile, "rw")) {
+            random.seek(matchCountOffset);
+            assertEquals(1, random.readInt(), "Count of matches");
+            random.seek(matchCountOffset);
+            random.writeInt(-1);
+        }
+        assertNull(new ScannerCache(cacheFile, fingerprint).get(a, a.length(), LAST_MODIFIED), "Cache file with a negative count of matches");
+
+        cache = new ScannerCache(cacheFile, fingerprint);
+        cache.put(a, a.length(), LAST_MODIFIED, List.of(new ScannerMatch(0, 1, 9)), List.of());
+        cache.save(file -> false);
+        assertEquals("[0:1:9]", describe(new ScannerCache(cacheFile, fingerprint).get(a, a.length(), LAST_MODIFIED)), "Replaced cache file");
+    }
+
+    /**
+     * Write a scanned file in the temporary directory.
+     *
+     * @param name the name of the file
+     * @param content the content of the file
+     * @return the file
+     * @throws IOException if an error occurs
+     */
+    private File write(final String name, final String content) throws IOException {
+        return Files.writeString(dir.resolve(name), content, StandardCharsets.UTF_8).toFile();
+    }
+
+    /**
+     * Compute a fingerprint.
+     *
+     * @param content the content to fingerprint
+     * @return the fingerprint
+     */
+    private static byte[] fingerprint(final String content) {
+        return ScannerCache.newDigest().digest(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Describe matches as the pattern id, line and column of each match.
+     *
+     * @param matches the matches, which may be null
+     * @return the description of the matches
+     */
+    private static String describe(final List<ScannerMatch> matches) {
+        assertNotNull(matches, "Cached matches");
+        List<String> descriptions = new ArrayList<>();
+        for (ScannerMatch match : matches) {
+            descriptions.add(match.getPattern() + ":" + match.getLine() + ":" + match.getColumn());
+        }
+        return descriptions.toString();
+    }
+}
@@ -0,0 +1,165 @@
+package net.chriswareham.scanner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * This class tests that scanning a file in line aligned segments finds the
+ * same matches, on the same line numbers, as scanning it line by line,
+ * whatever the segment size, so that lines that cross a target segment
+ * boundary and line terminators split by one are handled.
+ */
+public class ScannerFileSegmentTest {
+    /**
+     * The patterns to test.
+     */
+    private static final String[] REGEXES = {
+        "secret=\\w+",
+        "^key",
+        "end$",
+    };
+
+    /**
+     * The largest segment size to test.
+     */
+    private static final int MAX_SEGMENT_SIZE = 96;
+
+    /**
+     * The temporary directory for the scanned file.
+     */
+    @TempDir
+    Path dir;
+
+    /**
+     * Test that every segment size gives the same matches and line numbers
+     * as a line by line scan.
+     *
+     * @throws IOException if an error occurs
+     */
+    @Test
+    public void testMatchesLineByLine() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 20; ++i) {
+            content.append("key line ").append(i).append(" secret=s").append(i).append(i % 3 == 0 ? "\r\n" : i % 3 == 1 ? "\n" : "\r");
+            if (i % 7 == 3) {
+                content.append("a long line ").append("x".repeat(150)).append(" secret=long").append(i).append(" end\n");
+            }
+            if (i % 5 == 2) {
+                content.append("\n\r\n\r");
+            }
+        }
+        content.append("the last line is not terminated secret=last end");
+        ScannerFileMatcher matcher = newMatcher();
+        File file = Files.writeString(dir.resolve("test.properties"), content, StandardCharsets.UTF_8).toFile();
+
+        List<String> expected;
+        int expectedLines = 0;
+        try (BufferedReader reader = new BufferedReader(new StringReader(content.toString()))) {
+            List<ScannerMatch> matches = new ArrayList<>();
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                matcher.match(line, ++expectedLines, matches);
+            }
+            expected = describe(matches);
+        }
+        assertTrue(expected.size() > 40, "Matches of a line by line scan");
+
+        for (int segmentSize = 1; segmentSize <= MAX_SEGMENT_SIZE; ++segmentSize) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                List<ScannerFileSegment> segments = ScannerFileSegment.split(channel, segmentSize);
+                assertTrue(segments.size() > 1, "Segments of size " + segmentSize);
+
+                int lines = ScannerFileSegment.numberLines(segments);
+                assertEquals(expectedLines, lines, "Lines in segments of size " + segmentSize);
+
+                long start = 0L;
+                List<ScannerMatch> matches = new ArrayList<>();
+                for (ScannerFileSegment segment : segments) {
+                    assertEquals(start, segment.getStart(), "Start of segment with size " + segmentSize);
+                    start += segment.getBuffer().limit();
+                    int read = new ScannerMappedLineReader(segment.getBuffer(), StandardCharsets.UTF_8, ScannerByteKernels.get(false), null, 0)
+                        .read(segment.getFirstLine(), matcher, matches);
+                    assertEquals(segment.getLineCount(), read, "Lines read from segment at " + segment.getStart() + " with size " + segmentSize);
+                }
+                assertEquals(file.length(), start, "Size of segments with size " + segmentSize);
+                assertEquals(expected, describe(matches), "Matches in segments of size " + segmentSize);
+            }
+        }
+    }
+
+    /**
+     * Test that a carriage return and line feed are never split between
+     * segments, so each is counted as a single line terminator.
+     *
+     * @throws IOException if an error occurs
+     */
+    @Test
+    public void testCarriageReturnLineFeed() throws IOException {
+        File file = Files.writeString(dir.resolve("crlf.properties"), "abc\r\ndef\r\n\r\nghi", StandardCharsets.UTF_8).toFile();
+        for (int segmentSize = 1; segmentSize <= 8; ++segmentSize) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                List<ScannerFileSegment> segments = ScannerFileSegment.split(channel, segmentSize);
+                assertEquals(4, ScannerFileSegment.numberLines(segments), "Lines in segments of size " + segmentSize);
+                for (ScannerFileSegment segment : segments) {
+                    assertTrue(segment.getBuffer().limit() > 0, "Empty segment at " + segment.getStart());
+                    assertTrue(segment.getBuffer().get(0) != '\n', "Segment at " + segment.getStart() + " starts with a line feed");
+                }
+            }
+        }
+    }
+
+    /**
+     * Create a file matcher for the patterns.
+     *
+     * @return the file matcher
+     */
+    private static ScannerFileMatcher newMatcher() {
+        List<ScannerPattern> patterns = new ArrayList<>();
+        for (String regex : REGEXES) {
+            ScannerRegexNode node = new ScannerRegexParser().parse(regex);
+            patterns.add(new ScannerPattern(patterns.size(), "pattern" + patterns.size(), regex, List.of(), ScannerRegexLiterals.extract(node), List.of(), ScannerRegexAnalysis.analyse(node)));
+        }
+        ScannerContext context = new ScannerContext(
+            "UTF-8",
+            ScannerOutputFormat.PLAIN,
+            ScannerEngine.REGEX,
+            new ScannerFileFilter(List.of(), List.of()),
+            List.of(),
+            new ScannerPatternSet(patterns),
+            List.of(),
+            new ScannerMatchGuard(patterns.size(), 0L, false),
+            null);
+        BitSet active = new BitSet();
+        active.set(0, patterns.size());
+        return context.getMatcher().forFile(new File("test.properties"), active, new ArrayList<>());
+    }
+
+    /**
+     * Describe matches as the pattern id, line and column of each match.
+     *
+     * @param matches the matches
+     * @return the descriptions of the matches
+     */
+    private static List<String> describe(final List<ScannerMatch> matches) {
+        List<String> descriptions = new ArrayList<>();
+        for (ScannerMatch match : matches) {
+            descriptions.add(match.getPattern() + ":" + match.getLine() + ":" + match.getColumn());
+        }
+        return descriptions;
+    }
+}
@@ -0,0 +1,130 @@
+package net.chriswareham.scanner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that the regular expression parser rejects the syntax
+ * that {@link java.util.regex.Pattern} rejects, so that a pattern is never
+ * accepted by the parser and then found to be invalid when it is compiled.
+ */
+public class ScannerRegexParserTest {
+    /**
+     * Regular expressions that Java rejects.
+     */
+    private static final String[] INVALID = {
+        "a{2,1}",
+        "[z-a]",
+        "a{-1}",
+        "a{+2}",
+        "a{,3}",
+        "a{1,2,3}",
+        "a{1, 2}",
+        "a{x}",
+        "(a",
+        "a)",
+        "[a",
+        "*a",
+        "a|+",
+        "\\",
+        "\\x4",
+        "\\u00g1",
+        "(?<1a>b)",
+        "\\0\\Q1\\E",
+        "a*\\Q\\E*",
+    };
+
+    /**
+     * Regular expressions that Java accepts.
+     */
+    private static final String[] VALID = {
+        "a{2,}",
+        "a{0}",
+        "a{1,1}",
+        "[a-a]",
+        "[-a]",
+        "[a-]",
+        "(?<name>b)",
+        "\\x41\\u0042",
+        "\\Qab\\E{2}",
+        "\\Qab\\E*",
+        "\\Qab\\E?",
+        "a\\Q\\E*",
+        "[\\Q]-\\E]",
+        "\\0101",
+    };
+
+    /**
+     * Regular expressions with the minimum and maximum lengths of their
+     * matches.
+     */
+    private static final Object[][] LENGTHS = {
+        {"\\Qab\\E{2}", 3, 3},
+        {"\\Qab\\E*", 1, ScannerRegexAnalysis.UNBOUNDED},
+        {"\\Qab\\E?", 1, 2},
+        {"a\\Q\\E{3}", 3, 3},
+        {"\\Q\\E", 0, 0},
+        {"\\Qa\\E\\Q\\E", 1, 1},
+        {"\\Qab", 2, 2},
+        {"\\0101", 1, 1},
+        {"\\0377", 1, 1},
+        {"\\0400", 2, 2},
+        {"\\01\\Q1\\E", 2, 2},
+    };
+
+    /**
+     * Test that the parser rejects what Java rejects.
+     */
+    @Test
+    public void testRejectsInvalidSyntax() {
+        for (String regex : INVALID) {
+            assertThrows(PatternSyntaxException.class, () -> Pattern.compile(regex), regex);
+            assertThrows(IllegalArgumentException.class, () -> new ScannerRegexParser().parse(regex), regex);
+        }
+    }
+
+    /**
+     * Test that quoted sequences and octal escapes are parsed as Java parses
+     * them, so that a quantifier following a quoted sequence only applies to
+     * its last character and an octal escape only takes a third digit when
+     * the first digit is at most 3.
+     */
+    @Test
+    public void testMatchLengths() {
+        for (Object[] length : LENGTHS) {
+            String regex = (String) length[0];
+            ScannerRegexAnalysis analysis = ScannerRegexAnalysis.analyse(new ScannerRegexParser().parse(regex));
+            assertEquals(length[1], analysis.getMinLength(), regex + " minimum length");
+            assertEquals(length[2], analysis.getMaxLength(), regex + " maximum length");
+        }
+    }
+
+    /**
+     * Test that an octal escape with three digits is parsed as a single
+     * character.
+     */
+    @Test
+    public void testOctalEscape() {
+        ScannerRegexNode node = new ScannerRegexParser().parse("\\0101");
+        assertTrue(node instanceof ScannerRegexNode.Literal, "\\0101 is not a literal");
+        assertEquals('A', ((ScannerRegexNode.Literal) node).getCharacter(), "\\0101");
+    }
+
+    /**
+     * Test that the parser accepts what Java accepts.
+     */
+    @Test
+    public void testAcceptsValidSyntax() {
+        for (String regex : VALID) {
+            assertNotNull(Pattern.compile(regex), regex);
+            assertNotNull(new ScannerRegexParser().parse(regex), regex);
+        }
+    }
+}
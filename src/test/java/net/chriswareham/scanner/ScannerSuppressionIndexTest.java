@@ -0,0 +1,174 @@
+package net.chriswareham.scanner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests the lookup of the scanner suppressions for files in a
+ * suppression index, for each kind of target and for ranges of lines, which
+ * are merged when they overlap or are adjacent.
+ */
+public class ScannerSuppressionIndexTest {
+    /**
+     * The number of scanner patterns.
+     */
+    private static final int PATTERNS = 3;
+
+    /**
+     * Test that a file suppression only applies to that file.
+     *
+     * @throws IOException if an error occurs
+     */
+    @Test
+    public void testFile() throws IOException {
+        ScannerSuppressionIndex index = index("<suppression file=\"src/A.java\"><pattern name=\"p0\"/><pattern name=\"p2\"/></suppression>");
+
+        ScannerFileSuppressions suppressions = index.get(file("src/A.java"));
+        assertTrue(suppressions.isSuppressed(0, 1), "p0 in src/A.java");
+        assertFalse(suppressions.isSuppressed(1, 1), "p1 in src/A.java");
+        assertTrue(suppressions.isSuppressed(2, 100), "p2 in src/A.java");
+        assertSame(ScannerFileSuppressions.NONE, index.get(file("src/B.java")), "src/B.java");
+        assertSame(ScannerFileSuppressions.NONE, index.get(file("src/A.java/C.java")), "src/A.java/C.java");
+        assertSame(ScannerFileSuppressions.NONE, index.get(file("A.java")), "A.java");
+    }
+
+    /**
+     * Test that a directory suppression applies to the files beneath the
+     * directory, however deep, and not to siblings with the directory name
+     * as a prefix.
+     *
+     * @throws IOException if an error occurs
+     */
+    @Test
+    public void testDirectory() throws IOException {
+        ScannerSuppressionIndex index = index("<suppression directory=\"gen\"><pattern name=\"p1\"/></suppression>");
+
+        assertTrue(index.get(file("gen/A.java")).isSuppressed(1, 1), "gen/A.java");
+        assertTrue(index.get(file("gen/a/b/A.java")).isSuppressed(1, 1), "gen/a/b/A.java");
+        assertFalse(index.get(file("gen/A.java")).isSuppressed(0, 1), "p0 in gen/A.java");
+        assertSame(ScannerFileSuppressions.NONE, index.get(file("generated/A.java")), "generated/A.java");
+        assertSame(ScannerFileSuppressions.NONE, index.get(file("src/gen/A.java")), "src/gen/A.java");
+    }
+
+    /**
+     * Test that a name glob applies to the files beneath the base directory
+     * whose names match it.
+     *
+     * @throws IOException if an error occurs
+     */
+    @Test
+    public void testNameGlob() throws IOException {
+        ScannerSuppressionIndex index = index("<suppression file=\"*.properties\"><pattern name=\"p0\"/></suppression>");
+
+        assertTrue(index.get(file("a.properties")).isSuppressed(0, 1), "a.properties");
+        assertTrue(index.get(file("src/main/resources/a.properties")).isSuppressed(0, 1), "src/main/resources/a.properties");
+        assertSame(ScannerFileSuppressions.NONE, index.get(file("a.yml")), "a.yml");
+        assertSame(ScannerFileSuppressions.NONE, index.get(file("a.properties.bak")), "a.properties.bak");
+        assertSame(ScannerFileSuppressions.NONE, index.get(new File(ScannerSuppressionsXmlParserTest.base("..").toFile(), "other/a.properties")), "outside the base directory");
+    }
+
+    /**
+     * Test that a path glob applies to the files whose paths relative to its
+     * leading directory match it.
+     *
+     * @throws IOException if an error occurs
+     */
+    @Test
+    public void testPathGlob() throws IOException {
+        ScannerSuppressionIndex index = index(
+            "<suppression file=\"src/main/**/secret*.txt\"><pattern name=\"p0\"/></suppression>",
+            "<suppression file=\"*/conf/*.xml\"><pattern name=\"p1\"/></suppression>");
+
+        assertTrue(index.get(file("src/main/a/secret1.txt")).isSuppressed(0, 1), "src/main/a/secret1.txt");
+        assertTrue(index.get(file("src/main/a/b/secret.txt")).isSuppressed(0, 1), "src/main/a/b/secret.txt");
+        assertSame(ScannerFileSuppressions.NONE, index.get(file("src/test/a/secret1.txt")), "src/test/a/secret1.txt");
+        assertSame(ScannerFileSuppressions.NONE, index.get(file("src/main/a/public.txt")), "src/main/a/public.txt");
+
+        assertTrue(index.get(file("x/conf/a.xml")).isSuppressed(1, 1), "x/conf/a.xml");
+        assertSame(ScannerFileSuppressions.NONE, index.get(file("x/y/conf/a.xml")), "x/y/conf/a.xml");
+        assertSame(ScannerFileSuppressions.NONE, index.get(file("conf/a.xml")), "conf/a.xml");
+    }
+
+    /**
+     * Test that ranges of lines are merged when they overlap or are
+     * adjacent, across suppressions of the same file, and that a suppression
+     * of the whole file overrides ranges of lines.
+     *
+     * @throws IOException if an error occurs
+     */
+    @Test
+    public void testLines() throws IOException {
+        ScannerSuppressionIndex index = index(
+            "<suppression file=\"A.java\" lines=\"5-10,8-12\"><pattern name=\"p0\"/><pattern name=\"p1\"/></suppression>",
+            "<suppression file=\"A.java\" lines=\"13,20-21,30\"><pattern name=\"p0\"/></suppression>",
+            "<suppression directory=\".\" lines=\"25-29\"><pattern name=\"p0\"/></suppression>",
+            "<suppression file=\"*.java\"><pattern name=\"p1\"/></suppression>",
+            "<suppression file=\"A.java\" lines=\"30-31,1-20,3-4,6\"><pattern name=\"p2\"/></suppression>");
+
+        ScannerFileSuppressions suppressions = index.get(file("A.java"));
+        List<Integer> suppressed = new ArrayList<>();
+        for (int line = 1; line <= 32; ++line) {
+            if (suppressions.isSuppressed(0, line)) {
+                suppressed.add(line);
+            }
+        }
+        assertEquals(List.of(5, 6, 7, 8, 9, 10, 11, 12, 13, 20, 21, 25, 26, 27, 28, 29, 30), suppressed, "Lines of p0");
+        assertTrue(suppressions.isSuppressed(1, 1), "p1 in the whole file");
+        for (int line = 1; line <= 32; ++line) {
+            assertEquals(line <= 20 || line == 30 || line == 31, suppressions.isSuppressed(2, line), "p2 on line " + line);
+        }
+
+        ScannerFileSuppressions other = index.get(file("B.java"));
+        assertFalse(other.isSuppressed(0, 24), "p0 on line 24 of B.java");
+        assertTrue(other.isSuppressed(0, 25), "p0 on line 25 of B.java");
+        assertFalse(other.isSuppressed(0, 30), "p0 on line 30 of B.java");
+    }
+
+    /**
+     * Test that the names of patterns that are not scanner patterns are
+     * ignored.
+     *
+     * @throws IOException if an error occurs
+     */
+    @Test
+    public void testUnknownPattern() throws IOException {
+        ScannerSuppressionIndex index = index("<suppression file=\"A.java\"><pattern name=\"unknown\"/></suppression>");
+
+        assertSame(ScannerFileSuppressions.NONE, index.get(file("A.java")), "A.java");
+    }
+
+    /**
+     * Build a suppression index from suppressions, for scanner patterns
+     * named p0, p1 and so on.
+     *
+     * @param suppressions the suppression elements
+     * @return the suppression index
+     * @throws IOException if an error occurs
+     */
+    private static ScannerSuppressionIndex index(final String... suppressions) throws IOException {
+        List<ScannerPattern> patterns = new ArrayList<>();
+        for (int i = 0; i < PATTERNS; ++i) {
+            patterns.add(new ScannerPattern(i, "p" + i, "secret" + i, List.of(), List.of(), List.of(), ScannerRegexAnalysis.UNKNOWN));
+        }
+        return new ScannerSuppressionIndex(ScannerSuppressionsXmlParserTest.parse(ScannerSuppressionsXmlParserTest.base("").toFile(), suppressions), new ScannerPatternSet(patterns));
+    }
+
+    /**
+     * Get a file beneath the base directory.
+     *
+     * @param name the path of the file relative to the base directory
+     * @return the file
+     */
+    private static File file(final String name) {
+        return ScannerSuppressionsXmlParserTest.base(name).toFile();
+    }
+}
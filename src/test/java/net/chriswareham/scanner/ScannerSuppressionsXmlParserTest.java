@@ -0,0 +1,169 @@
+package net.chriswareham.scanner;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests the parsing of scanner suppressions, including the kinds
+ * of their targets, the splitting of the leading directory from a glob, the
+ * resolution of relative paths and the parsing of ranges of lines.
+ */
+public class ScannerSuppressionsXmlParserTest {
+    /**
+     * The base directory to resolve relative paths against, which does not
+     * need to exist.
+     */
+    private static final File BASE_DIR = new File("target/suppressions").getAbsoluteFile();
+
+    /**
+     * Test that a file, a directory, a name glob and a path glob are parsed
+     * as suppressions of those kinds.
+     *
+     * @throws IOException if an error occurs
+     */
+    @Test
+    public void testKinds() throws IOException {
+        List<ScannerSuppression> suppressions = parse(BASE_DIR,
+            "<suppression file=\"src/A.java\"><pattern name=\"p0\"/><pattern name=\"p1\"/></suppression>",
+            "<suppression directory=\"gen\"><pattern name=\"p0\"/></suppression>",
+            "<suppression file=\"*.properties\"><pattern name=\"p0\"/></suppression>",
+            "<suppression file=\"src/main/**/secret*.txt\"><pattern name=\"p0\"/></suppression>");
+
+        assertEquals(4, suppressions.size(), "Suppressions");
+        assertSuppression(suppressions.get(0), ScannerSuppression.Kind.FILE, base("src/A.java"), null);
+        assertEquals(Set.of("p0", "p1"), suppressions.get(0).getNames(), "Names");
+        assertSuppression(suppressions.get(1), ScannerSuppression.Kind.DIRECTORY, base("gen"), null);
+        assertSuppression(suppressions.get(2), ScannerSuppression.Kind.NAME_GLOB, base(""), "*.properties");
+        assertSuppression(suppressions.get(3), ScannerSuppression.Kind.PATH_GLOB, base("src/main"), "**/secret*.txt");
+    }
+
+    /**
+     * Test that the leading segments of a path glob without glob characters
+     * are split from it as the directory it is relative to.
+     *
+     * @throws IOException if an error occurs
+     */
+    @Test
+    public void testGlobDirectory() throws IOException {
+        List<ScannerSuppression> suppressions = parse(BASE_DIR,
+            "<suppression file=\"*/conf/*.xml\"><pattern name=\"p0\"/></suppression>",
+            "<suppression file=\"a/b/c*/d/*.yml\"><pattern name=\"p0\"/></suppression>",
+            "<suppression file=\"a/{b,c}/*.yml\"><pattern name=\"p0\"/></suppression>",
+            "<suppression file=\"/abs/dir/*.yml\"><pattern name=\"p0\"/></suppression>");
+
+        assertSuppression(suppressions.get(0), ScannerSuppression.Kind.PATH_GLOB, base(""), "*/conf/*.xml");
+        assertSuppression(suppressions.get(1), ScannerSuppression.Kind.PATH_GLOB, base("a/b"), "c*/d/*.yml");
+        assertSuppression(suppressions.get(2), ScannerSuppression.Kind.PATH_GLOB, base("a"), "{b,c}/*.yml");
+        assertSuppression(suppressions.get(3), ScannerSuppression.Kind.PATH_GLOB, new File("/abs/dir").getAbsoluteFile().toPath().normalize(), "*.yml");
+    }
+
+    /**
+     * Test that relative paths are resolved against the base directory, or
+     * against the working directory if there is none, and that absolute
+     * paths are not resolved.
+     *
+     * @throws IOException if an error occurs
+     */
+    @Test
+    public void testResolution() throws IOException {
+        String xml = "<suppression file=\"src/../conf/A.java\"><pattern name=\"p0\"/></suppression>";
+
+        assertEquals(base("conf/A.java"), parse(BASE_DIR, xml).get(0).getPath(), "Path with base directory");
+        assertEquals(Path.of("conf/A.java").toAbsolutePath().normalize(), parse(null, xml).get(0).getPath(), "Path without base directory");
+
+        Path absolute = new File("/abs/A.java").getAbsoluteFile().toPath();
+        assertEquals(absolute, parse(BASE_DIR, "<suppression file=\"" + absolute + "\"><pattern name=\"p0\"/></suppression>").get(0).getPath(), "Absolute path");
+    }
+
+    /**
+     * Test that line numbers and ranges of line numbers are parsed as pairs
+     * of the first and last line of each range.
+     *
+     * @throws IOException if an error occurs
+     */
+    @Test
+    public void testLines() throws IOException {
+        List<ScannerSuppression> suppressions = parse(BASE_DIR,
+            "<suppression file=\"A.java\" lines=\"5, 10-20,7 - 8\"><pattern name=\"p0\"/></suppression>",
+            "<suppression file=\"B.java\"><pattern name=\"p0\"/></suppression>");
+
+        assertArrayEquals(new int[] {5, 5, 10, 20, 7, 8}, suppressions.get(0).getLines(), "Lines");
+        assertArrayEquals(new int[0], suppressions.get(1).getLines(), "Whole file");
+    }
+
+    /**
+     * Test that invalid suppressions are rejected.
+     */
+    @Test
+    public void testInvalid() {
+        String[] invalid = {
+            "<suppression file=\"A.java\" lines=\"0\"><pattern name=\"p0\"/></suppression>",
+            "<suppression file=\"A.java\" lines=\"5-3\"><pattern name=\"p0\"/></suppression>",
+            "<suppression file=\"A.java\" lines=\"x\"><pattern name=\"p0\"/></suppression>",
+            "<suppression file=\"A.java\" lines=\"1-\"><pattern name=\"p0\"/></suppression>",
+            "<suppression file=\"src/[a*.java\"><pattern name=\"p0\"/></suppression>",
+            "<suppression file=\"{a,b.java\"><pattern name=\"p0\"/></suppression>",
+            "<suppression file=\"A.java\" directory=\"src\"><pattern name=\"p0\"/></suppression>",
+            "<suppression><pattern name=\"p0\"/></suppression>",
+            "<suppression file=\"A.java\"></suppression>",
+            "<suppression file=\"A.java\"><pattern name=\"p0\"/><pattern name=\"p0\"/></suppression>",
+            "<suppression file=\"A.java\"><pattern name=\"p0\"/></suppression><suppression file=\"A.java\"><pattern name=\"p1\"/></suppression>",
+        };
+        for (String xml : invalid) {
+            assertThrows(IllegalStateException.class, () -> parse(BASE_DIR, xml), xml);
+        }
+    }
+
+    /**
+     * Assert the target of a suppression.
+     *
+     * @param suppression the suppression
+     * @param kind the expected kind of the target
+     * @param path the expected path of the target
+     * @param glob the expected glob, or null if the target is not a glob
+     */
+    private static void assertSuppression(final ScannerSuppression suppression, final ScannerSuppression.Kind kind, final Path path, final String glob) {
+        assertEquals(kind, suppression.getKind(), "Kind of " + suppression);
+        assertEquals(path, suppression.getPath(), "Path of " + suppression);
+        if (glob == null) {
+            assertNull(suppression.getGlob(), "Glob of " + suppression);
+        } else {
+            assertEquals(glob, suppression.getGlob(), "Glob of " + suppression);
+        }
+    }
+
+    /**
+     * Resolve a relative path against the base directory.
+     *
+     * @param name the relative path
+     * @return the absolute and normalized path
+     */
+    static Path base(final String name) {
+        return new File(BASE_DIR, name).toPath().normalize();
+    }
+
+    /**
+     * Parse suppressions.
+     *
+     * @param baseDir the directory to resolve relative paths against, or null
+     * to resolve them against the working directory
+     * @param suppressions the suppression elements
+     * @return the scanner suppressions
+     * @throws IOException if an error occurs
+     */
+    static List<ScannerSuppression> parse(final File baseDir, final String... suppressions) throws IOException {
+        String xml = "<suppressions>" + String.join("", suppressions) + "</suppressions>";
+        return new ScannerSuppressionsXmlParser().parse(new StringReader(xml), baseDir);
+    }
+}
@@ -0,0 +1,151 @@
+package net.chriswareham.scanner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that matching a long line in windows finds the same
+ * matches as matching the whole line, for patterns with anchors and word
+ * boundaries that must see the characters around each window.
+ */
+public class ScannerWindowedFileMatcherTest {
+    /**
+     * The patterns to test, none of which match more than the overlap
+     * between windows.
+     */
+    private static final String[] REGEXES = {
+        "^key",
+        "end$",
+        "\\Akey",
+        "end\\z",
+        "\\bab\\b",
+        "\\Bcd",
+        "cd\\B",
+        "(?m)^ab",
+        "key\\s*=\\s*\\w{2,8}\\b",
+    };
+
+    /**
+     * The characters of the random lines.
+     */
+    private static final String ALPHABET = "abcdkey= _x";
+
+    /**
+     * The maximum length of a line to match at once.
+     */
+    private static final int MAX_LINE_LENGTH = 64;
+
+    /**
+     * The number of random lines.
+     */
+    private static final int LINES = 500;
+
+    /**
+     * Test that the regular expression engine finds the same matches in
+     * windows as in the whole line.
+     */
+    @Test
+    public void testRegexEngine() {
+        testEngine(ScannerEngine.REGEX);
+    }
+
+    /**
+     * Test that the automaton engine finds the same matches in windows as in
+     * the whole line.
+     */
+    @Test
+    public void testAutomatonEngine() {
+        testEngine(ScannerEngine.AUTOMATON);
+    }
+
+    /**
+     * Test that an engine finds the same matches in windows as the Java
+     * regular expression engine finds in the whole line.
+     *
+     * @param engine the engine
+     */
+    private static void testEngine(final ScannerEngine engine) {
+        List<ScannerPattern> patterns = new ArrayList<>();
+        List<Pattern> javaPatterns = new ArrayList<>();
+        for (String regex : REGEXES) {
+            ScannerRegexNode node = new ScannerRegexParser().parse(regex);
+            patterns.add(new ScannerPattern(patterns.size(), "pattern" + patterns.size(), regex, List.of(), ScannerRegexLiterals.extract(node), List.of(), ScannerRegexAnalysis.analyse(node)));
+            javaPatterns.add(Pattern.compile(regex));
+        }
+
+        ScannerContext context = new ScannerContext(
+            "UTF-8",
+            ScannerOutputFormat.PLAIN,
+            engine,
+            new ScannerFileFilter(List.of(), List.of()),
+            List.of(),
+            new ScannerPatternSet(patterns),
+            List.of(),
+            new ScannerMatchGuard(patterns.size(), 0L, false),
+            null);
+        BitSet active = new BitSet();
+        active.set(0, patterns.size());
+        ScannerWindowedFileMatcher matcher = new ScannerWindowedFileMatcher(
+            context.getMatcher().forFile(new File("test.txt"), active, new ArrayList<>()), MAX_LINE_LENGTH);
+
+        List<String> lines = new ArrayList<>();
+        lines.add("key" + "x".repeat(200) + " ab " + "y".repeat(200) + "end");
+        lines.add("x".repeat(MAX_LINE_LENGTH / 2 - 1) + "key=" + "ab".repeat(100) + " ab" + "x".repeat(100) + "acd");
+        Random random = new Random(0x51DE5L);
+        for (int i = 0; i < LINES; ++i) {
+            lines.add(randomLine(random));
+        }
+
+        for (int n = 0; n < lines.size(); ++n) {
+            String line = lines.get(n);
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < javaPatterns.size(); ++i) {
+                Matcher javaMatcher = javaPatterns.get(i).matcher(line);
+                while (javaMatcher.find()) {
+                    expected.add(i + ":" + javaMatcher.start());
+                }
+            }
+
+            List<ScannerMatch> matches = new ArrayList<>();
+            matcher.match(line, n + 1, matches);
+            List<String> actual = new ArrayList<>();
+            for (ScannerMatch match : matches) {
+                assertEquals(n + 1, match.getLine(), "Line number of " + engine + " match");
+                actual.add(match.getPattern() + ":" + match.getColumn());
+            }
+            actual.sort((a, b) -> {
+                String[] x = a.split(":");
+                String[] y = b.split(":");
+                int compare = Integer.compare(Integer.parseInt(x[0]), Integer.parseInt(y[0]));
+                return compare != 0 ? compare : Integer.compare(Integer.parseInt(x[1]), Integer.parseInt(y[1]));
+            });
+
+            assertEquals(expected, actual, engine + " on '" + line + "'");
+        }
+        assertEquals(lines.size(), matcher.getLongLines(), "Long lines");
+    }
+
+    /**
+     * Generate a random line longer than a window.
+     *
+     * @param random the source of randomness
+     * @return the line
+     */
+    private static String randomLine(final Random random) {
+        StringBuilder line = new StringBuilder();
+        int length = MAX_LINE_LENGTH + 1 + random.nextInt(MAX_LINE_LENGTH * 4);
+        for (int i = 0; i < length; ++i) {
+            line.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return line.toString();
+    }
+}